@@ -1,13 +1,31 @@
 package io.jacopocav.customercare;
 
+import static java.time.temporal.ChronoUnit.MICROS;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.auditing.DateTimeProvider;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 
-@EnableJpaAuditing
+@EnableJpaAuditing(dateTimeProviderRef = "auditingDateTimeProvider")
 @SpringBootApplication
 public class CustomerCareApplication {
     public static void main(String[] args) {
         SpringApplication.run(CustomerCareApplication.class, args);
     }
+
+    /**
+     * Truncates the creation and modification times of entities to microseconds, the precision
+     * of their columns: otherwise an entity kept in the second-level cache after being saved
+     * would hold a time that the database rounded, and revisions computed from it would not
+     * match the ones computed from the rows.
+     */
+    @Bean
+    DateTimeProvider auditingDateTimeProvider() {
+        return () -> Optional.of(LocalDateTime.now().truncatedTo(MICROS));
+    }
 }
@@ -0,0 +1,118 @@
+package io.jacopocav.customercare.cache;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.util.Assert;
+
+/**
+ * Fixed-size, thread-safe Bloom filter of UUIDs, sized for the given number of insertions
+ * and false positive rate. Bit indexes are derived by double hashing the two halves of the UUID.
+ */
+final class BloomFilter {
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+    private final long capacity;
+    private final double falsePositiveRate;
+    private final AtomicLong insertions = new AtomicLong();
+
+    BloomFilter(long capacity, double falsePositiveRate) {
+        Assert.isTrue(capacity > 0, "capacity must be positive");
+        Assert.isTrue(falsePositiveRate > 0 && falsePositiveRate < 1,
+            "falsePositiveRate must be between 0 and 1 (exclusive)");
+
+        final var bits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (LN2 * LN2));
+
+        this.words = new AtomicLongArray(Math.toIntExact((bits + Long.SIZE - 1) / Long.SIZE));
+        this.bitCount = (long) words.length() * Long.SIZE;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * LN2));
+        this.capacity = capacity;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    void put(UUID id) {
+        final long h1 = h1(id);
+        final long h2 = h2(id);
+
+        for (int i = 0; i < hashCount; i++) {
+            final long bit = index(h1, h2, i);
+            final long mask = 1L << bit;
+            words.getAndUpdate((int) (bit >>> 6), word -> word | mask);
+        }
+
+        insertions.incrementAndGet();
+    }
+
+    boolean mightContain(UUID id) {
+        final long h1 = h1(id);
+        final long h2 = h2(id);
+
+        for (int i = 0; i < hashCount; i++) {
+            final long bit = index(h1, h2, i);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    boolean isFull() {
+        return insertions.get() >= capacity;
+    }
+
+    long capacity() {
+        return capacity;
+    }
+
+    double falsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    long insertions() {
+        return insertions.get();
+    }
+
+    long sizeInBytes() {
+        return bitCount / Byte.SIZE;
+    }
+
+    /**
+     * The false positive rate expected after the current number of insertions,
+     * i.e. {@code (1 - e^(-kn/m))^k}.
+     */
+    double expectedFalsePositiveRate() {
+        final double exponent = -(double) hashCount * insertions.get() / bitCount;
+        return Math.pow(1 - Math.exp(exponent), hashCount);
+    }
+
+    private long index(long h1, long h2, int i) {
+        return Math.floorMod(h1 + i * h2, bitCount);
+    }
+
+    private static long h1(UUID id) {
+        return mix(id.getMostSignificantBits() ^ mix(id.getLeastSignificantBits()));
+    }
+
+    private static long h2(UUID id) {
+        return mix(id.getLeastSignificantBits() ^ Long.rotateLeft(id.getMostSignificantBits(), 32))
+            | 1;
+    }
+
+    /**
+     * The 64-bit finalizer of MurmurHash3, so that also non-random UUIDs spread evenly.
+     */
+    private static long mix(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
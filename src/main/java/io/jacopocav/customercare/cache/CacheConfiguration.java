@@ -0,0 +1,36 @@
+package io.jacopocav.customercare.cache;
+
+import java.util.Map;
+
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Registers one cache for each entry under {@code customer-care.cache}, mapping the cache name
+ * to its <a href="https://github.com/ben-manes/caffeine/wiki/Specification">Caffeine spec</a>.
+ * Caches whose spec includes {@code recordStats} publish their hit, miss and eviction
+ * counters as {@code cache.*} metrics.
+ */
+@EnableCaching
+@Configuration(proxyBeanMethods = false)
+public class CacheConfiguration {
+    static final String SPECS_PROPERTY = "customer-care.cache";
+
+    @Bean
+    CacheManagerCustomizer<CaffeineCacheManager> cacheSpecsCustomizer(Environment environment) {
+        final Map<String, String> specs = Binder.get(environment)
+            .bind(SPECS_PROPERTY, Bindable.mapOf(String.class, String.class))
+            .orElseGet(Map::of);
+
+        return manager -> specs.forEach((name, spec) ->
+            manager.registerCustomCache(name, Caffeine.from(spec).build()));
+    }
+}
@@ -0,0 +1,10 @@
+package io.jacopocav.customercare.cache;
+
+import lombok.experimental.UtilityClass;
+
+@UtilityClass
+public class CacheNames {
+    public static final String CUSTOMERS = "customers";
+    public static final String DEVICE_JSON = "device-json";
+    public static final String STALE_RESPONSES = "stale-responses";
+}
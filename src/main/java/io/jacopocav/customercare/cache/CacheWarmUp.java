@@ -0,0 +1,107 @@
+package io.jacopocav.customercare.cache;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import io.jacopocav.customercare.error.ResourceNotFoundException;
+import io.jacopocav.customercare.repository.CustomerRepository;
+import io.jacopocav.customercare.repository.DeviceRepository;
+import io.jacopocav.customercare.service.CustomerCrudService;
+import io.jacopocav.customercare.service.DeviceCrudService;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Loads the most recently modified customers and their devices into the caches, then runs once
+ * the remaining queries of the read and create paths, so that connections, query plans and
+ * caches are warm when the first requests arrive.
+ * <p>
+ * Application runners complete before the application is marked as ready to accept traffic:
+ * readiness changes only when the warm-up completes or its time budget runs out.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty("customer-care.warm-up.enabled")
+public class CacheWarmUp implements ApplicationRunner {
+    private final CustomerRepository customerRepository;
+    private final DeviceRepository deviceRepository;
+    private final CustomerCrudService customerCrudService;
+    private final DeviceCrudService deviceCrudService;
+    private final int customers;
+    private final Duration timeBudget;
+
+    public CacheWarmUp(
+        CustomerRepository customerRepository,
+        DeviceRepository deviceRepository,
+        CustomerCrudService customerCrudService,
+        DeviceCrudService deviceCrudService,
+        @Value("${customer-care.warm-up.customers}") int customers,
+        @Value("${customer-care.warm-up.time-budget}") Duration timeBudget
+    ) {
+        this.customerRepository = customerRepository;
+        this.deviceRepository = deviceRepository;
+        this.customerCrudService = customerCrudService;
+        this.deviceCrudService = deviceCrudService;
+        this.customers = customers;
+        this.timeBudget = timeBudget;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        final var executor = Executors.newSingleThreadExecutor(task -> new Thread(task, "warm-up"));
+        final var warmUp = executor.submit(this::warmUp);
+        executor.shutdown();
+
+        try {
+            warmUp.get(timeBudget.toMillis(), MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Warm-up did not complete within {}, it will be interrupted", timeBudget);
+            warmUp.cancel(true);
+        } catch (ExecutionException e) {
+            log.warn("Warm-up failed", e.getCause());
+        }
+    }
+
+    void warmUp() {
+        final var start = System.nanoTime();
+        final var customerIds =
+            customerRepository.findRecentlyModifiedIds(PageRequest.ofSize(customers));
+
+        var devices = 0;
+        for (final var customerId : customerIds) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+
+            try {
+                final var customer = customerCrudService.readRevisioned(customerId.toString());
+                for (final var device : customer.content().devices()) {
+                    deviceCrudService.readJson(device.id());
+                    devices++;
+                }
+            } catch (ResourceNotFoundException e) {
+                // deleted in the meantime
+            }
+        }
+
+        final var missingId = UUID.randomUUID();
+        customerRepository.findRevisionById(missingId);
+        deviceRepository.findVersionById(missingId);
+        deviceRepository.existsById(missingId);
+        deviceRepository.countByCustomerId(missingId);
+
+        log.info("Warm-up loaded {} customers and {} devices in {} ms", customerIds.size(),
+            devices, Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+}
@@ -0,0 +1,45 @@
+package io.jacopocav.customercare.cache;
+
+import java.util.List;
+
+import org.springframework.lang.Nullable;
+
+import io.jacopocav.customercare.event.CustomerChangedEvent;
+import io.jacopocav.customercare.event.DeviceChangedEvent;
+
+/**
+ * Shares changes to customers and devices with the other instances using the same database,
+ * so that each instance can keep its local caches coherent with the changes of the others.
+ */
+public interface ChangeLog {
+    /**
+     * Appends the given change, made by this instance, in the current transaction.
+     * {@code version} is the version of the customer after the change, {@code null} for
+     * deletions and unconditional updates.
+     */
+    void append(CustomerChangedEvent event, @Nullable Long version);
+
+    /**
+     * Appends the given change, made by this instance, in the current transaction.
+     * {@code version} is the version of the device after the change, {@code null} for
+     * deletions.
+     */
+    void append(DeviceChangedEvent event, @Nullable Long version);
+
+    /**
+     * Same as {@link #append(CustomerChangedEvent, Long)} for each of the given changes, which
+     * all leave their customer at {@code version}, with a single batch of statements.
+     */
+    void appendCustomers(List<CustomerChangedEvent> events, @Nullable Long version);
+
+    /**
+     * Same as {@link #append(DeviceChangedEvent, Long)} for each of the given changes, which
+     * all leave their device at {@code version}, with a single batch of statements.
+     */
+    void appendDevices(List<DeviceChangedEvent> events, @Nullable Long version);
+
+    /**
+     * Applies to the local caches the changes appended by other instances since the last poll.
+     */
+    void poll();
+}
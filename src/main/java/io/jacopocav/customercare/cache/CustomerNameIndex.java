@@ -0,0 +1,32 @@
+package io.jacopocav.customercare.cache;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import io.jacopocav.customercare.repository.CustomerNameRow;
+
+/**
+ * In-memory index of the first and last names of customers, searched by prefix. Names are
+ * compared in lower case and without accents, and each word of a name can be searched on its own.
+ */
+public interface CustomerNameIndex {
+    /**
+     * Returns the ids of up to {@code limit} customers with a name, or a word of a name, that
+     * starts with {@code prefix}, ordered by that name, then by id.
+     */
+    List<UUID> search(String prefix, int limit);
+
+    /**
+     * Adds the given customers at once.
+     */
+    void addAll(Collection<CustomerNameRow> customers);
+
+    /**
+     * Adds the customers with the given ids, reading their names from the database. Ids of
+     * missing customers are ignored.
+     */
+    void load(Collection<UUID> ids);
+
+    void remove(UUID id);
+}
@@ -0,0 +1,21 @@
+package io.jacopocav.customercare.cache;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import io.jacopocav.customercare.dto.ReadCustomerResponse;
+import io.jacopocav.customercare.dto.Revisioned;
+
+public interface CustomerResponseCache {
+    /**
+     * Returns the cached response for the given customer, calling {@code loader}
+     * (and caching its result) on a miss. Concurrent misses for the same customer share
+     * a single call to {@code loader}. Stale responses are never cached.
+     */
+    Revisioned<ReadCustomerResponse> get(
+        UUID customerId,
+        Supplier<Revisioned<ReadCustomerResponse>> loader
+    );
+
+    void evict(UUID customerId);
+}
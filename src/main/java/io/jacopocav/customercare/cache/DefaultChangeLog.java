@@ -0,0 +1,262 @@
+package io.jacopocav.customercare.cache;
+
+import static io.jacopocav.customercare.event.ChangeType.CREATED;
+import static io.jacopocav.customercare.event.ChangeType.DELETED;
+import static io.jacopocav.customercare.event.ChangeType.UPDATED;
+import static io.jacopocav.customercare.model.ChangeLogEntry.EntityType.CUSTOMER;
+import static io.jacopocav.customercare.model.ChangeLogEntry.EntityType.DEVICE;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import io.jacopocav.customercare.event.ChangeType;
+import io.jacopocav.customercare.event.CustomerChangedEvent;
+import io.jacopocav.customercare.event.DeviceChangedEvent;
+import io.jacopocav.customercare.model.ChangeLogEntry;
+import io.jacopocav.customercare.model.ChangeLogEntry.EntityType;
+import io.jacopocav.customercare.model.Customer;
+import io.jacopocav.customercare.model.Device;
+import io.jacopocav.customercare.repository.ChangeLogRepository;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Changes are appended to the {@code change_log} table, whose ids are polled in order by every
+ * instance. Polling starts from the last id found at startup, since caches start empty.
+ * <p>
+ * Ids are assigned on insert but become visible on commit, so an id lower than the last one
+ * polled can still appear later: skipped ids are polled again until they appear, or until the
+ * gap timeout runs out (ids of rolled back inserts are never reused). Entries older than the
+ * retention period are deleted by every instance.
+ */
+@Slf4j
+@Component
+public class DefaultChangeLog implements ChangeLog, DisposableBean {
+    private final UUID origin = UUID.randomUUID();
+    private final ChangeLogRepository repository;
+    private final CustomerResponseCache responseCache;
+    private final ExistenceFilter existenceFilter;
+    private final CustomerNameIndex nameIndex;
+    private final StaleResponseStore staleResponseStore;
+    private final Cache secondLevelCache;
+    private final Duration pollInterval;
+    private final int batchSize;
+    private final Duration gapTimeout;
+    private final Duration retention;
+    private final ScheduledExecutorService poller;
+
+    /**
+     * Highest id polled so far.
+     */
+    private long lastId;
+    /**
+     * Skipped ids lower than {@link #lastId}, with the time they were first skipped.
+     */
+    private final Map<Long, Instant> gaps = new HashMap<>();
+
+    public DefaultChangeLog(
+        ChangeLogRepository repository,
+        CustomerResponseCache responseCache,
+        ExistenceFilter existenceFilter,
+        CustomerNameIndex nameIndex,
+        StaleResponseStore staleResponseStore,
+        EntityManagerFactory entityManagerFactory,
+        @Value("${customer-care.change-log.poll-interval}") Duration pollInterval,
+        @Value("${customer-care.change-log.batch-size}") int batchSize,
+        @Value("${customer-care.change-log.gap-timeout}") Duration gapTimeout,
+        @Value("${customer-care.change-log.retention}") Duration retention
+    ) {
+        this.repository = repository;
+        this.responseCache = responseCache;
+        this.existenceFilter = existenceFilter;
+        this.nameIndex = nameIndex;
+        this.staleResponseStore = staleResponseStore;
+        this.secondLevelCache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        this.pollInterval = pollInterval;
+        this.batchSize = batchSize;
+        this.gapTimeout = gapTimeout;
+        this.retention = retention;
+        this.poller = Executors.newSingleThreadScheduledExecutor(
+            new CustomizableThreadFactory("change-log-poller-"));
+        this.lastId = repository.findMaxId().orElse(0L);
+    }
+
+    @Override
+    public void append(CustomerChangedEvent event, @Nullable Long version) {
+        Assert.notNull(event, "event is null");
+
+        repository.save(newEntry(CUSTOMER, event.customerId(), version, event.changeType()));
+    }
+
+    @Override
+    public void appendCustomers(List<CustomerChangedEvent> events, @Nullable Long version) {
+        Assert.notNull(events, "events is null");
+
+        repository.insertAll(events.stream()
+            .map(event -> newEntry(CUSTOMER, event.customerId(), version, event.changeType()))
+            .toList());
+    }
+
+    @Override
+    public void appendDevices(List<DeviceChangedEvent> events, @Nullable Long version) {
+        Assert.notNull(events, "events is null");
+
+        repository.insertAll(events.stream()
+            .map(event -> newEntry(DEVICE, event.deviceId(), version, event.changeType())
+                .setCustomerId(event.customerId()))
+            .toList());
+    }
+
+    @Override
+    public void append(DeviceChangedEvent event, @Nullable Long version) {
+        Assert.notNull(event, "event is null");
+
+        final var entry = newEntry(DEVICE, event.deviceId(), version, event.changeType());
+        repository.save(entry.setCustomerId(event.customerId()));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        final var interval = pollInterval.toMillis();
+        poller.scheduleWithFixedDelay(this::pollSafely, interval, interval, MILLISECONDS);
+        poller.scheduleWithFixedDelay(this::pruneSafely, 0, retention.toMillis(), MILLISECONDS);
+    }
+
+    /**
+     * The names of the customers created by other instances are read all at once, after each
+     * batch of entries.
+     */
+    @Override
+    public synchronized void poll() {
+        final var createdCustomers = new ArrayList<UUID>();
+
+        if (!gaps.isEmpty()) {
+            repository.findAllById(gaps.keySet()).forEach(entry -> {
+                gaps.remove(entry.getId());
+                apply(entry, createdCustomers);
+            });
+
+            final var expired = Instant.now().minus(gapTimeout);
+            gaps.values().removeIf(skippedAt -> skippedAt.isBefore(expired));
+        }
+
+        final var batch = PageRequest.ofSize(batchSize);
+        List<ChangeLogEntry> entries;
+        do {
+            entries = repository.findByIdGreaterThanOrderById(lastId, batch);
+
+            final var now = Instant.now();
+            for (final var entry : entries) {
+                for (long skipped = lastId + 1; skipped < entry.getId(); skipped++) {
+                    gaps.put(skipped, now);
+                }
+
+                lastId = entry.getId();
+                apply(entry, createdCustomers);
+            }
+
+            nameIndex.load(createdCustomers);
+            createdCustomers.clear();
+        } while (entries.size() == batchSize);
+    }
+
+    @Override
+    public void destroy() {
+        poller.shutdownNow();
+    }
+
+    private ChangeLogEntry newEntry(
+        EntityType entityType,
+        UUID entityId,
+        @Nullable Long version,
+        ChangeType changeType
+    ) {
+        return new ChangeLogEntry()
+            .setEntityType(entityType)
+            .setEntityId(entityId)
+            .setEntityVersion(version)
+            .setChangeType(changeType)
+            .setOrigin(origin);
+    }
+
+    private void apply(ChangeLogEntry entry, List<UUID> createdCustomers) {
+        if (origin.equals(entry.getOrigin())) {
+            // already applied by the event listeners of this instance
+            return;
+        }
+
+        final var id = entry.getEntityId();
+        final var changeType = entry.getChangeType();
+
+        if (changeType == CREATED) {
+            existenceFilter.add(id);
+        }
+
+        switch (entry.getEntityType()) {
+            case CUSTOMER -> {
+                if (changeType == CREATED) {
+                    createdCustomers.add(id);
+                } else {
+                    responseCache.evict(id);
+                    staleResponseStore.evict(id);
+                    secondLevelCache.evictEntityData(Customer.class, id);
+                }
+                if (changeType == DELETED) {
+                    nameIndex.remove(id);
+                }
+            }
+            case DEVICE -> {
+                final var customerId = entry.getCustomerId();
+                responseCache.evict(customerId);
+                staleResponseStore.evict(customerId);
+                if (changeType != CREATED) {
+                    staleResponseStore.evict(id);
+                }
+                if (changeType != UPDATED) {
+                    secondLevelCache.evictCollectionData(
+                        Customer.class.getName() + "." + Customer.Fields.devices, customerId);
+                }
+                secondLevelCache.evictEntityData(Device.class, id);
+            }
+        }
+    }
+
+    private void pollSafely() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            log.warn("Could not poll the change log", e);
+        }
+    }
+
+    private void pruneSafely() {
+        try {
+            final var threshold = LocalDateTime.now().minus(retention);
+            final var deleted = repository.deleteCreatedBefore(threshold);
+            log.debug("Deleted {} change log entries older than {}", deleted, retention);
+        } catch (RuntimeException e) {
+            log.warn("Could not prune the change log", e);
+        }
+    }
+}
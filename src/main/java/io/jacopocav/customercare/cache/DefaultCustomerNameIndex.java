@@ -0,0 +1,269 @@
+package io.jacopocav.customercare.cache;
+
+import static io.jacopocav.customercare.event.ChangeType.DELETED;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.text.Normalizer.Form.NFD;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.Assert;
+
+import io.jacopocav.customercare.cache.NameEntries.Entry;
+import io.jacopocav.customercare.event.CustomerChangedEvent;
+import io.jacopocav.customercare.event.CustomersCreatedEvent;
+import io.jacopocav.customercare.repository.CustomerNameRow;
+import io.jacopocav.customercare.repository.CustomerRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Names are kept in a large sorted array, loaded at startup, and in a small one holding the names
+ * added since, which is copied once for each batch of added customers. Removed ids are only set
+ * aside. Once the small array and the removed ids exceed {@code max-pending-changes}, both are
+ * merged into a new large array in a single pass. Searches never lock: they read both arrays
+ * from a consistent snapshot, seeking each by binary search.
+ * <p>
+ * Each name is indexed as a whole and from each of its words, so that a customer has a few
+ * entries. Until all customers have been loaded at startup, searches find only the ones added
+ * since. The names of a customer cannot be updated, so updates never change the index.
+ * <p>
+ * Created customers are added, and deleted ones removed, once their transaction is committed, so
+ * rolled back creations are never found and rolled back deletions leave them searchable. The
+ * customers created by a transaction are added at once. The latency of searches is exposed as a
+ * timer.
+ */
+@Component
+public class DefaultCustomerNameIndex implements CustomerNameIndex {
+    private static final String METRIC_PREFIX = "customer-care.name-index.";
+    private static final int LOAD_CHUNK_SIZE = 1 << 16;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final CustomerRepository repository;
+    private final int maxPendingChanges;
+    private final Set<UUID> removed = ConcurrentHashMap.newKeySet();
+    private final Timer searches;
+    private volatile Snapshot snapshot = new Snapshot(NameEntries.EMPTY, NameEntries.EMPTY);
+    private volatile boolean loaded;
+
+    public DefaultCustomerNameIndex(
+        CustomerRepository repository,
+        MeterRegistry meterRegistry,
+        @Value("${customer-care.search.max-pending-changes}") int maxPendingChanges
+    ) {
+        Assert.isTrue(maxPendingChanges > 0, "maxPendingChanges is not positive");
+
+        this.repository = repository;
+        this.maxPendingChanges = maxPendingChanges;
+
+        gauge(meterRegistry, "size", "bytes", index -> index.snapshot.sizeInBytes());
+        gauge(meterRegistry, "entries", null, index -> index.snapshot.size());
+        this.searches = Timer.builder(METRIC_PREFIX + "search")
+            .description("Latency of searches by prefix")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public List<UUID> search(String prefix, int limit) {
+        Assert.notNull(prefix, "prefix is null");
+        Assert.isTrue(limit > 0, "limit is not positive");
+
+        return searches.record(() -> find(normalize(prefix).getBytes(UTF_8), limit));
+    }
+
+    @Override
+    public void addAll(Collection<CustomerNameRow> customers) {
+        Assert.notNull(customers, "customers is null");
+        if (customers.isEmpty()) {
+            return;
+        }
+
+        final var entries = new ArrayList<Entry>();
+        for (final var customer : customers) {
+            addEntries(entries, customer.id(), customer.firstName());
+            addEntries(entries, customer.id(), customer.lastName());
+        }
+        merge(NameEntries.of(entries));
+    }
+
+    @Override
+    public void load(Collection<UUID> ids) {
+        Assert.notNull(ids, "ids is null");
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        addAll(repository.findNamesByIds(ids));
+    }
+
+    @Override
+    public synchronized void remove(UUID id) {
+        Assert.notNull(id, "id is null");
+
+        removed.add(id);
+        compactIfNeeded();
+    }
+
+    @TransactionalEventListener
+    public void on(CustomersCreatedEvent event) {
+        addAll(event.customers());
+    }
+
+    @TransactionalEventListener
+    public void on(CustomerChangedEvent event) {
+        if (event.changeType() == DELETED) {
+            remove(event.customerId());
+        }
+    }
+
+    /**
+     * Sorts the names by chunks, merged one at a time, so that only a chunk of names is held
+     * as objects at once.
+     */
+    @Transactional(readOnly = true)
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        var all = NameEntries.EMPTY;
+        final var chunk = new ArrayList<Entry>(LOAD_CHUNK_SIZE);
+        try (final var rows = repository.streamAllNames()) {
+            for (final var iterator = rows.iterator(); iterator.hasNext(); ) {
+                final var row = iterator.next();
+                addEntries(chunk, row.id(), row.firstName());
+                addEntries(chunk, row.id(), row.lastName());
+
+                if (chunk.size() >= LOAD_CHUNK_SIZE) {
+                    all = all.merge(NameEntries.of(chunk), Set.of());
+                    chunk.clear();
+                }
+            }
+        }
+        all = all.merge(NameEntries.of(chunk), Set.of());
+
+        synchronized (this) {
+            final var current = snapshot;
+            snapshot = new Snapshot(
+                current.large().merge(current.small(), Set.of()).merge(all, removed),
+                NameEntries.EMPTY);
+            loaded = true;
+            compactIfNeeded();
+        }
+    }
+
+    private List<UUID> find(byte[] key, int limit) {
+        if (key.length == 0) {
+            return List.of();
+        }
+
+        final var current = snapshot;
+        final var large = current.large();
+        final var small = current.small();
+        int i = large.lowerBound(key);
+        int j = small.lowerBound(key);
+
+        // the same customer can match with more than one of its names
+        final var ids = new LinkedHashSet<UUID>();
+        while (ids.size() < limit) {
+            final boolean inLarge = i < large.size() && large.startsWith(i, key);
+            final boolean inSmall = j < small.size() && small.startsWith(j, key);
+            if (!inLarge && !inSmall) {
+                break;
+            }
+
+            final var id = inLarge && (!inSmall || large.compare(i, small, j) <= 0)
+                ? large.id(i++)
+                : small.id(j++);
+            if (!removed.contains(id)) {
+                ids.add(id);
+            }
+        }
+
+        return List.copyOf(ids);
+    }
+
+    private synchronized void merge(NameEntries entries) {
+        final var current = snapshot;
+        snapshot = new Snapshot(current.large(), current.small().merge(entries, Set.of()));
+        compactIfNeeded();
+    }
+
+    /**
+     * Removed ids are dropped only once all customers have been loaded, since the ones loaded
+     * afterwards could include them.
+     */
+    private void compactIfNeeded() {
+        final var current = snapshot;
+        if (!loaded || current.small().size() + removed.size() <= maxPendingChanges) {
+            return;
+        }
+
+        snapshot = new Snapshot(current.large().merge(current.small(), removed),
+            NameEntries.EMPTY);
+        removed.clear();
+    }
+
+    /**
+     * Adds an entry for the normalized name and one for each of its words after the first.
+     */
+    private static void addEntries(List<Entry> entries, UUID id, String name) {
+        final var normalized = normalize(name).getBytes(UTF_8);
+        if (normalized.length == 0) {
+            return;
+        }
+
+        entries.add(new Entry(normalized, id));
+        for (int i = 0; i < normalized.length; i++) {
+            if (normalized[i] == ' ') {
+                final var word = Arrays.copyOfRange(normalized, i + 1, normalized.length);
+                entries.add(new Entry(word, id));
+            }
+        }
+    }
+
+    /**
+     * Lower case, without accents, with words separated by single spaces.
+     */
+    private static String normalize(String name) {
+        final var withoutMarks = MARKS.matcher(Normalizer.normalize(name, NFD)).replaceAll("");
+        return SEPARATORS.matcher(withoutMarks.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private void gauge(
+        MeterRegistry registry,
+        String name,
+        @Nullable String baseUnit,
+        ToDoubleFunction<DefaultCustomerNameIndex> value
+    ) {
+        Gauge.builder(METRIC_PREFIX + name, this, value)
+            .baseUnit(baseUnit)
+            .register(registry);
+    }
+
+    private record Snapshot(NameEntries large, NameEntries small) {
+        int size() {
+            return large.size() + small.size();
+        }
+
+        long sizeInBytes() {
+            return large.sizeInBytes() + small.sizeInBytes();
+        }
+    }
+}
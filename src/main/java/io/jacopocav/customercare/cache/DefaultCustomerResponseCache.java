@@ -0,0 +1,95 @@
+package io.jacopocav.customercare.cache;
+
+import static io.jacopocav.customercare.cache.CacheNames.CUSTOMERS;
+import static io.jacopocav.customercare.event.ChangeType.CREATED;
+
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.Assert;
+
+import io.jacopocav.customercare.dto.ReadCustomerResponse;
+import io.jacopocav.customercare.dto.Revisioned;
+import io.jacopocav.customercare.event.CustomerChangedEvent;
+import io.jacopocav.customercare.event.DeviceChangedEvent;
+
+@Component
+public class DefaultCustomerResponseCache implements CustomerResponseCache {
+    private final Cache cache;
+    /**
+     * Incremented before every eviction: a load that overlaps with an eviction must not
+     * leave its (possibly outdated) result in the cache.
+     */
+    private final AtomicLong evictions = new AtomicLong();
+    /**
+     * Flights are keyed by the number of evictions too: a caller must not get a response
+     * loaded before an eviction that happened before its call.
+     */
+    private final SingleFlight<Flight, Revisioned<ReadCustomerResponse>> singleFlight =
+        new SingleFlight<>();
+
+    public DefaultCustomerResponseCache(CacheManager cacheManager) {
+        this.cache = Objects.requireNonNull(cacheManager.getCache(CUSTOMERS),
+            "cache " + CUSTOMERS + " is not configured");
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Revisioned<ReadCustomerResponse> get(
+        UUID customerId,
+        Supplier<Revisioned<ReadCustomerResponse>> loader
+    ) {
+        Assert.notNull(customerId, "customerId is null");
+        Assert.notNull(loader, "loader is null");
+
+        final var cached = (Revisioned<ReadCustomerResponse>) cache.get(customerId, Revisioned.class);
+        if (cached != null) {
+            return cached;
+        }
+
+        final var evictionsBefore = evictions.get();
+        return singleFlight.load(new Flight(customerId, evictionsBefore), () -> {
+            final var loaded = loader.get();
+            if (loaded.isStale()) {
+                return loaded;
+            }
+
+            cache.put(customerId, loaded);
+
+            if (evictions.get() != evictionsBefore) {
+                cache.evict(customerId);
+            }
+
+            return loaded;
+        });
+    }
+
+    @Override
+    public void evict(UUID customerId) {
+        Assert.notNull(customerId, "customerId is null");
+
+        evictions.incrementAndGet();
+        cache.evict(customerId);
+    }
+
+    @TransactionalEventListener
+    public void on(CustomerChangedEvent event) {
+        if (event.changeType() != CREATED) {
+            evict(event.customerId());
+        }
+    }
+
+    @TransactionalEventListener
+    public void on(DeviceChangedEvent event) {
+        evict(event.customerId());
+    }
+
+    private record Flight(UUID customerId, long evictions) {
+    }
+}
@@ -0,0 +1,54 @@
+package io.jacopocav.customercare.cache;
+
+import static io.jacopocav.customercare.cache.CacheNames.DEVICE_JSON;
+
+import java.util.Objects;
+import java.util.UUID;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.jacopocav.customercare.dto.ReadDeviceResponse;
+
+@Component
+public class DefaultDeviceJsonCache implements DeviceJsonCache {
+    private final Cache cache;
+    private final ObjectMapper objectMapper;
+
+    public DefaultDeviceJsonCache(CacheManager cacheManager, ObjectMapper objectMapper) {
+        this.cache = Objects.requireNonNull(cacheManager.getCache(DEVICE_JSON),
+            "cache " + DEVICE_JSON + " is not configured");
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public byte[] get(UUID id, long version) {
+        Assert.notNull(id, "id is null");
+
+        return cache.get(new Key(id, version), byte[].class);
+    }
+
+    @Override
+    public byte[] put(UUID id, long version, ReadDeviceResponse response) {
+        Assert.notNull(id, "id is null");
+        Assert.notNull(response, "response is null");
+
+        final byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("could not serialize device " + id, e);
+        }
+
+        cache.put(new Key(id, version), json);
+        return json;
+    }
+
+    private record Key(UUID id, long version) {
+    }
+}
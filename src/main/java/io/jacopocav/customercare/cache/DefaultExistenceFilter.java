@@ -0,0 +1,170 @@
+package io.jacopocav.customercare.cache;
+
+import static io.jacopocav.customercare.event.ChangeType.CREATED;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.Assert;
+
+import io.jacopocav.customercare.event.CustomerChangedEvent;
+import io.jacopocav.customercare.event.DeviceChangedEvent;
+import io.jacopocav.customercare.model.id.UuidV7;
+import io.jacopocav.customercare.repository.CustomerRepository;
+import io.jacopocav.customercare.repository.DeviceRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Scalable Bloom filter: when the last filter reaches its capacity, a new one with twice the
+ * capacity and half the false positive rate is appended, so that the overall false positive rate
+ * stays below the configured one.
+ * <p>
+ * Until all existing ids have been loaded at startup, every id might exist. Deleted ids cannot be
+ * removed from a Bloom filter: they keep being reported as possibly existing.
+ * <p>
+ * The ids created by other instances are only added when the change log is polled, which can take
+ * up to the poll interval plus the gap timeout after their commit: time-ordered ids generated
+ * more recently than that might exist whatever the filter says.
+ */
+@Component
+public class DefaultExistenceFilter implements ExistenceFilter {
+    private static final String METRIC_PREFIX = "customer-care.existence-filter.";
+
+    private final CustomerRepository customerRepository;
+    private final DeviceRepository deviceRepository;
+    private final List<BloomFilter> filters = new CopyOnWriteArrayList<>();
+    private final long recentMillis;
+    private volatile boolean loaded;
+
+    public DefaultExistenceFilter(
+        CustomerRepository customerRepository,
+        DeviceRepository deviceRepository,
+        MeterRegistry meterRegistry,
+        @Value("${customer-care.existence-filter.expected-insertions}") long expectedInsertions,
+        @Value("${customer-care.existence-filter.false-positive-rate}") double falsePositiveRate,
+        @Value("${customer-care.change-log.poll-interval}") Duration pollInterval,
+        @Value("${customer-care.change-log.gap-timeout}") Duration gapTimeout
+    ) {
+        Assert.isTrue(falsePositiveRate > 0 && falsePositiveRate < 1,
+            "falsePositiveRate must be between 0 and 1 (exclusive)");
+
+        this.customerRepository = customerRepository;
+        this.deviceRepository = deviceRepository;
+        this.filters.add(new BloomFilter(expectedInsertions, falsePositiveRate / 2));
+        this.recentMillis = pollInterval.plus(gapTimeout).toMillis();
+
+        gauge(meterRegistry, "size", "bytes", f -> sum(BloomFilter::sizeInBytes));
+        gauge(meterRegistry, "insertions", null, f -> sum(BloomFilter::insertions));
+        gauge(meterRegistry, "false-positive-rate", null, f -> expectedFalsePositiveRate());
+    }
+
+    @Override
+    public boolean mightExist(UUID id) {
+        Assert.notNull(id, "id is null");
+
+        if (!loaded || isRecent(id)) {
+            return true;
+        }
+
+        for (final var filter : filters) {
+            if (filter.mightContain(id)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public void add(UUID id) {
+        Assert.notNull(id, "id is null");
+
+        var last = filters.get(filters.size() - 1);
+        if (last.isFull()) {
+            last = grow(last);
+        }
+
+        last.put(id);
+    }
+
+    @Transactional(readOnly = true)
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try (final var ids = customerRepository.findAllIds()) {
+            ids.forEach(this::add);
+        }
+        try (final var ids = deviceRepository.findAllIds()) {
+            ids.forEach(this::add);
+        }
+
+        loaded = true;
+    }
+
+    /**
+     * Not a transactional listener: new ids must be added before they are committed,
+     * otherwise they could be reported as missing right after the commit.
+     */
+    @EventListener
+    public void on(CustomerChangedEvent event) {
+        if (event.changeType() == CREATED) {
+            add(event.customerId());
+        }
+    }
+
+    @EventListener
+    public void on(DeviceChangedEvent event) {
+        if (event.changeType() == CREATED) {
+            add(event.deviceId());
+        }
+    }
+
+    private boolean isRecent(UUID id) {
+        return id.version() == 7
+            && UuidV7.millisOf(id) > System.currentTimeMillis() - recentMillis;
+    }
+
+    private synchronized BloomFilter grow(BloomFilter full) {
+        final var last = filters.get(filters.size() - 1);
+        if (last != full) {
+            return last;
+        }
+
+        final var next = new BloomFilter(full.capacity() * 2, full.falsePositiveRate() / 2);
+        filters.add(next);
+        return next;
+    }
+
+    private long sum(ToLongFunction<BloomFilter> metric) {
+        return filters.stream().mapToLong(metric).sum();
+    }
+
+    private double expectedFalsePositiveRate() {
+        double trueNegativeRate = 1;
+        for (final var filter : filters) {
+            trueNegativeRate *= 1 - filter.expectedFalsePositiveRate();
+        }
+        return 1 - trueNegativeRate;
+    }
+
+    private void gauge(
+        MeterRegistry registry,
+        String name,
+        @Nullable String baseUnit,
+        ToDoubleFunction<DefaultExistenceFilter> value
+    ) {
+        Gauge.builder(METRIC_PREFIX + name, this, value)
+            .baseUnit(baseUnit)
+            .register(registry);
+    }
+}
@@ -0,0 +1,141 @@
+package io.jacopocav.customercare.cache;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+import org.springframework.util.DigestUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.jacopocav.customercare.error.IdempotencyKeyReusedException;
+import io.jacopocav.customercare.model.IdempotentCreation;
+import io.jacopocav.customercare.repository.IdempotentCreationRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Each key is stored in the {@code idempotent_creation} table with a digest of its request,
+ * instead of the request itself, and with the created id: the id is enough to build the response
+ * again. The key is the primary key of the table and is inserted before the entity is created,
+ * in the same transaction, so requests with the same key sent to different instances create it
+ * once: the later insert waits for the first transaction and fails, before creating anything, and
+ * the stored id is returned instead.
+ * <p>
+ * Concurrent requests with the same key on the same instance share a single creation. Keys older
+ * than the retention period are deleted by every instance.
+ */
+@Slf4j
+@Component
+public class DefaultIdempotencyStore implements IdempotencyStore, DisposableBean {
+    private final IdempotentCreationRepository repository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+    private final Duration retention;
+    private final ScheduledExecutorService pruner;
+    private final SingleFlight<String, IdempotentCreation> creations = new SingleFlight<>();
+
+    public DefaultIdempotencyStore(
+        IdempotentCreationRepository repository,
+        ObjectMapper objectMapper,
+        PlatformTransactionManager transactionManager,
+        @Value("${customer-care.idempotency.retention}") Duration retention
+    ) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.retention = retention;
+        final var threadFactory = new CustomizableThreadFactory("idempotency-pruner-");
+        threadFactory.setDaemon(true);
+        this.pruner = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    @Override
+    public UUID create(String key, Object request, Supplier<UUID> creation) {
+        Assert.hasText(key, "key is blank or null");
+        Assert.notNull(request, "request is null");
+        Assert.notNull(creation, "creation is null");
+
+        final var requestDigest = digest(request);
+        final var stored = repository.findById(key);
+        if (stored.isPresent()) {
+            return createdIdFor(stored.get(), requestDigest);
+        }
+
+        final var entry = creations.load(key, () -> repository.findById(key)
+            // completed right before this creation started
+            .orElseGet(() -> insert(key, requestDigest, creation)));
+        return createdIdFor(entry, requestDigest);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        final var interval = retention.toMillis();
+        pruner.scheduleWithFixedDelay(this::pruneSafely, 0, interval, MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        pruner.shutdownNow();
+    }
+
+    private IdempotentCreation insert(String key, String requestDigest, Supplier<UUID> creation) {
+        try {
+            return transaction.execute(status -> {
+                // a concurrent request with the same key fails here, instead of running its
+                // creation and failing on the fiscal code or on the device limit
+                final var stored = repository.saveAndFlush(new IdempotentCreation()
+                    .setIdempotencyKey(key)
+                    .setRequestDigest(requestDigest));
+                // updated on commit
+                return stored.setCreatedId(creation.get());
+            });
+        } catch (DataIntegrityViolationException e) {
+            // stored by another instance in the meantime
+            return repository.findById(key).orElseThrow(() -> e);
+        }
+    }
+
+    private String digest(Object request) {
+        final byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(request);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("could not serialize " + request.getClass(), e);
+        }
+
+        return request.getClass().getName() + ':' + DigestUtils.md5DigestAsHex(json);
+    }
+
+    private static UUID createdIdFor(IdempotentCreation stored, String requestDigest) {
+        if (!stored.getRequestDigest().equals(requestDigest)) {
+            throw new IdempotencyKeyReusedException(stored.getIdempotencyKey());
+        }
+        return stored.getCreatedId();
+    }
+
+    private void pruneSafely() {
+        try {
+            final var threshold = LocalDateTime.now().minus(retention);
+            final var deleted = repository.deleteCreatedBefore(threshold);
+            log.debug("Deleted {} idempotency keys older than {}", deleted, retention);
+        } catch (RuntimeException e) {
+            log.warn("Could not prune the idempotency keys", e);
+        }
+    }
+}
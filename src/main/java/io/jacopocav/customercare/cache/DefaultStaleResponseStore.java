@@ -0,0 +1,217 @@
+package io.jacopocav.customercare.cache;
+
+import static io.jacopocav.customercare.cache.CacheNames.STALE_RESPONSES;
+import static io.jacopocav.customercare.event.ChangeType.CREATED;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+import io.jacopocav.customercare.dto.Revisioned;
+import io.jacopocav.customercare.error.ResourceNotFoundException;
+import io.jacopocav.customercare.event.CustomerChangedEvent;
+import io.jacopocav.customercare.event.DeviceChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fresh responses are read by the calling thread, in a read-only transaction whose timeout is
+ * applied to its statements: a read that runs out of time fails like any other data access
+ * error. Load alone never makes a response stale. Hibernate counts the time left in whole
+ * seconds, rounded down, so a read fails after between {@code read-timeout} minus one second and
+ * {@code read-timeout}, which must therefore be at least two seconds. Waiting for a connection of
+ * the pool is not part of the transaction timeout, so the pool timeout must not be longer.
+ * <p>
+ * After a failure, a single background task per id retries the read at a fixed interval until
+ * it succeeds, or the last known response expires. The last known response of a customer or
+ * device is evicted once a change to it is committed, so that it is never served afterwards.
+ */
+@Slf4j
+@Component
+public class DefaultStaleResponseStore implements StaleResponseStore, DisposableBean {
+    private final Cache cache;
+    private final TransactionTemplate readTransaction;
+    private final Duration refreshInterval;
+    private final ScheduledExecutorService refresher;
+    private final Set<UUID> refreshing = ConcurrentHashMap.newKeySet();
+    private final Counter staleResponses;
+
+    public DefaultStaleResponseStore(
+        CacheManager cacheManager,
+        MeterRegistry meterRegistry,
+        PlatformTransactionManager transactionManager,
+        @Value("${customer-care.stale-responses.read-timeout}") Duration readTimeout,
+        @Value("${customer-care.stale-responses.refresh-interval}") Duration refreshInterval,
+        @Value("${spring.datasource.hikari.connection-timeout}") long connectionTimeoutMillis
+    ) {
+        Assert.isTrue(readTimeout.toSeconds() >= 2 && readTimeout.toNanosPart() == 0,
+            "readTimeout is not a whole number of seconds, at least 2");
+        Assert.isTrue(connectionTimeoutMillis <= readTimeout.toMillis(),
+            "the connection timeout of the pool is longer than readTimeout");
+
+        this.cache = Objects.requireNonNull(cacheManager.getCache(STALE_RESPONSES),
+            "cache " + STALE_RESPONSES + " is not configured");
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.readTransaction.setTimeout((int) readTimeout.toSeconds());
+        this.refreshInterval = refreshInterval;
+        this.refresher = Executors.newSingleThreadScheduledExecutor(
+            daemonThreads("stale-responses-refresher-"));
+        this.staleResponses = Counter.builder("customer-care.stale-responses.served")
+            .register(meterRegistry);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Revisioned<T> read(UUID id, Supplier<Revisioned<T>> reader) {
+        Assert.notNull(id, "id is null");
+        Assert.notNull(reader, "reader is null");
+
+        final var lastKnown = (Entry<T>) cache.get(id, Entry.class);
+        if (lastKnown == null) {
+            return store(id, reader.get());
+        }
+
+        try {
+            return store(id, readTransaction.execute(status -> reader.get()));
+        } catch (RuntimeException e) {
+            onFailure(id, reader, e);
+            if (isDataAccessFailure(e)) {
+                return serveStale(lastKnown);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public String readRevision(UUID id, Supplier<String> reader) {
+        Assert.notNull(id, "id is null");
+        Assert.notNull(reader, "reader is null");
+
+        final var lastKnown = cache.get(id, Entry.class);
+        if (lastKnown == null) {
+            return reader.get();
+        }
+
+        try {
+            return Objects.requireNonNull(readTransaction.execute(status -> reader.get()),
+                "reader returned null");
+        } catch (RuntimeException e) {
+            if (e instanceof ResourceNotFoundException) {
+                cache.evict(id);
+            } else if (isDataAccessFailure(e)) {
+                // the response itself is read again, and refreshed, unless it is not modified
+                staleResponses.increment();
+                return lastKnown.response().revision();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void evict(UUID id) {
+        Assert.notNull(id, "id is null");
+
+        cache.evict(id);
+    }
+
+    @TransactionalEventListener
+    public void on(CustomerChangedEvent event) {
+        if (event.changeType() != CREATED) {
+            cache.evict(event.customerId());
+        }
+    }
+
+    /**
+     * The response of the customer embeds its devices, so it is evicted too.
+     */
+    @TransactionalEventListener
+    public void on(DeviceChangedEvent event) {
+        if (event.changeType() != CREATED) {
+            cache.evict(event.deviceId());
+        }
+        cache.evict(event.customerId());
+    }
+
+    @Override
+    public void destroy() {
+        refresher.shutdownNow();
+    }
+
+    private <T> Revisioned<T> store(UUID id, @Nullable Revisioned<T> response) {
+        Assert.notNull(response, "reader returned null");
+
+        cache.put(id, new Entry<>(response, Instant.now()));
+        return response;
+    }
+
+    private <T> Revisioned<T> serveStale(Entry<T> lastKnown) {
+        staleResponses.increment();
+        return lastKnown.response().staleSince(lastKnown.loadedAt());
+    }
+
+    private <T> void onFailure(UUID id, Supplier<Revisioned<T>> reader, Throwable error) {
+        if (error instanceof ResourceNotFoundException) {
+            cache.evict(id);
+        } else if (isDataAccessFailure(error) && refreshing.add(id)) {
+            log.warn("Could not read {}, serving last known response", id, error);
+            scheduleRefresh(id, reader);
+        }
+    }
+
+    private <T> void scheduleRefresh(UUID id, Supplier<Revisioned<T>> reader) {
+        refresher.schedule(() -> refresh(id, reader), refreshInterval.toNanos(), NANOSECONDS);
+    }
+
+    private <T> void refresh(UUID id, Supplier<Revisioned<T>> reader) {
+        try {
+            store(id, readTransaction.execute(status -> reader.get()));
+            refreshing.remove(id);
+        } catch (RuntimeException e) {
+            if (isDataAccessFailure(e) && cache.get(id) != null) {
+                scheduleRefresh(id, reader);
+                return;
+            }
+
+            refreshing.remove(id);
+            if (e instanceof ResourceNotFoundException) {
+                cache.evict(id);
+            }
+        }
+    }
+
+    private static boolean isDataAccessFailure(Throwable error) {
+        return error instanceof DataAccessException || error instanceof TransactionException;
+    }
+
+    private static CustomizableThreadFactory daemonThreads(String prefix) {
+        final var threadFactory = new CustomizableThreadFactory(prefix);
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    private record Entry<T>(Revisioned<T> response, Instant loadedAt) {
+    }
+}
@@ -0,0 +1,21 @@
+package io.jacopocav.customercare.cache;
+
+import java.util.UUID;
+
+import org.springframework.lang.Nullable;
+
+import io.jacopocav.customercare.dto.ReadDeviceResponse;
+
+/**
+ * Keeps devices serialized as UTF-8 JSON, keyed by id and version: a new version of a device
+ * is simply a different key, so entries never need to be invalidated.
+ */
+public interface DeviceJsonCache {
+    @Nullable
+    byte[] get(UUID id, long version);
+
+    /**
+     * Serializes {@code response}, caches it under the given id and version and returns it.
+     */
+    byte[] put(UUID id, long version, ReadDeviceResponse response);
+}
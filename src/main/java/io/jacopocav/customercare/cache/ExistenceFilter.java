@@ -0,0 +1,16 @@
+package io.jacopocav.customercare.cache;
+
+import java.util.UUID;
+
+/**
+ * In-memory set of the ids of existing customers and devices, which may give false positives
+ * but never false negatives: ids it does not contain surely do not exist.
+ */
+public interface ExistenceFilter {
+    /**
+     * Returns {@code false} only if no customer or device with the given id exists.
+     */
+    boolean mightExist(UUID id);
+
+    void add(UUID id);
+}
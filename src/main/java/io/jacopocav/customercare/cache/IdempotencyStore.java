@@ -0,0 +1,25 @@
+package io.jacopocav.customercare.cache;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import io.jacopocav.customercare.error.IdempotencyKeyReusedException;
+
+/**
+ * Remembers, for a while, the ids created by requests with an idempotency key, so that retries
+ * of those requests return the same id instead of creating a duplicate.
+ */
+public interface IdempotencyStore {
+    /**
+     * Returns the id created by {@code creation} for the first request with {@code key}. Later
+     * requests with the same key and an equal {@code request} get the same id without calling
+     * {@code creation}, and concurrent ones wait for the first to complete. A failed creation
+     * is not remembered, so that it can be retried.
+     * <p>
+     * {@code creation} runs in a transaction that also stores the key: it must join it, so
+     * that the entity is only created if the key is stored too.
+     *
+     * @throws IdempotencyKeyReusedException if {@code key} was used for a different request
+     */
+    UUID create(String key, Object request, Supplier<UUID> creation);
+}
@@ -0,0 +1,212 @@
+package io.jacopocav.customercare.cache;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Immutable list of names, each with the id of its customer, sorted by name, then by id. Names
+ * are stored back to back as UTF-8 in a single byte array, and ids as two arrays of longs: an
+ * entry takes the bytes of its name plus 20 bytes, with no object of its own.
+ * <p>
+ * Names are compared byte by byte, which orders UTF-8 like code points and makes a prefix of a
+ * name also a prefix of its bytes.
+ */
+final class NameEntries {
+    static final NameEntries EMPTY =
+        new NameEntries(new byte[0], new int[1], new long[0], new long[0]);
+
+    private static final Comparator<Entry> ORDER = (a, b) -> {
+        final int byName = Arrays.compareUnsigned(a.name(), b.name());
+        return byName != 0 ? byName : compareIds(a.id(), b.id());
+    };
+
+    private final byte[] names;
+    /**
+     * Start of each name in {@link #names}, followed by the end of the last one.
+     */
+    private final int[] offsets;
+    private final long[] mostSignificantBits;
+    private final long[] leastSignificantBits;
+
+    private NameEntries(
+        byte[] names,
+        int[] offsets,
+        long[] mostSignificantBits,
+        long[] leastSignificantBits
+    ) {
+        this.names = names;
+        this.offsets = offsets;
+        this.mostSignificantBits = mostSignificantBits;
+        this.leastSignificantBits = leastSignificantBits;
+    }
+
+    /**
+     * Sorts {@code entries} in place, then packs them.
+     */
+    static NameEntries of(List<Entry> entries) {
+        entries.sort(ORDER);
+
+        final var builder = new Builder(entries.size(),
+            entries.stream().mapToInt(entry -> entry.name().length).sum());
+        entries.forEach(builder::add);
+        return builder.build();
+    }
+
+    int size() {
+        return mostSignificantBits.length;
+    }
+
+    UUID id(int index) {
+        return new UUID(mostSignificantBits[index], leastSignificantBits[index]);
+    }
+
+    /**
+     * Returns the index of the first name not lower than {@code prefix}, which is the first one
+     * starting with it, if any.
+     */
+    int lowerBound(byte[] prefix) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (Arrays.compareUnsigned(names, offsets[middle], offsets[middle + 1],
+                prefix, 0, prefix.length) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    boolean startsWith(int index, byte[] prefix) {
+        final int start = offsets[index];
+        return offsets[index + 1] - start >= prefix.length
+            && Arrays.equals(names, start, start + prefix.length, prefix, 0, prefix.length);
+    }
+
+    /**
+     * Compares the entry at {@code index} with the one of {@code other} at {@code otherIndex},
+     * by name, then by id.
+     */
+    int compare(int index, NameEntries other, int otherIndex) {
+        final int byName = Arrays.compareUnsigned(
+            names, offsets[index], offsets[index + 1],
+            other.names, other.offsets[otherIndex], other.offsets[otherIndex + 1]);
+        if (byName != 0) {
+            return byName;
+        }
+
+        final int byHighBits = Long.compareUnsigned(
+            mostSignificantBits[index], other.mostSignificantBits[otherIndex]);
+        return byHighBits != 0
+            ? byHighBits
+            : Long.compareUnsigned(
+                leastSignificantBits[index], other.leastSignificantBits[otherIndex]);
+    }
+
+    /**
+     * Merges these entries with {@code other} in a single pass, leaving out the entries of the
+     * ids in {@code removed} and keeping only one of equal entries.
+     */
+    NameEntries merge(NameEntries other, Set<UUID> removed) {
+        final var builder = new Builder(size() + other.size(), names.length + other.names.length);
+
+        int i = 0;
+        int j = 0;
+        while (i < size() || j < other.size()) {
+            final int comparison = i == size() ? 1
+                : j == other.size() ? -1
+                : compare(i, other, j);
+
+            if (comparison <= 0) {
+                builder.add(this, i++, removed);
+                if (comparison == 0) {
+                    j++;
+                }
+            } else {
+                builder.add(other, j++, removed);
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Returns the size of the arrays, headers included.
+     */
+    long sizeInBytes() {
+        final long headers = 4 * 16;
+        return headers + names.length + (long) Integer.BYTES * offsets.length
+            + 2L * Long.BYTES * size();
+    }
+
+    private static int compareIds(UUID a, UUID b) {
+        final int byHighBits =
+            Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return byHighBits != 0
+            ? byHighBits
+            : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    record Entry(byte[] name, UUID id) {
+    }
+
+    /**
+     * Appends entries, which must come in order, to arrays sized for at most the given number
+     * of entries and bytes of names, trimmed when built.
+     */
+    private static final class Builder {
+        private final byte[] names;
+        private final int[] offsets;
+        private final long[] mostSignificantBits;
+        private final long[] leastSignificantBits;
+        private int size;
+
+        Builder(int maxEntries, int maxNameBytes) {
+            this.names = new byte[maxNameBytes];
+            this.offsets = new int[maxEntries + 1];
+            this.mostSignificantBits = new long[maxEntries];
+            this.leastSignificantBits = new long[maxEntries];
+        }
+
+        void add(Entry entry) {
+            append(entry.name(), 0, entry.name().length,
+                entry.id().getMostSignificantBits(), entry.id().getLeastSignificantBits());
+        }
+
+        void add(NameEntries source, int index, Set<UUID> removed) {
+            if (!removed.isEmpty() && removed.contains(source.id(index))) {
+                return;
+            }
+
+            final int start = source.offsets[index];
+            append(source.names, start, source.offsets[index + 1] - start,
+                source.mostSignificantBits[index], source.leastSignificantBits[index]);
+        }
+
+        NameEntries build() {
+            final int nameBytes = offsets[size];
+            if (size == mostSignificantBits.length && nameBytes == names.length) {
+                return new NameEntries(names, offsets, mostSignificantBits, leastSignificantBits);
+            }
+
+            return new NameEntries(
+                Arrays.copyOf(names, nameBytes),
+                Arrays.copyOf(offsets, size + 1),
+                Arrays.copyOf(mostSignificantBits, size),
+                Arrays.copyOf(leastSignificantBits, size));
+        }
+
+        private void append(byte[] name, int from, int length, long high, long low) {
+            final int start = offsets[size];
+            System.arraycopy(name, from, names, start, length);
+            mostSignificantBits[size] = high;
+            leastSignificantBits[size] = low;
+            offsets[++size] = start + length;
+        }
+    }
+}
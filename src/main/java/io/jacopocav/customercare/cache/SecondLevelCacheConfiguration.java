@@ -0,0 +1,66 @@
+package io.jacopocav.customercare.cache;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+import io.jacopocav.customercare.model.Customer;
+import io.jacopocav.customercare.model.Device;
+
+/**
+ * Backs the Hibernate second-level cache with a local Caffeine JCache manager, whose
+ * entity and collection regions are all bounded by the same size and time-to-live.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty("customer-care.second-level-cache.enabled")
+public class SecondLevelCacheConfiguration {
+    static final List<String> REGIONS = List.of(
+        Customer.class.getName(),
+        Customer.class.getName() + "." + Customer.Fields.devices,
+        Device.class.getName()
+    );
+
+    @Bean(destroyMethod = "close")
+    CacheManager secondLevelCacheManager(
+        @Value("${customer-care.second-level-cache.maximum-size}") long maximumSize,
+        @Value("${customer-care.second-level-cache.expire-after-write}") Duration expireAfterWrite
+    ) {
+        final var provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        // a dedicated URI keeps application contexts sharing the same JVM from clashing
+        final var cacheManager = provider.getCacheManager(
+            URI.create("customer-care:second-level-cache:" + UUID.randomUUID()),
+            getClass().getClassLoader());
+
+        for (final var region : REGIONS) {
+            final var configuration = new CaffeineConfiguration<>();
+            configuration.setStoreByValue(false);
+            configuration.setStatisticsEnabled(true);
+            configuration.setMaximumSize(OptionalLong.of(maximumSize));
+            configuration.setExpireAfterWrite(OptionalLong.of(expireAfterWrite.toNanos()));
+
+            cacheManager.createCache(region, configuration);
+        }
+
+        return cacheManager;
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+    }
+}
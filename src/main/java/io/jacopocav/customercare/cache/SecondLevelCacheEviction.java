@@ -0,0 +1,60 @@
+package io.jacopocav.customercare.cache;
+
+import static io.jacopocav.customercare.event.ChangeType.CREATED;
+import static io.jacopocav.customercare.event.ChangeType.DELETED;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import io.jacopocav.customercare.event.CustomerChangedEvent;
+import io.jacopocav.customercare.event.DeviceChangedEvent;
+import io.jacopocav.customercare.model.Customer;
+import io.jacopocav.customercare.model.Device;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Evicts from the second-level cache, once committed, the customers and devices updated or
+ * deleted by JDBC statements, which Hibernate does not see, along with the devices collection of
+ * the customers losing one. The other entries of their regions stay cached.
+ * <p>
+ * New devices are added to the collection by Hibernate, which persists them.
+ */
+@Component
+@ConditionalOnProperty("customer-care.second-level-cache.enabled")
+public class SecondLevelCacheEviction {
+    private static final String DEVICES_ROLE =
+        Customer.class.getName() + "." + Customer.Fields.devices;
+
+    private final Cache cache;
+
+    public SecondLevelCacheEviction(EntityManagerFactory entityManagerFactory) {
+        this.cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+
+    @TransactionalEventListener
+    public void on(CustomerChangedEvent event) {
+        if (event.changeType() == CREATED) {
+            return;
+        }
+
+        cache.evictEntityData(Customer.class, event.customerId());
+        if (event.changeType() == DELETED) {
+            cache.evictCollectionData(DEVICES_ROLE, event.customerId());
+        }
+    }
+
+    @TransactionalEventListener
+    public void on(DeviceChangedEvent event) {
+        if (event.changeType() == CREATED) {
+            return;
+        }
+
+        cache.evictEntityData(Device.class, event.deviceId());
+        if (event.changeType() == DELETED) {
+            cache.evictCollectionData(DEVICES_ROLE, event.customerId());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package io.jacopocav.customercare.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import org.springframework.util.Assert;
+
+/**
+ * Coalesces concurrent loads of the same key: while a load is in flight, other callers for the
+ * same key wait for it and get its result (or its exception) instead of starting their own.
+ * <p>
+ * Callers that arrive after a load has completed start a new one, so keys should include
+ * whatever makes a previous result unusable (e.g. a version).
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentMap<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+
+    public V load(K key, Supplier<V> loader) {
+        Assert.notNull(key, "key is null");
+        Assert.notNull(loader, "loader is null");
+
+        final var flight = new CompletableFuture<V>();
+        final var inFlight = flights.putIfAbsent(key, flight);
+
+        if (inFlight != null) {
+            return join(inFlight);
+        }
+
+        try {
+            final var value = loader.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    private static <V> V join(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package io.jacopocav.customercare.cache;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import io.jacopocav.customercare.dto.Revisioned;
+
+/**
+ * Keeps the last response successfully read for each customer and device, to be served
+ * (marked as {@linkplain Revisioned#isStale() stale}) when reading a fresh one fails because of
+ * the database, including running out of the configured read timeout.
+ */
+public interface StaleResponseStore {
+    /**
+     * Returns the result of {@code reader}, or the last known response for {@code id} if
+     * {@code reader} fails with a data access error or does not complete in time. In that case,
+     * a fresh response keeps being read in the background. {@code reader} runs on the calling
+     * thread.
+     */
+    <T> Revisioned<T> read(UUID id, Supplier<Revisioned<T>> reader);
+
+    /**
+     * Returns the result of {@code reader}, a fresh revision for {@code id}, or the revision of
+     * the last known response for {@code id} if {@code reader} fails like in
+     * {@link #read(UUID, Supplier)}. {@code reader} runs on the calling thread.
+     */
+    String readRevision(UUID id, Supplier<String> reader);
+
+    /**
+     * Evicts the last known response for {@code id}, changed by another instance.
+     */
+    void evict(UUID id);
+}
@@ -1,12 +1,20 @@
 package io.jacopocav.customercare.component;
 
 import io.jacopocav.customercare.dto.CreateCustomerRequest;
+import io.jacopocav.customercare.dto.CustomerSummaryResponse;
+import io.jacopocav.customercare.dto.PageResponse;
 import io.jacopocav.customercare.dto.ReadCustomerResponse;
+import io.jacopocav.customercare.dto.ReadDeviceResponse;
 import io.jacopocav.customercare.dto.UpdateCustomerRequest;
 import io.jacopocav.customercare.model.Customer;
 
 public interface CustomerMapper {
-    ReadCustomerResponse toDto(Customer entity);
+    /**
+     * @param devices the devices of the customer to embed, which may be only the first ones
+     */
+    ReadCustomerResponse toDto(Customer entity, PageResponse<ReadDeviceResponse> devices);
+
+    CustomerSummaryResponse toSummaryDto(Customer entity);
 
     void toEntity(UpdateCustomerRequest source, Customer target);
 
@@ -1,26 +1,24 @@
 package io.jacopocav.customercare.component;
 
+import java.util.Locale;
+
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 
 import io.jacopocav.customercare.dto.CreateCustomerRequest;
+import io.jacopocav.customercare.dto.CustomerSummaryResponse;
+import io.jacopocav.customercare.dto.PageResponse;
 import io.jacopocav.customercare.dto.ReadCustomerResponse;
+import io.jacopocav.customercare.dto.ReadDeviceResponse;
 import io.jacopocav.customercare.dto.UpdateCustomerRequest;
 import io.jacopocav.customercare.model.Customer;
-import lombok.RequiredArgsConstructor;
 
 @Component
-@RequiredArgsConstructor
 public class DefaultCustomerMapper implements CustomerMapper {
-    private final DeviceMapper deviceMapper;
-
     @Override
-    public ReadCustomerResponse toDto(Customer entity) {
+    public ReadCustomerResponse toDto(Customer entity, PageResponse<ReadDeviceResponse> devices) {
         Assert.notNull(entity, "entity is null");
-
-        final var devices = entity.getDevices().stream()
-            .map(deviceMapper::toDto)
-            .toList();
+        Assert.notNull(devices, "devices is null");
 
         return new ReadCustomerResponse(
             entity.getId().toString(),
@@ -28,7 +26,21 @@ public class DefaultCustomerMapper implements CustomerMapper {
             entity.getLastName(),
             entity.getFiscalCode(),
             entity.getAddress(),
-            devices
+            devices.items(),
+            devices.nextCursor()
+        );
+    }
+
+    @Override
+    public CustomerSummaryResponse toSummaryDto(Customer entity) {
+        Assert.notNull(entity, "entity is null");
+
+        return new CustomerSummaryResponse(
+            entity.getId().toString(),
+            entity.getFirstName(),
+            entity.getLastName(),
+            entity.getFiscalCode(),
+            entity.getAddress()
         );
     }
 
@@ -47,7 +59,8 @@ public class DefaultCustomerMapper implements CustomerMapper {
         return new Customer()
             .setFirstName(request.firstName())
             .setLastName(request.lastName())
-            .setFiscalCode(request.fiscalCode())
+            // so that the unique index also rejects the same code in a different case
+            .setFiscalCode(request.fiscalCode().toUpperCase(Locale.ROOT))
             .setAddress(request.address());
     }
 }
@@ -12,7 +12,6 @@ import org.springframework.util.Assert;
 import io.jacopocav.customercare.dto.CreateDeviceRequest;
 import io.jacopocav.customercare.dto.ReadDeviceResponse;
 import io.jacopocav.customercare.dto.UpdateDeviceRequest;
-import io.jacopocav.customercare.error.CustomerNotFoundException;
 import io.jacopocav.customercare.model.Device;
 import io.jacopocav.customercare.model.Device.Status;
 import io.jacopocav.customercare.repository.CustomerRepository;
@@ -49,9 +48,8 @@ public class DefaultDeviceMapper implements DeviceMapper {
         Assert.notNull(request, "request is null");
 
         final var customerId = UUID.fromString(request.customerId());
-
-        final var customer = customerRepository.findById(customerId)
-            .orElseThrow(() -> new CustomerNotFoundException(customerId));
+        // only the foreign key is needed: the customer is not loaded
+        final var customer = customerRepository.getReferenceById(customerId);
 
         return new Device()
             .setStatus(Status.valueOf(upperCase(request.status())))
@@ -0,0 +1,14 @@
+package io.jacopocav.customercare.dto;
+
+import java.util.List;
+
+/**
+ * The outcome of a batch creation: {@code ids} holds the id of each created item at the index
+ * of its request ({@code null} if it was not created), {@code errors} the reason of each item
+ * that was not created.
+ */
+public record BatchCreateResponse(
+    List<String> ids,
+    List<BatchItemError> errors
+) {
+}
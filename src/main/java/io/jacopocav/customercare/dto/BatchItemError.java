@@ -0,0 +1,7 @@
+package io.jacopocav.customercare.dto;
+
+public record BatchItemError(
+    int index,
+    ErrorResponse<?> error
+) {
+}
@@ -0,0 +1,13 @@
+package io.jacopocav.customercare.dto;
+
+/**
+ * A customer without its devices, as listed by pages.
+ */
+public record CustomerSummaryResponse(
+    String id,
+    String firstName,
+    String lastName,
+    String fiscalCode,
+    String address
+) {
+}
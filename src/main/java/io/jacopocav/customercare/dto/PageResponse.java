@@ -0,0 +1,13 @@
+package io.jacopocav.customercare.dto;
+
+import java.util.List;
+
+/**
+ * A page of {@code items}; {@code nextCursor} requests the following page, and is {@code null}
+ * on the last one.
+ */
+public record PageResponse<T>(
+    List<T> items,
+    String nextCursor
+) {
+}
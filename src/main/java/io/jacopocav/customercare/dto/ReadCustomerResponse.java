@@ -1,13 +1,23 @@
 package io.jacopocav.customercare.dto;
 
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
+
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * A customer with its first devices. When it owns more than can be embedded,
+ * {@code devicesNextCursor} requests the following ones from {@code /customers/{id}/devices}.
+ */
 public record ReadCustomerResponse(
     String id,
     String firstName,
     String lastName,
     String fiscalCode,
     String address,
-    List<ReadDeviceResponse> devices
+    List<ReadDeviceResponse> devices,
+    @JsonInclude(NON_NULL)
+    String devicesNextCursor
 ) {
 }
@@ -0,0 +1,29 @@
+package io.jacopocav.customercare.dto;
+
+import java.time.Instant;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Some content, together with an opaque revision that changes whenever the content does.
+ * <p>
+ * When {@code staleSince} is not null, the content is a copy loaded at that instant, served
+ * because a fresh one could not be read.
+ */
+public record Revisioned<T>(
+    String revision,
+    T content,
+    @Nullable Instant staleSince
+) {
+    public Revisioned(String revision, T content) {
+        this(revision, content, null);
+    }
+
+    public Revisioned<T> staleSince(Instant loadedAt) {
+        return new Revisioned<>(revision, content, loadedAt);
+    }
+
+    public boolean isStale() {
+        return staleSince != null;
+    }
+}
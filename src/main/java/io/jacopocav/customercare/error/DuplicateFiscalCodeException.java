@@ -0,0 +1,24 @@
+package io.jacopocav.customercare.error;
+
+import java.io.Serial;
+
+import org.springframework.dao.DuplicateKeyException;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a customer is created with the fiscal code of another one. Being a
+ * {@link org.springframework.dao.DataAccessException}, it fails the chunks of batch creations
+ * like the constraint violation it translates.
+ */
+public class DuplicateFiscalCodeException extends DuplicateKeyException {
+    @Serial
+    private static final long serialVersionUID = 1;
+    @Getter
+    private final String fiscalCode;
+
+    public DuplicateFiscalCodeException(String fiscalCode, Throwable cause) {
+        super("a customer with fiscal code %s already exists".formatted(fiscalCode), cause);
+        this.fiscalCode = fiscalCode;
+    }
+}
@@ -0,0 +1,21 @@
+package io.jacopocav.customercare.error;
+
+import java.io.Serial;
+
+import lombok.Getter;
+
+/**
+ * Thrown when an idempotency key is sent again with a request other than the one it was first
+ * used for.
+ */
+public class IdempotencyKeyReusedException extends RuntimeException {
+    @Serial
+    private static final long serialVersionUID = 1;
+    @Getter
+    private final String key;
+
+    public IdempotencyKeyReusedException(String key) {
+        super("idempotency key %s was used for a different request".formatted(key));
+        this.key = key;
+    }
+}
@@ -0,0 +1,20 @@
+package io.jacopocav.customercare.error;
+
+import java.io.Serial;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a page cursor was not returned by a previous page.
+ */
+public class InvalidCursorException extends RuntimeException {
+    @Serial
+    private static final long serialVersionUID = 1;
+    @Getter
+    private final String cursor;
+
+    public InvalidCursorException(String cursor, Throwable cause) {
+        super("invalid cursor " + cursor, cause);
+        this.cursor = cursor;
+    }
+}
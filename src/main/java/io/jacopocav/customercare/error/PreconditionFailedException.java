@@ -0,0 +1,21 @@
+package io.jacopocav.customercare.error;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a conditional change finds the resource at a revision other than the expected one.
+ */
+public class PreconditionFailedException extends RuntimeException {
+    @Serial
+    private static final long serialVersionUID = 1;
+    @Getter
+    private final Serializable identifier;
+
+    public PreconditionFailedException(Serializable identifier) {
+        super("resource %s is not at the expected revision".formatted(identifier));
+        this.identifier = identifier;
+    }
+}
@@ -0,0 +1,5 @@
+package io.jacopocav.customercare.event;
+
+public enum ChangeType {
+    CREATED, UPDATED, DELETED
+}
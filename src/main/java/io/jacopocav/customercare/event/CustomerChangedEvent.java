@@ -0,0 +1,12 @@
+package io.jacopocav.customercare.event;
+
+import java.util.UUID;
+
+/**
+ * Published inside the transaction that creates, updates or deletes a customer.
+ */
+public record CustomerChangedEvent(
+    UUID customerId,
+    ChangeType changeType
+) {
+}
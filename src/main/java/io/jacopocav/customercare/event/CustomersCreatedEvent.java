@@ -0,0 +1,14 @@
+package io.jacopocav.customercare.event;
+
+import java.util.List;
+
+import io.jacopocav.customercare.repository.CustomerNameRow;
+
+/**
+ * Published inside the transaction that creates one or more customers, with their names, which
+ * {@link CustomerChangedEvent} does not carry.
+ */
+public record CustomersCreatedEvent(
+    List<CustomerNameRow> customers
+) {
+}
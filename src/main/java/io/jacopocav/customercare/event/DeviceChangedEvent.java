@@ -0,0 +1,14 @@
+package io.jacopocav.customercare.event;
+
+import java.util.UUID;
+
+/**
+ * Published inside the transaction that creates, updates or deletes a device.
+ * {@code customerId} is the id of the customer owning the device.
+ */
+public record DeviceChangedEvent(
+    UUID deviceId,
+    UUID customerId,
+    ChangeType changeType
+) {
+}
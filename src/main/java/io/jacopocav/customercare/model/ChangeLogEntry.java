@@ -0,0 +1,57 @@
+package io.jacopocav.customercare.model;
+
+import static jakarta.persistence.EnumType.STRING;
+import static jakarta.persistence.GenerationType.IDENTITY;
+
+import java.util.UUID;
+
+import io.jacopocav.customercare.event.ChangeType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A committed change to a customer or a device, appended in the same transaction as the change
+ * so that other instances sharing the database can evict it from their local caches.
+ */
+@Getter
+@Setter
+@Entity
+@Table(indexes = @Index(columnList = "createdAt"))
+public class ChangeLogEntry extends CommonModel {
+    @Id
+    @GeneratedValue(strategy = IDENTITY)
+    private Long id;
+    @Enumerated(STRING)
+    @Column(nullable = false)
+    private EntityType entityType;
+    @Column(nullable = false)
+    private UUID entityId;
+    /**
+     * The customer owning the changed device, {@code null} for customers.
+     */
+    private UUID customerId;
+    /**
+     * The version of the entity after the change, {@code null} for deletions and unconditional
+     * updates of customers. Only recorded for diagnostics: the instances do not read it.
+     */
+    private Long entityVersion;
+    @Enumerated(STRING)
+    @Column(nullable = false)
+    private ChangeType changeType;
+    /**
+     * The instance that appended the entry.
+     */
+    @Column(nullable = false)
+    private UUID origin;
+
+    public enum EntityType {
+        CUSTOMER, DEVICE
+    }
+}
@@ -1,15 +1,21 @@
 package io.jacopocav.customercare.model;
 
 import static jakarta.persistence.FetchType.LAZY;
+import static org.hibernate.annotations.CacheConcurrencyStrategy.READ_WRITE;
 
 import java.util.List;
 import java.util.UUID;
 
+import org.hibernate.annotations.Cache;
+
+import io.jacopocav.customercare.model.id.TimeOrderedUuid;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.FieldNameConstants;
@@ -17,10 +23,24 @@ import lombok.experimental.FieldNameConstants;
 @Getter
 @Setter
 @Entity
+@Table(indexes = {
+    // seeked by the keyset pagination of customers
+    @Index(name = "ix_customer_created_at_id", columnList = "createdAt, id"),
+    // read in order by the warm-up, which loads the most recently modified customers first
+    @Index(name = "ix_customer_last_modified_at", columnList = "lastModifiedAt desc"),
+    @Index(name = Customer.FISCAL_CODE_INDEX, columnList = "fiscalCode", unique = true)
+})
+@Cacheable
+@Cache(usage = READ_WRITE)
 @FieldNameConstants
 public class Customer extends CommonModel {
+    /**
+     * Name of the unique index on {@link #fiscalCode}, stored in upper case.
+     */
+    public static final String FISCAL_CODE_INDEX = "ux_customer_fiscal_code";
+
     @Id
-    @GeneratedValue
+    @TimeOrderedUuid
     private UUID id;
     @Column(nullable = false)
     private String firstName;
@@ -30,6 +50,7 @@ public class Customer extends CommonModel {
     private String fiscalCode;
     @Column(nullable = false)
     private String address;
+    @Cache(usage = READ_WRITE)
     @OneToMany(fetch = LAZY, mappedBy = "customer")
     private List<Device> devices;
 }
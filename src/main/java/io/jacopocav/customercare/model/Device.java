@@ -2,25 +2,40 @@ package io.jacopocav.customercare.model;
 
 import static jakarta.persistence.EnumType.STRING;
 import static jakarta.persistence.FetchType.LAZY;
+import static org.hibernate.annotations.CacheConcurrencyStrategy.READ_WRITE;
 
 import java.util.UUID;
 
+import org.hibernate.annotations.Cache;
+
+import io.jacopocav.customercare.model.id.TimeOrderedUuid;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Enumerated;
-import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.ForeignKey;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.Setter;
 
 @Getter
 @Setter
 @Entity
+// seeked by the keyset pagination of the devices of a customer
+@Table(indexes = @Index(
+    name = "ix_device_customer_created_at_id",
+    columnList = "customer_id, createdAt, id"))
+@Cacheable
+@Cache(usage = READ_WRITE)
 public class Device extends CommonModel {
+    public static final String CUSTOMER_FOREIGN_KEY = "fk_device_customer";
+
     @Id
-    @GeneratedValue
+    @TimeOrderedUuid
     private UUID id;
     @Enumerated(STRING)
     @Column(nullable = false)
@@ -29,7 +44,7 @@ public class Device extends CommonModel {
     private String color;
 
     @ManyToOne(fetch = LAZY)
-    @JoinColumn(nullable = false)
+    @JoinColumn(nullable = false, foreignKey = @ForeignKey(name = CUSTOMER_FOREIGN_KEY))
     private Customer customer;
 
     public enum Status {
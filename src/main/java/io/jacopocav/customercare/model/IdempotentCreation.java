@@ -0,0 +1,50 @@
+package io.jacopocav.customercare.model;
+
+import java.util.UUID;
+
+import org.springframework.data.domain.Persistable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The id created by a request with an idempotency key, inserted in the same transaction as the
+ * entity, so that a retry sent to any instance sharing the database gets the same id. The key is
+ * inserted first, and the id is set once the entity is created, before commit.
+ */
+@Getter
+@Setter
+@Entity
+@Table(indexes = @Index(columnList = "createdAt"))
+public class IdempotentCreation extends CommonModel implements Persistable<String> {
+    @Id
+    private String idempotencyKey;
+    /**
+     * Digest of the request, to tell a retry from another request reusing the key.
+     */
+    @Column(nullable = false)
+    private String requestDigest;
+    /**
+     * Never {@code null} once committed.
+     */
+    private UUID createdId;
+
+    @Override
+    public String getId() {
+        return idempotencyKey;
+    }
+
+    /**
+     * Always inserted, never merged: a key already stored by a concurrent request must fail the
+     * insert instead of being overwritten.
+     */
+    @Override
+    public boolean isNew() {
+        return getCreatedAt() == null;
+    }
+}
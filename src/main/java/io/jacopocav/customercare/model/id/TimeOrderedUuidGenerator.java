@@ -0,0 +1,30 @@
+package io.jacopocav.customercare.model.id;
+
+import java.lang.reflect.Member;
+import java.security.SecureRandom;
+import java.time.Clock;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+
+/**
+ * Assigns {@link UuidV7} ids before insertion. All the ids share the same generator, so they
+ * are increasing across entities too.
+ */
+public class TimeOrderedUuidGenerator implements IdentifierGenerator {
+    private static final UuidV7 GENERATOR = new UuidV7(Clock.systemUTC(), new SecureRandom());
+
+    public TimeOrderedUuidGenerator(
+        TimeOrderedUuid config,
+        Member member,
+        CustomIdGeneratorCreationContext context
+    ) {
+        // nothing to configure
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        return GENERATOR.next();
+    }
+}
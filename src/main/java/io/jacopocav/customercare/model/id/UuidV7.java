@@ -0,0 +1,64 @@
+package io.jacopocav.customercare.model.id;
+
+import java.time.Clock;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.util.Assert;
+
+/**
+ * Generates time-ordered UUIDs of version 7, as defined by
+ * <a href="https://www.rfc-editor.org/rfc/rfc9562#section-5.7">RFC 9562</a>: 48 bits of Unix
+ * time in milliseconds, followed by a 12-bit counter and 62 random bits.
+ * <p>
+ * Generated UUIDs are strictly increasing, also across threads: the counter orders the UUIDs
+ * generated in the same millisecond and, when it overflows or the clock goes backwards, the
+ * timestamp is advanced past the last one used instead of repeating it.
+ */
+public class UuidV7 {
+    private static final int COUNTER_BITS = 12;
+    private static final long VERSION = 0x7000L;
+    private static final long VARIANT = 0x8000_0000_0000_0000L;
+    private static final long RANDOM_MASK = 0x3FFF_FFFF_FFFF_FFFFL;
+
+    private final Clock clock;
+    private final Random random;
+    /**
+     * The timestamp and the counter of the last generated UUID.
+     */
+    private final AtomicLong last = new AtomicLong();
+
+    public UuidV7(Clock clock, Random random) {
+        Assert.notNull(clock, "clock is null");
+        Assert.notNull(random, "random is null");
+
+        this.clock = clock;
+        this.random = random;
+    }
+
+    /**
+     * Returns the Unix time in milliseconds at which the given UUID of version 7 was generated.
+     */
+    public static long millisOf(UUID uuid) {
+        Assert.isTrue(uuid.version() == 7, "uuid is not of version 7");
+
+        return uuid.getMostSignificantBits() >>> 16;
+    }
+
+    public UUID next() {
+        long previous;
+        long current;
+        do {
+            previous = last.get();
+            current = Math.max(clock.millis() << COUNTER_BITS, previous + 1);
+        } while (!last.compareAndSet(previous, current));
+
+        final long timestamp = current >>> COUNTER_BITS;
+        final long counter = current & ((1 << COUNTER_BITS) - 1);
+
+        return new UUID(
+            timestamp << 16 | VERSION | counter,
+            VARIANT | random.nextLong() & RANDOM_MASK);
+    }
+}
@@ -0,0 +1,14 @@
+package io.jacopocav.customercare.repository;
+
+import java.util.Collection;
+
+import io.jacopocav.customercare.model.ChangeLogEntry;
+
+public interface ChangeLogBatchInsert {
+    /**
+     * Inserts the given new entries with JDBC batches, without assigning their ids to them.
+     * <p>
+     * Ids are generated by the database, so Hibernate cannot batch the inserts of entries.
+     */
+    void insertAll(Collection<ChangeLogEntry> entries);
+}
@@ -0,0 +1,35 @@
+package io.jacopocav.customercare.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import io.jacopocav.customercare.model.ChangeLogEntry;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+class ChangeLogBatchInsertImpl implements ChangeLogBatchInsert {
+    private static final String INSERT = """
+        insert into change_log_entry (entity_type, entity_id, customer_id, entity_version,
+            change_type, origin, version, created_at, last_modified_at)
+        values (?, ?, ?, ?, ?, ?, 0, ?, ?)""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAll(Collection<ChangeLogEntry> entries) {
+        final var now = LocalDateTime.now();
+
+        jdbcTemplate.batchUpdate(INSERT, entries, entries.size(), (statement, entry) -> {
+            statement.setString(1, entry.getEntityType().name());
+            statement.setObject(2, entry.getEntityId());
+            statement.setObject(3, entry.getCustomerId());
+            statement.setObject(4, entry.getEntityVersion());
+            statement.setString(5, entry.getChangeType().name());
+            statement.setObject(6, entry.getOrigin());
+            statement.setObject(7, now);
+            statement.setObject(8, now);
+        });
+    }
+}
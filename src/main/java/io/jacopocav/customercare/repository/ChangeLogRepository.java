@@ -0,0 +1,26 @@
+package io.jacopocav.customercare.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.jacopocav.customercare.model.ChangeLogEntry;
+
+public interface ChangeLogRepository
+    extends JpaRepository<ChangeLogEntry, Long>, ChangeLogBatchInsert {
+    @Query("select max(e.id) from ChangeLogEntry e")
+    Optional<Long> findMaxId();
+
+    List<ChangeLogEntry> findByIdGreaterThanOrderById(long id, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("delete from ChangeLogEntry e where e.createdAt < :before")
+    int deleteCreatedBefore(LocalDateTime before);
+}
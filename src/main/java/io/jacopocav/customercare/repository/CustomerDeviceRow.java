@@ -0,0 +1,16 @@
+package io.jacopocav.customercare.repository;
+
+import org.springframework.lang.Nullable;
+
+import io.jacopocav.customercare.model.Customer;
+import io.jacopocav.customercare.model.Device;
+
+/**
+ * Projection of a customer and of one of its devices, if any.
+ */
+public interface CustomerDeviceRow {
+    Customer getCustomer();
+
+    @Nullable
+    Device getDevice();
+}
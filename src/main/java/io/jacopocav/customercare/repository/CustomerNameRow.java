@@ -0,0 +1,11 @@
+package io.jacopocav.customercare.repository;
+
+import java.util.UUID;
+
+/**
+ * Names of a customer. Unlike the other projections, a record built by the query itself, since
+ * the names of every customer are read at once, and the proxy of an interface projection costs
+ * several times as much as the row.
+ */
+public record CustomerNameRow(UUID id, String firstName, String lastName) {
+}
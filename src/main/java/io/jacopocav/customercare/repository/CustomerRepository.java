@@ -1,16 +1,136 @@
 package io.jacopocav.customercare.repository;
 
-import static org.springframework.data.jpa.repository.EntityGraph.EntityGraphType.LOAD;
+import static jakarta.persistence.LockModeType.PESSIMISTIC_WRITE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_MODE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import io.jacopocav.customercare.model.Customer;
+import io.jacopocav.customercare.model.Device;
+import jakarta.persistence.QueryHint;
 
-public interface CustomerRepository extends JpaRepository<Customer, UUID> {
-    @EntityGraph(attributePaths = Customer.Fields.devices, type = LOAD)
-    Optional<Customer> findFetchingDevicesById(UUID id);
+public interface CustomerRepository
+    extends JpaRepository<Customer, UUID>, CustomerStatements {
+    /**
+     * Rows fetched from the database at a time by {@link #streamAllWithDevices()} and
+     * {@link #streamAllNames()}.
+     */
+    String EXPORT_FETCH_SIZE = "1000";
+
+    /**
+     * Returns a single row aggregating the devices of the customer, or none if the customer does
+     * not exist.
+     */
+    @Query("""
+        select c.version as customerVersion, count(d) as deviceCount,
+            max(d.version) as maxDeviceVersion, max(d.lastModifiedAt) as lastDeviceModifiedAt
+        from Customer c left join c.devices d
+        where c.id = :id
+        group by c.version""")
+    Optional<RevisionRow> findRevisionById(UUID id);
+
+    /**
+     * Locks the row of the given customer until the end of the transaction, like the creations
+     * of its devices do, returning its id if it exists.
+     */
+    @Lock(PESSIMISTIC_WRITE)
+    @Query("select c.id from Customer c where c.id = :id")
+    Optional<UUID> lockById(UUID id);
+
+    @Query("select d.id from Device d where d.customer.id = :id")
+    List<UUID> findDeviceIdsById(UUID id);
+
+    /**
+     * Returns the first customers in {@code (createdAt, id)} order.
+     */
+    @Query("select c from Customer c order by c.createdAt, c.id")
+    List<Customer> findFirstPage(Pageable pageable);
+
+    /**
+     * Returns the customers that follow the given key in {@code (createdAt, id)} order. The
+     * query seeks the index on those columns, so its cost does not depend on the number of
+     * customers that precede the key, as it would with an offset.
+     */
+    @Query("""
+        select c from Customer c
+        where c.createdAt >= :createdAt and (c.createdAt > :createdAt or c.id > :id)
+        order by c.createdAt, c.id""")
+    List<Customer> findPageAfter(LocalDateTime createdAt, UUID id, Pageable pageable);
+
+    Optional<Customer> findByFiscalCode(String fiscalCode);
+
+    /**
+     * Returns the first devices of the given customer in {@code (createdAt, id)} order.
+     */
+    @Query("select d from Device d where d.customer.id = :id order by d.createdAt, d.id")
+    List<Device> findDevicesById(UUID id, Pageable pageable);
+
+    /**
+     * Returns the devices of the given customer that follow the given key in
+     * {@code (createdAt, id)} order, seeking the index on {@code (customer, createdAt, id)}.
+     */
+    @Query("""
+        select d from Device d
+        where d.customer.id = :id
+            and d.createdAt >= :createdAt and (d.createdAt > :createdAt or d.id > :deviceId)
+        order by d.createdAt, d.id""")
+    List<Device> findDevicesAfterById(
+        UUID id,
+        LocalDateTime createdAt,
+        UUID deviceId,
+        Pageable pageable);
+
+    /**
+     * Streams every customer joined with each of its devices (or once without device, if it
+     * has none), ordered by customer so that the rows of a customer are contiguous. The stream
+     * must be consumed inside a transaction, and closed. Entities are read without being put in
+     * the second-level cache, nor snapshotted for dirty checking.
+     */
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+        @QueryHint(name = HINT_CACHE_MODE, value = "IGNORE"),
+        @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        select c as customer, d as device
+        from Customer c left join c.devices d
+        order by c.id, d.createdAt, d.id""")
+    Stream<CustomerDeviceRow> streamAllWithDevices();
+
+    @Query("select c.id from Customer c")
+    Stream<UUID> findAllIds();
+
+    /**
+     * Streams the names of every customer. The stream must be consumed inside a transaction,
+     * and closed.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("""
+        select new io.jacopocav.customercare.repository.CustomerNameRow(
+            c.id, c.firstName, c.lastName)
+        from Customer c""")
+    Stream<CustomerNameRow> streamAllNames();
+
+    @Query("""
+        select new io.jacopocav.customercare.repository.CustomerNameRow(
+            c.id, c.firstName, c.lastName)
+        from Customer c
+        where c.id in :ids""")
+    List<CustomerNameRow> findNamesByIds(Collection<UUID> ids);
+
+    @Query("select c.id from Customer c order by c.lastModifiedAt desc")
+    List<UUID> findRecentlyModifiedIds(Pageable pageable);
 }
@@ -0,0 +1,32 @@
+package io.jacopocav.customercare.repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Updates and deletes customers with JDBC statements, without loading them.
+ * <p>
+ * Hibernate cannot tell which rows a bulk JPQL statement touches, so it would empty the whole
+ * second-level cache region of the entity on each of them. These statements bypass Hibernate
+ * instead: the customers they change are evicted by id once committed, by
+ * {@code SecondLevelCacheEviction}.
+ */
+public interface CustomerStatements {
+    /**
+     * Updates the address of the given customer, only if its version is {@code version}
+     * (when not {@code null}), returning the number of updated rows.
+     */
+    int updateAddress(UUID id, @Nullable Long version, String address, LocalDateTime now);
+
+    /**
+     * Deletes the given customer, returning the number of deleted rows.
+     */
+    int deleteRowById(UUID id);
+
+    /**
+     * Deletes all the devices of the given customer, returning the number of deleted rows.
+     */
+    int deleteDevicesById(UUID id);
+}
@@ -0,0 +1,37 @@
+package io.jacopocav.customercare.repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.Nullable;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+class CustomerStatementsImpl implements CustomerStatements {
+    private static final String UPDATE_ADDRESS = """
+        update customer set address = ?, version = version + 1, last_modified_at = ?
+        where id = ?""";
+    private static final String DELETE = "delete from customer where id = ?";
+    private static final String DELETE_DEVICES = "delete from device where customer_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int updateAddress(UUID id, @Nullable Long version, String address, LocalDateTime now) {
+        return version == null
+            ? jdbcTemplate.update(UPDATE_ADDRESS, address, now, id)
+            : jdbcTemplate.update(UPDATE_ADDRESS + " and version = ?", address, now, id, version);
+    }
+
+    @Override
+    public int deleteRowById(UUID id) {
+        return jdbcTemplate.update(DELETE, id);
+    }
+
+    @Override
+    public int deleteDevicesById(UUID id) {
+        return jdbcTemplate.update(DELETE_DEVICES, id);
+    }
+}
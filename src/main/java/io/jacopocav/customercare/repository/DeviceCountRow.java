@@ -0,0 +1,12 @@
+package io.jacopocav.customercare.repository;
+
+import java.util.UUID;
+
+/**
+ * Projection of the number of devices owned by a customer.
+ */
+public interface DeviceCountRow {
+    UUID getCustomerId();
+
+    long getDevices();
+}
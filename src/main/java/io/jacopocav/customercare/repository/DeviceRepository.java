@@ -1,11 +1,64 @@
 package io.jacopocav.customercare.repository;
 
+import static jakarta.persistence.LockModeType.PESSIMISTIC_WRITE;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 
 import io.jacopocav.customercare.model.Device;
 
-public interface DeviceRepository extends JpaRepository<Device, UUID> {
+public interface DeviceRepository extends JpaRepository<Device, UUID>, DeviceStatements {
+    /**
+     * Locks the row of the given customer until the end of the transaction, returning its id
+     * if it exists.
+     */
+    @Lock(PESSIMISTIC_WRITE)
+    @Query("select c.id from Customer c where c.id = :customerId")
+    Optional<UUID> lockCustomerById(UUID customerId);
+
+    /**
+     * Same as {@link #lockCustomerById(UUID)} for many customers, in a consistent order.
+     */
+    @Lock(PESSIMISTIC_WRITE)
+    @Query("select c.id from Customer c where c.id in :customerIds order by c.id")
+    List<UUID> lockCustomersByIds(Collection<UUID> customerIds);
+
+    /**
+     * Returns the number of devices of the given customer. Not cached: the device limit is
+     * checked with this count under {@link #lockCustomerById(UUID)}, which must see the devices
+     * committed by every instance.
+     */
     int countByCustomerId(UUID customerId);
+
+    /**
+     * Returns the number of devices of each of the given customers that owns any.
+     */
+    @Query("""
+        select d.customer.id as customerId, count(d) as devices
+        from Device d
+        where d.customer.id in :customerIds
+        group by d.customer.id""")
+    List<DeviceCountRow> countByCustomerIds(Collection<UUID> customerIds);
+
+    @Query("select d.version from Device d where d.id = :id")
+    Optional<Long> findVersionById(UUID id);
+
+    @Query("""
+        select d.customer.id as customerId, d.version as version
+        from Device d
+        where d.id = :id""")
+    Optional<OwnedVersionRow> findOwnedVersionById(UUID id);
+
+    @Query("select d.customer.id from Device d where d.id = :id")
+    Optional<UUID> findCustomerIdById(UUID id);
+
+    @Query("select d.id from Device d")
+    Stream<UUID> findAllIds();
 }
@@ -0,0 +1,25 @@
+package io.jacopocav.customercare.repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.springframework.lang.Nullable;
+
+import io.jacopocav.customercare.model.Device.Status;
+
+/**
+ * Updates and deletes devices with JDBC statements, without loading them, for the same reason
+ * as {@link CustomerStatements}.
+ */
+public interface DeviceStatements {
+    /**
+     * Updates status and color of the given device, only if its version is {@code version}
+     * (when not {@code null}), returning the number of updated rows.
+     */
+    int update(UUID id, @Nullable Long version, Status status, String color, LocalDateTime now);
+
+    /**
+     * Deletes the given device, returning the number of deleted rows.
+     */
+    int deleteRowById(UUID id);
+}
@@ -0,0 +1,39 @@
+package io.jacopocav.customercare.repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.Nullable;
+
+import io.jacopocav.customercare.model.Device.Status;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+class DeviceStatementsImpl implements DeviceStatements {
+    private static final String UPDATE = """
+        update device set status = ?, color = ?, version = version + 1, last_modified_at = ?
+        where id = ?""";
+    private static final String DELETE = "delete from device where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int update(
+        UUID id,
+        @Nullable Long version,
+        Status status,
+        String color,
+        LocalDateTime now
+    ) {
+        return version == null
+            ? jdbcTemplate.update(UPDATE, status.name(), color, now, id)
+            : jdbcTemplate.update(UPDATE + " and version = ?", status.name(), color, now, id,
+                version);
+    }
+
+    @Override
+    public int deleteRowById(UUID id) {
+        return jdbcTemplate.update(DELETE, id);
+    }
+}
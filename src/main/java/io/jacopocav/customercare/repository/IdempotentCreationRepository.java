@@ -0,0 +1,17 @@
+package io.jacopocav.customercare.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.jacopocav.customercare.model.IdempotentCreation;
+
+public interface IdempotentCreationRepository extends JpaRepository<IdempotentCreation, String> {
+    @Modifying
+    @Transactional
+    @Query("delete from IdempotentCreation c where c.createdAt < :before")
+    int deleteCreatedBefore(LocalDateTime before);
+}
@@ -0,0 +1,12 @@
+package io.jacopocav.customercare.repository;
+
+import java.util.UUID;
+
+/**
+ * Projection of the version of a device, together with the id of the customer owning it.
+ */
+public interface OwnedVersionRow {
+    UUID getCustomerId();
+
+    long getVersion();
+}
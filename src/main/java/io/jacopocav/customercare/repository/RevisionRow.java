@@ -0,0 +1,21 @@
+package io.jacopocav.customercare.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Projection of the version of a customer and of the number, greatest version and latest
+ * modification time of its devices.
+ */
+public interface RevisionRow {
+    long getCustomerVersion();
+
+    long getDeviceCount();
+
+    @Nullable
+    Long getMaxDeviceVersion();
+
+    @Nullable
+    LocalDateTime getLastDeviceModifiedAt();
+}
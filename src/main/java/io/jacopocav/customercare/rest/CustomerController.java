@@ -1,11 +1,20 @@
 package io.jacopocav.customercare.rest;
 
+import static org.springframework.http.HttpHeaders.IF_MATCH;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
 import static org.springframework.http.MediaType.ALL_VALUE;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
 import static org.springframework.http.ResponseEntity.created;
 
+import java.io.IOException;
+import java.util.List;
+
 import org.hibernate.validator.constraints.UUID;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -13,23 +22,39 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import io.jacopocav.customercare.cache.IdempotencyStore;
+import io.jacopocav.customercare.dto.BatchCreateResponse;
 import io.jacopocav.customercare.dto.CreateCustomerRequest;
+import io.jacopocav.customercare.dto.CustomerSummaryResponse;
 import io.jacopocav.customercare.dto.ErrorResponse;
+import io.jacopocav.customercare.dto.PageResponse;
 import io.jacopocav.customercare.dto.ReadCustomerResponse;
+import io.jacopocav.customercare.dto.ReadDeviceResponse;
 import io.jacopocav.customercare.dto.UpdateCustomerRequest;
+import io.jacopocav.customercare.service.CustomerBatchService;
 import io.jacopocav.customercare.service.CustomerCrudService;
+import io.jacopocav.customercare.service.CustomerExportService;
+import io.jacopocav.customercare.service.CustomerSearchService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.headers.Header;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
-import lombok.RequiredArgsConstructor;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 
 @Validated
 @RestController
@@ -37,9 +62,29 @@ import lombok.RequiredArgsConstructor;
     path = "/customers",
     consumes = APPLICATION_JSON_VALUE,
     produces = APPLICATION_JSON_VALUE)
-@RequiredArgsConstructor
 public class CustomerController {
     private final CustomerCrudService crudService;
+    private final CustomerBatchService batchService;
+    private final CustomerExportService exportService;
+    private final CustomerSearchService searchService;
+    private final IdempotencyStore idempotencyStore;
+    private final boolean writeBatching;
+
+    public CustomerController(
+        CustomerCrudService crudService,
+        CustomerBatchService batchService,
+        CustomerExportService exportService,
+        CustomerSearchService searchService,
+        IdempotencyStore idempotencyStore,
+        @Value("${customer-care.write-batching.enabled}") boolean writeBatching
+    ) {
+        this.crudService = crudService;
+        this.batchService = batchService;
+        this.exportService = exportService;
+        this.searchService = searchService;
+        this.idempotencyStore = idempotencyStore;
+        this.writeBatching = writeBatching;
+    }
 
     @Operation(
         summary = "Creates a new customer",
@@ -47,14 +92,26 @@ public class CustomerController {
             @ApiResponse(responseCode = "201", description = "Customer created successfully",
                 headers = @Header(name = "Location", description = "URI of the new customer")),
             @ApiResponse(responseCode = "400", description = "Bad request",
+                content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "409",
+                description = "A customer with the same fiscal code already exists",
+                content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "422",
+                description = "The Idempotency-Key was already used for a different request",
                 content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
         })
     @PostMapping
     public ResponseEntity<Void> create(
         @RequestBody @Valid CreateCustomerRequest body,
+        @RequestHeader(name = IdempotencyKey.HEADER, required = false)
+        @Nullable @Size(min = 1, max = IdempotencyKey.MAX_LENGTH) String idempotencyKey,
         HttpServletRequest request
     ) {
-        final var newId = crudService.create(body).toString();
+        final var newId = idempotencyKey == null
+            ? create(body)
+            // never batched, so that the key is stored in the transaction of the creation
+            : idempotencyStore.create(idempotencyKey, body, () -> crudService.create(body))
+                .toString();
         final var location = ServletUriComponentsBuilder.fromRequest(request)
             .path("/{id}")
             .buildAndExpand(newId)
@@ -64,17 +121,141 @@ public class CustomerController {
     }
 
     @Operation(
-        summary = "Retrieves a customer",
+        summary = "Creates many customers",
+        description = "Each valid customer is created, even if others are not",
+        responses = {
+            @ApiResponse(responseCode = "200",
+                description = "The ids of the created customers and the errors of the others",
+                content = @Content(schema = @Schema(implementation = BatchCreateResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Bad request",
+                content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+        })
+    @PostMapping("/batch")
+    public BatchCreateResponse createAll(
+        @RequestBody @Size(min = 1, max = CustomerBatchService.MAX_SIZE)
+        List<CreateCustomerRequest> body
+    ) {
+        return batchService.createAll(body);
+    }
+
+    @Operation(
+        summary = "Lists customers, by pages, in creation order",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Success"),
+            @ApiResponse(responseCode = "400", description = "Bad request or invalid cursor",
+                content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+        })
+    @GetMapping(consumes = ALL_VALUE)
+    public PageResponse<CustomerSummaryResponse> list(
+        @Parameter(description = "nextCursor of the previous page; omitted for the first page")
+        @RequestParam(required = false) @Nullable String cursor,
+        @Parameter(description = "Maximum number of customers of the page")
+        @RequestParam(defaultValue = "${customer-care.pagination.default-size}")
+        @Min(1) @Max(CustomerCrudService.MAX_PAGE_SIZE) int size
+    ) {
+        return crudService.list(cursor, size);
+    }
+
+    @Operation(
+        summary = "Looks up a customer by fiscal code",
+        description = "The fiscal code is matched in any case; the page holds at most one customer",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Success"),
+            @ApiResponse(responseCode = "400", description = "Bad request",
+                content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+        })
+    @GetMapping(params = "fiscalCode", consumes = ALL_VALUE)
+    public PageResponse<CustomerSummaryResponse> listByFiscalCode(
+        @RequestParam @Pattern(regexp = "^[A-Za-z0-9]{16}$") String fiscalCode
+    ) {
+        return new PageResponse<>(crudService.listByFiscalCode(fiscalCode), null);
+    }
+
+    @Operation(
+        summary = "Searches customers by name",
+        description = "Matches the start of the first or last name, or of any of their words, "
+            + "ignoring case and accents; customers are ordered by the matching name",
         responses = {
             @ApiResponse(responseCode = "200", description = "Success"),
             @ApiResponse(responseCode = "400", description = "Bad request",
                 content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+        })
+    @GetMapping(path = "/search", consumes = ALL_VALUE)
+    public PageResponse<CustomerSummaryResponse> search(
+        @Parameter(description = "Prefix of a name")
+        @RequestParam @NotBlank @Size(max = 255) String name,
+        @Parameter(description = "Maximum number of customers")
+        @RequestParam(defaultValue = "${customer-care.search.default-size}")
+        @Min(1) @Max(CustomerSearchService.MAX_SIZE) int size
+    ) {
+        return new PageResponse<>(searchService.search(name, size), null);
+    }
+
+    @Operation(
+        summary = "Exports all customers with their devices",
+        description = "Streams newline-delimited JSON, one customer per line",
+        responses = @ApiResponse(responseCode = "200", description = "Success"))
+    @GetMapping(path = "/export", consumes = ALL_VALUE, produces = APPLICATION_NDJSON_VALUE)
+    public void export(HttpServletResponse response) throws IOException {
+        response.setContentType(APPLICATION_NDJSON_VALUE);
+        exportService.export(response.getOutputStream());
+    }
+
+    @Operation(
+        summary = "Retrieves a customer",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Success",
+                headers = {
+                    @Header(name = "ETag", description = "Revision of the customer"),
+                    @Header(name = "Warning", description = "Only if the response is stale"),
+                    @Header(name = "Age", description = "Only if the response is stale")
+                }),
+            @ApiResponse(responseCode = "304",
+                description = "The customer has not changed since the revision in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Bad request",
+                content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "404", description = "Customer not found",
                 content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
         })
     @GetMapping(path = "/{id}", consumes = ALL_VALUE)
-    public ReadCustomerResponse read(@PathVariable @UUID String id) {
-        return crudService.read(id);
+    public ResponseEntity<ReadCustomerResponse> read(
+        @PathVariable @UUID String id,
+        @RequestHeader(name = IF_NONE_MATCH, required = false) @Nullable String ifNoneMatch
+    ) {
+        if (ifNoneMatch != null) {
+            final var revision = crudService.readRevision(id);
+            if (IfNoneMatch.matches(ifNoneMatch, revision)) {
+                return ResponseEntity.status(NOT_MODIFIED).eTag(revision).build();
+            }
+        }
+
+        final var response = crudService.readRevisioned(id);
+        return ResponseEntity.ok()
+            .eTag(response.revision())
+            .headers(StaleResponseHeaders.of(response))
+            .body(response.content());
+    }
+
+    @Operation(
+        summary = "Lists the devices of a customer, by pages, in creation order",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Success"),
+            @ApiResponse(responseCode = "400", description = "Bad request or invalid cursor",
+                content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Customer not found",
+                content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+        })
+    @GetMapping(path = "/{id}/devices", consumes = ALL_VALUE)
+    public PageResponse<ReadDeviceResponse> listDevices(
+        @PathVariable @UUID String id,
+        @Parameter(description = "nextCursor of the previous page, or devicesNextCursor of the "
+            + "customer; omitted for the first page")
+        @RequestParam(required = false) @Nullable String cursor,
+        @Parameter(description = "Maximum number of devices of the page")
+        @RequestParam(defaultValue = "${customer-care.pagination.default-size}")
+        @Min(1) @Max(CustomerCrudService.MAX_PAGE_SIZE) int size
+    ) {
+        return crudService.listDevices(id, cursor, size);
     }
 
     @Operation(
@@ -85,13 +266,22 @@ public class CustomerController {
                 content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "404", description = "Customer not found",
                 content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "412",
+                description = "The customer is not at the revision in If-Match",
+                content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
         })
     @PatchMapping("/{id}")
     public void update(
         @PathVariable @UUID String id,
-        @RequestBody @Valid UpdateCustomerRequest body
+        @RequestBody @Valid UpdateCustomerRequest body,
+        @RequestHeader(name = IF_MATCH, required = false) @Nullable String ifMatch
     ) {
-        crudService.update(id, body);
+        final var expectedRevision = IfMatch.expectedRevision(ifMatch);
+        if (expectedRevision == null) {
+            crudService.update(id, body);
+        } else {
+            crudService.update(id, body, expectedRevision);
+        }
     }
 
     @Operation(
@@ -104,7 +294,17 @@ public class CustomerController {
                 content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
         })
     @DeleteMapping(value = "/{id}", consumes = ALL_VALUE)
-    public void delete(@PathVariable @UUID String id) {
-        crudService.delete(id);
+    public void delete(
+        @PathVariable @UUID String id,
+        @Parameter(description = "Whether to delete the devices of the customer as well")
+        @RequestParam(defaultValue = "false") boolean cascade
+    ) {
+        crudService.delete(id, cascade);
+    }
+
+    private String create(CreateCustomerRequest body) {
+        // shares a transaction with concurrent creations, when enabled
+        final var newId = writeBatching ? batchService.create(body) : crudService.create(body);
+        return newId.toString();
     }
 }
@@ -1,14 +1,22 @@
 package io.jacopocav.customercare.rest;
 
+import static org.springframework.http.HttpHeaders.IF_MATCH;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
 import static org.springframework.http.HttpStatus.OK;
 import static org.springframework.http.MediaType.ALL_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 import static org.springframework.http.ResponseEntity.created;
 import static org.springframework.web.bind.annotation.RequestMethod.HEAD;
 
+import java.util.List;
+
 import org.hibernate.validator.constraints.UUID;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,14 +24,18 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import io.jacopocav.customercare.cache.IdempotencyStore;
+import io.jacopocav.customercare.dto.BatchCreateResponse;
 import io.jacopocav.customercare.dto.CreateDeviceRequest;
 import io.jacopocav.customercare.dto.ErrorResponse;
 import io.jacopocav.customercare.dto.ReadDeviceResponse;
 import io.jacopocav.customercare.dto.UpdateDeviceRequest;
+import io.jacopocav.customercare.service.DeviceBatchService;
 import io.jacopocav.customercare.service.DeviceCrudService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.headers.Header;
@@ -32,7 +44,7 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
-import lombok.RequiredArgsConstructor;
+import jakarta.validation.constraints.Size;
 
 @Validated
 @RestController
@@ -40,9 +52,23 @@ import lombok.RequiredArgsConstructor;
     path = "/devices",
     consumes = APPLICATION_JSON_VALUE,
     produces = APPLICATION_JSON_VALUE)
-@RequiredArgsConstructor
 public class DeviceController {
     private final DeviceCrudService crudService;
+    private final DeviceBatchService batchService;
+    private final IdempotencyStore idempotencyStore;
+    private final boolean writeBatching;
+
+    public DeviceController(
+        DeviceCrudService crudService,
+        DeviceBatchService batchService,
+        IdempotencyStore idempotencyStore,
+        @Value("${customer-care.write-batching.enabled}") boolean writeBatching
+    ) {
+        this.crudService = crudService;
+        this.batchService = batchService;
+        this.idempotencyStore = idempotencyStore;
+        this.writeBatching = writeBatching;
+    }
 
     @Operation(
         summary = "Creates a new device",
@@ -50,14 +76,23 @@ public class DeviceController {
             @ApiResponse(responseCode = "201", description = "Device created successfully",
                 headers = @Header(name = "Location", description = "URI of the new device")),
             @ApiResponse(responseCode = "400", description = "Bad request",
+                content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "422",
+                description = "The Idempotency-Key was already used for a different request",
                 content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
         })
     @PostMapping
     public ResponseEntity<Void> create(
         @RequestBody @Valid CreateDeviceRequest body,
+        @RequestHeader(name = IdempotencyKey.HEADER, required = false)
+        @Nullable @Size(min = 1, max = IdempotencyKey.MAX_LENGTH) String idempotencyKey,
         HttpServletRequest request
     ) {
-        final var newId = crudService.create(body).toString();
+        final var newId = idempotencyKey == null
+            ? create(body)
+            // never batched, so that the key is stored in the transaction of the creation
+            : idempotencyStore.create(idempotencyKey, body, () -> crudService.create(body))
+                .toString();
         final var location = ServletUriComponentsBuilder.fromRequest(request)
             .path("/{id}")
             .buildAndExpand(newId)
@@ -66,18 +101,59 @@ public class DeviceController {
         return created(location).build();
     }
 
+    @Operation(
+        summary = "Creates many devices",
+        description = "Each valid device is created, even if others are not",
+        responses = {
+            @ApiResponse(responseCode = "200",
+                description = "The ids of the created devices and the errors of the others",
+                content = @Content(schema = @Schema(implementation = BatchCreateResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Bad request",
+                content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+        })
+    @PostMapping("/batch")
+    public BatchCreateResponse createAll(
+        @RequestBody @Size(min = 1, max = DeviceBatchService.MAX_SIZE)
+        List<CreateDeviceRequest> body
+    ) {
+        return batchService.createAll(body);
+    }
+
     @Operation(
         summary = "Retrieves a device",
         responses = {
-            @ApiResponse(responseCode = "200", description = "Success"),
+            @ApiResponse(responseCode = "200", description = "Success",
+                content = @Content(schema = @Schema(implementation = ReadDeviceResponse.class)),
+                headers = {
+                    @Header(name = "ETag", description = "Revision of the device"),
+                    @Header(name = "Warning", description = "Only if the response is stale"),
+                    @Header(name = "Age", description = "Only if the response is stale")
+                }),
+            @ApiResponse(responseCode = "304",
+                description = "The device has not changed since the revision in If-None-Match"),
             @ApiResponse(responseCode = "400", description = "Bad request",
                 content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "404", description = "Device not found",
                 content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
         })
     @GetMapping(path = "/{id}", consumes = ALL_VALUE)
-    public ReadDeviceResponse read(@PathVariable @UUID String id) {
-        return crudService.read(id);
+    public ResponseEntity<byte[]> read(
+        @PathVariable @UUID String id,
+        @RequestHeader(name = IF_NONE_MATCH, required = false) @Nullable String ifNoneMatch
+    ) {
+        if (ifNoneMatch != null) {
+            final var revision = crudService.readRevision(id);
+            if (IfNoneMatch.matches(ifNoneMatch, revision)) {
+                return ResponseEntity.status(NOT_MODIFIED).eTag(revision).build();
+            }
+        }
+
+        final var response = crudService.readJson(id);
+        return ResponseEntity.ok()
+            .contentType(APPLICATION_JSON)
+            .eTag(response.revision())
+            .headers(StaleResponseHeaders.of(response))
+            .body(response.content());
     }
 
     @Operation(
@@ -101,13 +177,22 @@ public class DeviceController {
                 content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "404", description = "Device not found",
                 content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "412",
+                description = "The device is not at the revision in If-Match",
+                content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
         })
     @PatchMapping("/{id}")
     public void update(
         @PathVariable @UUID String id,
-        @RequestBody @Valid UpdateDeviceRequest body
+        @RequestBody @Valid UpdateDeviceRequest body,
+        @RequestHeader(name = IF_MATCH, required = false) @Nullable String ifMatch
     ) {
-        crudService.update(id, body);
+        final var expectedRevision = IfMatch.expectedRevision(ifMatch);
+        if (expectedRevision == null) {
+            crudService.update(id, body);
+        } else {
+            crudService.update(id, body, expectedRevision);
+        }
     }
 
     @Operation(
@@ -123,4 +208,10 @@ public class DeviceController {
     public void delete(@PathVariable @UUID String id) {
         crudService.delete(id);
     }
+
+    private String create(CreateDeviceRequest body) {
+        // shares a transaction with concurrent creations, when enabled
+        final var newId = writeBatching ? batchService.create(body) : crudService.create(body);
+        return newId.toString();
+    }
 }
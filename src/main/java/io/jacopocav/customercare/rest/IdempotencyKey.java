@@ -0,0 +1,13 @@
+package io.jacopocav.customercare.rest;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * Header that makes a creation request safe to retry: requests with the same key create a
+ * single resource and get the same response.
+ */
+@UtilityClass
+class IdempotencyKey {
+    static final String HEADER = "Idempotency-Key";
+    static final int MAX_LENGTH = 255;
+}
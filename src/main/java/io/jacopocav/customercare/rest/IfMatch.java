@@ -0,0 +1,31 @@
+package io.jacopocav.customercare.rest;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+import org.springframework.lang.Nullable;
+
+import lombok.experimental.UtilityClass;
+
+@UtilityClass
+class IfMatch {
+    private static final String ANY = "*";
+
+    /**
+     * Returns the revision expected by an {@code If-Match} header, or {@code null} if any
+     * revision is accepted. A value that is not a single strong entity tag is returned as is,
+     * so that it never matches: {@code If-Match} uses the strong comparison.
+     */
+    @Nullable
+    static String expectedRevision(@Nullable String ifMatch) {
+        if (isBlank(ifMatch) || ANY.equals(ifMatch.strip())) {
+            return null;
+        }
+
+        final var value = ifMatch.strip();
+        if (value.length() > 1 && value.startsWith("\"") && value.endsWith("\"")) {
+            return value.substring(1, value.length() - 1);
+        }
+
+        return value;
+    }
+}
@@ -0,0 +1,28 @@
+package io.jacopocav.customercare.rest;
+
+import java.util.Arrays;
+
+import lombok.experimental.UtilityClass;
+
+@UtilityClass
+class IfNoneMatch {
+    private static final String ANY = "*";
+    private static final String WEAK_PREFIX = "W/";
+
+    /**
+     * Returns whether an {@code If-None-Match} header matches {@code revision}: if it is
+     * {@code *}, or if any of its entity tags is the revision. {@code If-None-Match} uses the
+     * weak comparison, so weak entity tags match too.
+     */
+    static boolean matches(String ifNoneMatch, String revision) {
+        final var value = ifNoneMatch.strip();
+        if (ANY.equals(value)) {
+            return true;
+        }
+
+        return Arrays.stream(value.split(","))
+            .map(String::strip)
+            .map(tag -> tag.startsWith(WEAK_PREFIX) ? tag.substring(WEAK_PREFIX.length()) : tag)
+            .anyMatch(tag -> tag.equals('"' + revision + '"'));
+    }
+}
@@ -0,0 +1,34 @@
+package io.jacopocav.customercare.rest;
+
+import static org.springframework.http.HttpHeaders.AGE;
+import static org.springframework.http.HttpHeaders.WARNING;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.springframework.http.HttpHeaders;
+
+import io.jacopocav.customercare.dto.Revisioned;
+import lombok.experimental.UtilityClass;
+
+@UtilityClass
+class StaleResponseHeaders {
+    static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
+    /**
+     * Returns the {@code Warning} and {@code Age} headers of {@code response}, if it is stale,
+     * or no headers otherwise.
+     */
+    static HttpHeaders of(Revisioned<?> response) {
+        final var headers = new HttpHeaders();
+        final var staleSince = response.staleSince();
+
+        if (staleSince != null) {
+            final var age = Duration.between(staleSince, Instant.now());
+            headers.set(WARNING, STALE_WARNING);
+            headers.set(AGE, Long.toString(Math.max(0, age.toSeconds())));
+        }
+
+        return headers;
+    }
+}
@@ -1,7 +1,10 @@
 package io.jacopocav.customercare.rest.handler;
 
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.PRECONDITION_FAILED;
+import static org.springframework.http.HttpStatus.UNPROCESSABLE_ENTITY;
 
 import org.springframework.core.annotation.Order;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -12,6 +15,10 @@ import io.jacopocav.customercare.dto.ErrorResponse;
 import io.jacopocav.customercare.error.CustomerNotFoundException;
 import io.jacopocav.customercare.error.DeviceLimitReachedException;
 import io.jacopocav.customercare.error.DeviceNotFoundException;
+import io.jacopocav.customercare.error.DuplicateFiscalCodeException;
+import io.jacopocav.customercare.error.IdempotencyKeyReusedException;
+import io.jacopocav.customercare.error.InvalidCursorException;
+import io.jacopocav.customercare.error.PreconditionFailedException;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -47,4 +54,44 @@ public class ApplicationExceptionHandler {
             ex.getMessage(),
             null);
     }
+
+    @ExceptionHandler
+    @ResponseStatus(CONFLICT)
+    public ErrorResponse<Void> handle(DuplicateFiscalCodeException ex) {
+        log.debug("Duplicate fiscal code", ex);
+
+        return new ErrorResponse<>("Duplicate fiscal code",
+            "A customer with fiscal code " + ex.getFiscalCode() + " already exists",
+            null);
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(PRECONDITION_FAILED)
+    public ErrorResponse<Void> handle(PreconditionFailedException ex) {
+        log.debug("Precondition failed", ex);
+
+        return new ErrorResponse<>("Precondition failed",
+            "Resource with id " + ex.getIdentifier() + " does not match If-Match",
+            null);
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(UNPROCESSABLE_ENTITY)
+    public ErrorResponse<Void> handle(IdempotencyKeyReusedException ex) {
+        log.debug("Idempotency key reused", ex);
+
+        return new ErrorResponse<>("Idempotency key reused",
+            "Idempotency key " + ex.getKey() + " was already used for a different request",
+            null);
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(BAD_REQUEST)
+    public ErrorResponse<Void> handle(InvalidCursorException ex) {
+        log.debug("Invalid cursor", ex);
+
+        return new ErrorResponse<>("Invalid cursor",
+            "Cursor " + ex.getCursor() + " was not returned by a previous page",
+            null);
+    }
 }
@@ -0,0 +1,196 @@
+package io.jacopocav.customercare.service;
+
+import static java.util.Comparator.comparingInt;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.mapping;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+import io.jacopocav.customercare.dto.BatchCreateResponse;
+import io.jacopocav.customercare.dto.BatchItemError;
+import io.jacopocav.customercare.dto.ErrorResponse;
+import io.jacopocav.customercare.error.CustomerNotFoundException;
+import io.jacopocav.customercare.error.DeviceLimitReachedException;
+import io.jacopocav.customercare.error.DuplicateFiscalCodeException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Validates each request of a batch, then creates the valid ones in chunks, each by its own
+ * transaction, so that the inserts of a chunk can be sent with JDBC batches. When a chunk fails,
+ * its requests are created one by one to find out which of them cannot be.
+ */
+@Slf4j
+class BatchCreator<R> {
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final String itemName;
+
+    BatchCreator(
+        Validator validator,
+        TransactionTemplate transactionTemplate,
+        int chunkSize,
+        String itemName
+    ) {
+        Assert.isTrue(chunkSize > 0, "chunkSize is not positive");
+
+        this.validator = validator;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.itemName = itemName;
+    }
+
+    /**
+     * Creates the valid requests with {@code createChunk}, which is called in a transaction and
+     * returns the outcome of each request of the chunk, in the same order. Failed outcomes are
+     * reported as errors.
+     */
+    BatchCreateResponse createAll(
+        List<R> requests,
+        int maxSize,
+        Function<List<R>, List<Outcome>> createChunk
+    ) {
+        Assert.notNull(requests, "requests is null");
+        Assert.isTrue(requests.size() <= maxSize, "requests are more than " + maxSize);
+
+        final var ids = new ArrayList<String>(Collections.nCopies(requests.size(), null));
+        final var errors = new ArrayList<BatchItemError>();
+        final var valid = new ArrayList<Integer>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            final var error = validate(requests.get(i));
+            if (error == null) {
+                valid.add(i);
+            } else {
+                errors.add(new BatchItemError(i, error));
+            }
+        }
+
+        for (int from = 0; from < valid.size(); from += chunkSize) {
+            final var indexes = valid.subList(from, Math.min(from + chunkSize, valid.size()));
+            final var chunk = indexes.stream().map(requests::get).toList();
+            final var outcomes = create(chunk, createChunk);
+
+            for (int i = 0; i < indexes.size(); i++) {
+                final var outcome = outcomes.get(i);
+                if (outcome.id() != null) {
+                    ids.set(indexes.get(i), outcome.id().toString());
+                } else {
+                    errors.add(new BatchItemError(indexes.get(i), toError(outcome.failure())));
+                }
+            }
+        }
+
+        errors.sort(comparingInt(BatchItemError::index));
+        return new BatchCreateResponse(ids, errors);
+    }
+
+    /**
+     * Creates {@code requests} with {@code createChunk}, in a single transaction. When the
+     * transaction fails, each request is created by a transaction of its own, so that only the
+     * offending ones fail.
+     */
+    List<Outcome> create(List<R> requests, Function<List<R>, List<Outcome>> createChunk) {
+        try {
+            return createInTransaction(requests, createChunk);
+        } catch (DataAccessException e) {
+            if (requests.size() == 1) {
+                log.debug("Could not create {}", itemName, e);
+                return List.of(Outcome.failed(e));
+            }
+            log.debug("Could not create chunk of {} {}s, retrying one by one",
+                requests.size(), itemName, e);
+        }
+
+        final var outcomes = new ArrayList<Outcome>(requests.size());
+        for (final var request : requests) {
+            try {
+                outcomes.addAll(createInTransaction(List.of(request), createChunk));
+            } catch (DataAccessException e) {
+                log.debug("Could not create {} of chunk", itemName, e);
+                outcomes.add(Outcome.failed(e));
+            }
+        }
+        return outcomes;
+    }
+
+    private List<Outcome> createInTransaction(
+        List<R> requests,
+        Function<List<R>, List<Outcome>> createChunk
+    ) {
+        final List<Outcome> outcomes =
+            transactionTemplate.execute(status -> createChunk.apply(requests));
+
+        Assert.state(outcomes != null && outcomes.size() == requests.size(),
+            "not an outcome for each request of the chunk");
+        return outcomes;
+    }
+
+    private ErrorResponse<?> toError(@Nullable RuntimeException failure) {
+        if (failure instanceof CustomerNotFoundException e) {
+            return new ErrorResponse<>("Customer not found",
+                "Could not find customer with id " + e.getIdentifier(), null);
+        }
+        if (failure instanceof DeviceLimitReachedException e) {
+            return new ErrorResponse<>("Device limit reached", e.getMessage(), null);
+        }
+        if (failure instanceof DuplicateFiscalCodeException e) {
+            return new ErrorResponse<>("Duplicate fiscal code", e.getMessage(), null);
+        }
+        if (failure instanceof IllegalArgumentException e) {
+            return new ErrorResponse<>("Validation failed", e.getMessage(), null);
+        }
+
+        return new ErrorResponse<>("Could not create " + itemName,
+            failure != null ? failure.getMessage() : null, null);
+    }
+
+    @Nullable
+    private ErrorResponse<?> validate(@Nullable R request) {
+        if (request == null) {
+            return new ErrorResponse<>("Validation failed", "request is null", null);
+        }
+
+        final var violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+
+        final Map<String, String> errorMap = violations.stream()
+            .collect(groupingBy(violation -> violation.getPropertyPath().toString(),
+                mapping(ConstraintViolation::getMessage, joining(", "))));
+
+        return new ErrorResponse<>("Validation failed", null, errorMap);
+    }
+
+    /**
+     * Either the id of a created item or the exception that prevented its creation, the same
+     * that a single creation of the item would throw.
+     */
+    record Outcome(@Nullable UUID id, @Nullable RuntimeException failure) {
+        Outcome {
+            Assert.isTrue(id == null ^ failure == null, "not either an id or a failure");
+        }
+
+        static Outcome created(UUID id) {
+            return new Outcome(id, null);
+        }
+
+        static Outcome failed(RuntimeException failure) {
+            return new Outcome(null, failure);
+        }
+    }
+}
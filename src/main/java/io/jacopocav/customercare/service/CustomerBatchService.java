@@ -0,0 +1,27 @@
+package io.jacopocav.customercare.service;
+
+import java.util.List;
+import java.util.UUID;
+
+import io.jacopocav.customercare.dto.BatchCreateResponse;
+import io.jacopocav.customercare.dto.CreateCustomerRequest;
+
+public interface CustomerBatchService {
+    /**
+     * Maximum number of requests of a single batch.
+     */
+    int MAX_SIZE = 10_000;
+
+    /**
+     * Creates a customer for each valid request. Invalid requests, and requests that could not
+     * be inserted, are reported as errors without affecting the others.
+     */
+    BatchCreateResponse createAll(List<CreateCustomerRequest> requests);
+
+    /**
+     * Creates a single customer in the same transaction as the ones of concurrent calls, which
+     * waits for a few milliseconds at most for them. The request must be valid already. Fails
+     * with the same exceptions as {@link CustomerCrudService#create}.
+     */
+    UUID create(CreateCustomerRequest request);
+}
@@ -1,18 +1,89 @@
 package io.jacopocav.customercare.service;
 
+import java.util.List;
 import java.util.UUID;
 
+import org.springframework.lang.Nullable;
+
 import io.jacopocav.customercare.dto.CreateCustomerRequest;
+import io.jacopocav.customercare.dto.CustomerSummaryResponse;
+import io.jacopocav.customercare.dto.PageResponse;
 import io.jacopocav.customercare.dto.ReadCustomerResponse;
+import io.jacopocav.customercare.dto.ReadDeviceResponse;
+import io.jacopocav.customercare.dto.Revisioned;
 import io.jacopocav.customercare.dto.UpdateCustomerRequest;
 import jakarta.validation.constraints.NotBlank;
 
 public interface CustomerCrudService {
+    /**
+     * Maximum number of items of a single page, of customers or devices.
+     */
+    int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * Creates a customer, whose fiscal code is stored in upper case.
+     *
+     * @throws io.jacopocav.customercare.error.DuplicateFiscalCodeException if another customer
+     *                                                                       has it
+     */
     UUID create(CreateCustomerRequest request);
 
     ReadCustomerResponse read(@NotBlank String id);
 
+    /**
+     * Same as {@link #read(String)}, together with the revision of the response.
+     */
+    Revisioned<ReadCustomerResponse> readRevisioned(@NotBlank String id);
+
+    /**
+     * Returns the current revision of the customer, as returned by
+     * {@link #readRevisioned(String)}, without loading the customer or its devices.
+     */
+    String readRevision(@NotBlank String id);
+
+    /**
+     * Returns up to {@code size} customers, in creation order, starting from the one that
+     * follows {@code cursor}, or from the first one if it is {@code null}.
+     *
+     * @throws io.jacopocav.customercare.error.InvalidCursorException if {@code cursor} was not
+     *                                                                 returned by a previous page
+     */
+    PageResponse<CustomerSummaryResponse> list(@Nullable String cursor, int size);
+
+    /**
+     * Returns the customer with the given fiscal code, in any case, if any.
+     */
+    List<CustomerSummaryResponse> listByFiscalCode(@NotBlank String fiscalCode);
+
+    /**
+     * Returns up to {@code size} devices of the customer, in creation order, starting from the
+     * one that follows {@code cursor}, or from the first one if it is {@code null}.
+     *
+     * @throws io.jacopocav.customercare.error.CustomerNotFoundException if the customer does not
+     *                                                                    exist
+     * @throws io.jacopocav.customercare.error.InvalidCursorException    if {@code cursor} is
+     *                                                                    invalid
+     */
+    PageResponse<ReadDeviceResponse> listDevices(
+        @NotBlank String id,
+        @Nullable String cursor,
+        int size);
+
     void update(@NotBlank String id, UpdateCustomerRequest request);
 
+    /**
+     * Same as {@link #update(String, UpdateCustomerRequest)}, but only if the current revision
+     * of the customer is {@code expectedRevision}.
+     *
+     * @throws io.jacopocav.customercare.error.PreconditionFailedException if it is not
+     */
+    void update(@NotBlank String id, UpdateCustomerRequest request, String expectedRevision);
+
     void delete(@NotBlank String id);
+
+    /**
+     * Same as {@link #delete(String)}, but when {@code cascade} is {@code true}, also deletes all
+     * the devices of the customer, in the same transaction.
+     */
+    void delete(@NotBlank String id, boolean cascade);
 }
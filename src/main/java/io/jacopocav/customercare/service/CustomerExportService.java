@@ -0,0 +1,13 @@
+package io.jacopocav.customercare.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface CustomerExportService {
+    /**
+     * Writes every customer with all its devices to {@code output} as newline-delimited JSON,
+     * one {@link io.jacopocav.customercare.dto.ReadCustomerResponse} per line, without holding
+     * more than a few customers in memory at once. {@code output} is flushed, not closed.
+     */
+    void export(OutputStream output) throws IOException;
+}
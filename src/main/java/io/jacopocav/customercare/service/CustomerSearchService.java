@@ -0,0 +1,19 @@
+package io.jacopocav.customercare.service;
+
+import java.util.List;
+
+import io.jacopocav.customercare.dto.CustomerSummaryResponse;
+import jakarta.validation.constraints.NotBlank;
+
+public interface CustomerSearchService {
+    /**
+     * Maximum number of customers returned by a single search.
+     */
+    int MAX_SIZE = 100;
+
+    /**
+     * Returns up to {@code size} customers with a first or last name, or a word of one, that
+     * starts with {@code prefix}, ignoring case and accents, ordered by that name.
+     */
+    List<CustomerSummaryResponse> search(@NotBlank String prefix, int size);
+}
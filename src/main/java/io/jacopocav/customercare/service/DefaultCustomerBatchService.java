@@ -0,0 +1,107 @@
+package io.jacopocav.customercare.service;
+
+import static io.jacopocav.customercare.event.ChangeType.CREATED;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+import io.jacopocav.customercare.cache.ChangeLog;
+import io.jacopocav.customercare.component.CustomerMapper;
+import io.jacopocav.customercare.dto.BatchCreateResponse;
+import io.jacopocav.customercare.dto.CreateCustomerRequest;
+import io.jacopocav.customercare.event.CustomerChangedEvent;
+import io.jacopocav.customercare.event.CustomersCreatedEvent;
+import io.jacopocav.customercare.model.Customer;
+import io.jacopocav.customercare.repository.CustomerNameRow;
+import io.jacopocav.customercare.repository.CustomerRepository;
+import io.jacopocav.customercare.service.BatchCreator.Outcome;
+import jakarta.validation.Validator;
+
+/**
+ * Valid requests are inserted in chunks, each by its own transaction, so that the inserts of a
+ * chunk are sent with JDBC batches. When a chunk fails, its requests are inserted one by one
+ * to find out which of them cannot be.
+ * <p>
+ * Single creations are grouped the same way, with those of concurrent calls.
+ */
+@Service
+public class DefaultCustomerBatchService implements CustomerBatchService {
+    private final CustomerMapper mapper;
+    private final CustomerRepository repository;
+    private final ChangeLog changeLog;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BatchCreator<CreateCustomerRequest> batchCreator;
+    private final WriteBatcher<CreateCustomerRequest> writeBatcher;
+
+    public DefaultCustomerBatchService(
+        CustomerMapper mapper,
+        CustomerRepository repository,
+        ChangeLog changeLog,
+        ApplicationEventPublisher eventPublisher,
+        Validator validator,
+        TransactionTemplate transactionTemplate,
+        @Value("${customer-care.batch.chunk-size}") int chunkSize,
+        @Value("${customer-care.write-batching.max-size}") int writeBatchSize,
+        @Value("${customer-care.write-batching.max-delay}") Duration writeBatchDelay
+    ) {
+        this.mapper = mapper;
+        this.repository = repository;
+        this.changeLog = changeLog;
+        this.eventPublisher = eventPublisher;
+        this.batchCreator =
+            new BatchCreator<>(validator, transactionTemplate, chunkSize, "customer");
+        this.writeBatcher = new WriteBatcher<>(writeBatchSize, writeBatchDelay,
+            requests -> batchCreator.create(requests, this::insert));
+    }
+
+    @Override
+    public BatchCreateResponse createAll(List<CreateCustomerRequest> requests) {
+        return batchCreator.createAll(requests, MAX_SIZE, this::insert);
+    }
+
+    @Override
+    public UUID create(CreateCustomerRequest request) {
+        Assert.notNull(request, "request is null");
+
+        return writeBatcher.create(request);
+    }
+
+    private List<Outcome> insert(List<CreateCustomerRequest> requests) {
+        final List<Customer> customers = requests.stream()
+            .map(mapper::toNewEntity)
+            .toList();
+        repository.saveAll(customers);
+        try {
+            // sends the batched inserts before the ones of the change log
+            repository.flush();
+        } catch (DataIntegrityViolationException e) {
+            // the offending customer is known only when inserted alone, as chunks are retried
+            if (customers.size() == 1) {
+                throw FiscalCodes.translate(e, customers.get(0).getFiscalCode());
+            }
+            throw e;
+        }
+        final var events = customers.stream()
+            .map(customer -> new CustomerChangedEvent(customer.getId(), CREATED))
+            .toList();
+        changeLog.appendCustomers(events, 0L);
+        events.forEach(eventPublisher::publishEvent);
+        // the whole chunk is added to the name index at once, after commit
+        eventPublisher.publishEvent(new CustomersCreatedEvent(customers.stream()
+            .map(customer -> new CustomerNameRow(
+                customer.getId(), customer.getFirstName(), customer.getLastName()))
+            .toList()));
+
+        return customers.stream()
+            .map(customer -> Outcome.created(customer.getId()))
+            .toList();
+    }
+}
@@ -1,70 +1,370 @@
 package io.jacopocav.customercare.service;
 
+import static io.jacopocav.customercare.event.ChangeType.CREATED;
+import static io.jacopocav.customercare.event.ChangeType.DELETED;
+import static io.jacopocav.customercare.event.ChangeType.UPDATED;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
+import static org.springframework.transaction.annotation.Propagation.SUPPORTS;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
 
+import io.jacopocav.customercare.cache.ChangeLog;
+import io.jacopocav.customercare.cache.CustomerResponseCache;
+import io.jacopocav.customercare.cache.ExistenceFilter;
+import io.jacopocav.customercare.cache.StaleResponseStore;
 import io.jacopocav.customercare.component.CustomerMapper;
+import io.jacopocav.customercare.component.DeviceMapper;
 import io.jacopocav.customercare.dto.CreateCustomerRequest;
+import io.jacopocav.customercare.dto.CustomerSummaryResponse;
+import io.jacopocav.customercare.dto.PageResponse;
 import io.jacopocav.customercare.dto.ReadCustomerResponse;
+import io.jacopocav.customercare.dto.ReadDeviceResponse;
+import io.jacopocav.customercare.dto.Revisioned;
 import io.jacopocav.customercare.dto.UpdateCustomerRequest;
 import io.jacopocav.customercare.error.CustomerNotFoundException;
+import io.jacopocav.customercare.error.PreconditionFailedException;
+import io.jacopocav.customercare.event.ChangeType;
+import io.jacopocav.customercare.event.CustomerChangedEvent;
+import io.jacopocav.customercare.event.CustomersCreatedEvent;
+import io.jacopocav.customercare.event.DeviceChangedEvent;
 import io.jacopocav.customercare.model.Customer;
+import io.jacopocav.customercare.model.Device;
+import io.jacopocav.customercare.repository.CustomerNameRow;
 import io.jacopocav.customercare.repository.CustomerRepository;
-import lombok.RequiredArgsConstructor;
+import io.jacopocav.customercare.repository.RevisionRow;
 
 @Service
 @Transactional
-@RequiredArgsConstructor
 public class DefaultCustomerCrudService implements CustomerCrudService {
     private final CustomerMapper mapper;
+    private final DeviceMapper deviceMapper;
     private final CustomerRepository repository;
+    private final CustomerResponseCache responseCache;
+    private final ExistenceFilter existenceFilter;
+    private final StaleResponseStore staleResponseStore;
+    private final ChangeLog changeLog;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxEmbeddedDevices;
+
+    public DefaultCustomerCrudService(
+        CustomerMapper mapper,
+        DeviceMapper deviceMapper,
+        CustomerRepository repository,
+        CustomerResponseCache responseCache,
+        ExistenceFilter existenceFilter,
+        StaleResponseStore staleResponseStore,
+        ChangeLog changeLog,
+        ApplicationEventPublisher eventPublisher,
+        @Value("${customer-care.max-embedded-devices}") int maxEmbeddedDevices
+    ) {
+        Assert.isTrue(maxEmbeddedDevices >= 0, "maxEmbeddedDevices is negative");
+
+        this.mapper = mapper;
+        this.deviceMapper = deviceMapper;
+        this.repository = repository;
+        this.responseCache = responseCache;
+        this.existenceFilter = existenceFilter;
+        this.staleResponseStore = staleResponseStore;
+        this.changeLog = changeLog;
+        this.eventPublisher = eventPublisher;
+        this.maxEmbeddedDevices = maxEmbeddedDevices;
+    }
 
     @Override
     public UUID create(CreateCustomerRequest request) {
         Assert.notNull(request, "request is null");
 
         final Customer customer = mapper.toNewEntity(request);
-        return repository.save(customer).getId();
+        final Customer saved;
+        try {
+            // flushes now, to tell a duplicate fiscal code from other failures
+            saved = repository.saveAndFlush(customer);
+        } catch (DataIntegrityViolationException e) {
+            throw FiscalCodes.translate(e, customer.getFiscalCode());
+        }
+        publishChange(saved.getId(), saved.getVersion(), CREATED);
+        eventPublisher.publishEvent(new CustomersCreatedEvent(List.of(new CustomerNameRow(
+            saved.getId(), saved.getFirstName(), saved.getLastName()))));
+        return saved.getId();
     }
 
+    /**
+     * Does not start a transaction of its own, so that cache hits and ids missing from the
+     * {@link ExistenceFilter} never acquire a connection. On a miss the customer is fetched by
+     * id, then its first {@code max-embedded-devices} devices by a query with a limit, instead
+     * of joining all of them.
+     */
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = SUPPORTS, readOnly = true)
     public ReadCustomerResponse read(String id) {
+        return readRevisioned(id).content();
+    }
+
+    @Override
+    @Transactional(propagation = SUPPORTS, readOnly = true)
+    public Revisioned<ReadCustomerResponse> readRevisioned(String id) {
         requireNotBlank(id, "id");
 
         final var uuid = UUID.fromString(id);
-        final var customer = repository.findFetchingDevicesById(uuid)
-            .orElseThrow(() -> new CustomerNotFoundException(uuid));
+        requireMightExist(uuid);
+
+        return responseCache.get(uuid, () -> staleResponseStore.read(uuid, () -> load(uuid)));
+    }
+
+    @Override
+    @Transactional(propagation = SUPPORTS, readOnly = true)
+    public String readRevision(String id) {
+        requireNotBlank(id, "id");
+
+        final var uuid = UUID.fromString(id);
+        requireMightExist(uuid);
+
+        return staleResponseStore.readRevision(uuid,
+            () -> revisionOf(uuid, findRevisionRow(uuid)));
+    }
+
+    /**
+     * Fetches one more customer than requested, to find out whether another page follows.
+     */
+    @Override
+    @Transactional(propagation = SUPPORTS, readOnly = true)
+    public PageResponse<CustomerSummaryResponse> list(@Nullable String cursor, int size) {
+        requireValidPageSize(size);
+
+        final var limit = PageRequest.of(0, size + 1);
+        final List<Customer> customers;
+        if (PageCursor.isFirstPage(cursor)) {
+            customers = repository.findFirstPage(limit);
+        } else {
+            final var after = PageCursor.decode(cursor);
+            customers = repository.findPageAfter(after.createdAt(), after.id(), limit);
+        }
 
-        return mapper.toDto(customer);
+        return PageCursor.page(customers, size,
+            customer -> new PageCursor(customer.getCreatedAt(), customer.getId()),
+            mapper::toSummaryDto);
     }
 
+    /**
+     * Seeks the unique index on fiscal codes, which are stored in upper case.
+     */
+    @Override
+    @Transactional(propagation = SUPPORTS, readOnly = true)
+    public List<CustomerSummaryResponse> listByFiscalCode(String fiscalCode) {
+        requireNotBlank(fiscalCode, "fiscalCode");
+
+        return repository.findByFiscalCode(fiscalCode.toUpperCase(Locale.ROOT))
+            .map(mapper::toSummaryDto)
+            .stream()
+            .toList();
+    }
+
+    /**
+     * Fetches one more device than requested, to find out whether another page follows. The
+     * customer is looked up only when the page is empty, to tell it apart from a missing one.
+     */
+    @Override
+    @Transactional(propagation = SUPPORTS, readOnly = true)
+    public PageResponse<ReadDeviceResponse> listDevices(
+        String id,
+        @Nullable String cursor,
+        int size
+    ) {
+        requireNotBlank(id, "id");
+        requireValidPageSize(size);
+
+        final var uuid = UUID.fromString(id);
+        requireMightExist(uuid);
+
+        final var limit = PageRequest.of(0, size + 1);
+        final List<Device> devices;
+        if (PageCursor.isFirstPage(cursor)) {
+            devices = repository.findDevicesById(uuid, limit);
+        } else {
+            final var after = PageCursor.decode(cursor);
+            devices = repository.findDevicesAfterById(uuid, after.createdAt(), after.id(), limit);
+        }
+
+        if (devices.isEmpty() && !repository.existsById(uuid)) {
+            throw new CustomerNotFoundException(uuid);
+        }
+
+        return devicePage(devices, size);
+    }
+
+    /**
+     * Updates the customer with a single statement, without loading it. Its new version is not
+     * queried: the change log entry is appended without it.
+     */
     @Override
     public void update(String id, UpdateCustomerRequest request) {
         requireNotBlank(id, "id");
         Assert.notNull(request, "request is null");
 
-        final var customer = findCustomer(id);
-        mapper.toEntity(request, customer);
+        final var uuid = UUID.fromString(id);
+        requireMightExist(uuid);
+
+        final var changes = toChanges(request);
+        if (repository.updateAddress(uuid, null, changes.getAddress(), LocalDateTime.now()) == 0) {
+            throw new CustomerNotFoundException(uuid);
+        }
+
+        publishChange(uuid, null, UPDATED);
+    }
+
+    /**
+     * Only the versions are queried before the update, which fails if the version of the
+     * customer changes in the meantime.
+     */
+    @Override
+    public void update(String id, UpdateCustomerRequest request, String expectedRevision) {
+        requireNotBlank(id, "id");
+        Assert.notNull(request, "request is null");
+        Assert.notNull(expectedRevision, "expectedRevision is null");
+
+        final var uuid = UUID.fromString(id);
+        requireMightExist(uuid);
+
+        final var row = findRevisionRow(uuid);
+        final long version = row.getCustomerVersion();
+
+        if (!revisionOf(uuid, row).equals(expectedRevision)) {
+            throw new PreconditionFailedException(uuid);
+        }
+
+        final var changes = toChanges(request);
+        final var now = LocalDateTime.now();
+        if (repository.updateAddress(uuid, version, changes.getAddress(), now) == 0) {
+            // changed after its versions were queried
+            throw new PreconditionFailedException(uuid);
+        }
+
+        publishChange(uuid, version + 1, UPDATED);
     }
 
+    /**
+     * Deletes the customer with a single statement, without loading it. A customer that still
+     * owns devices is not deleted, because of the foreign key of the devices.
+     */
     @Override
     public void delete(String id) {
         requireNotBlank(id, "id");
 
-        final var customer = findCustomer(id);
-        repository.delete(customer);
+        final var uuid = UUID.fromString(id);
+        requireMightExist(uuid);
+
+        if (repository.deleteRowById(uuid) == 0) {
+            throw new CustomerNotFoundException(uuid);
+        }
+
+        publishChange(uuid, null, DELETED);
     }
 
-    private Customer findCustomer(String id) {
+    /**
+     * Deletes the devices of the customer with a single statement, then the customer, without
+     * loading any of them. Only the ids of the devices, needed by the change log and the caches,
+     * are queried beforehand, after locking the customer so that no device can be added to it in
+     * the meantime.
+     */
+    @Override
+    public void delete(String id, boolean cascade) {
+        if (!cascade) {
+            delete(id);
+            return;
+        }
+        requireNotBlank(id, "id");
+
         final var uuid = UUID.fromString(id);
-        return repository.findById(uuid)
+        requireMightExist(uuid);
+
+        repository.lockById(uuid)
             .orElseThrow(() -> new CustomerNotFoundException(uuid));
+
+        final var deviceIds = repository.findDeviceIdsById(uuid);
+        repository.deleteDevicesById(uuid);
+        repository.deleteRowById(uuid);
+
+        final var deviceEvents = deviceIds.stream()
+            .map(deviceId -> new DeviceChangedEvent(deviceId, uuid, DELETED))
+            .toList();
+        changeLog.appendDevices(deviceEvents, null);
+        deviceEvents.forEach(eventPublisher::publishEvent);
+
+        publishChange(uuid, null, DELETED);
+    }
+
+    /**
+     * The revision covers all the devices of the customer: when some of them are not embedded,
+     * it is computed from a single row aggregating them.
+     */
+    private Revisioned<ReadCustomerResponse> load(UUID id) {
+        final var customer = repository.findById(id)
+            .orElseThrow(() -> new CustomerNotFoundException(id));
+        final var devices = repository.findDevicesById(id,
+            PageRequest.of(0, maxEmbeddedDevices + 1));
+
+        final String revision;
+        if (devices.size() > maxEmbeddedDevices) {
+            revision = revisionOf(id, findRevisionRow(id));
+        } else {
+            revision = Revisions.ofCustomer(id, customer.getVersion(), devices);
+        }
+
+        return new Revisioned<>(revision,
+            mapper.toDto(customer, devicePage(devices, maxEmbeddedDevices)));
+    }
+
+    private PageResponse<ReadDeviceResponse> devicePage(List<Device> devices, int size) {
+        return PageCursor.page(devices, size,
+            device -> new PageCursor(device.getCreatedAt(), device.getId()),
+            deviceMapper::toDto);
+    }
+
+    private RevisionRow findRevisionRow(UUID id) {
+        return repository.findRevisionById(id)
+            .orElseThrow(() -> new CustomerNotFoundException(id));
+    }
+
+    private Customer toChanges(UpdateCustomerRequest request) {
+        final var changes = new Customer();
+        mapper.toEntity(request, changes);
+
+        return changes;
+    }
+
+    private void requireMightExist(UUID id) {
+        if (!existenceFilter.mightExist(id)) {
+            throw new CustomerNotFoundException(id);
+        }
+    }
+
+    private void publishChange(UUID id, @Nullable Long version, ChangeType changeType) {
+        final var event = new CustomerChangedEvent(id, changeType);
+
+        changeLog.append(event, version);
+        eventPublisher.publishEvent(event);
+    }
+
+    private static String revisionOf(UUID id, RevisionRow row) {
+        return Revisions.ofCustomer(id, row.getCustomerVersion(), row.getDeviceCount(),
+            row.getMaxDeviceVersion(), row.getLastDeviceModifiedAt());
+    }
+
+    private static void requireValidPageSize(int size) {
+        Assert.isTrue(size > 0 && size <= MAX_PAGE_SIZE,
+            "size is not in [1, %d]".formatted(MAX_PAGE_SIZE));
     }
 
     private static void requireNotBlank(String value, String name) {
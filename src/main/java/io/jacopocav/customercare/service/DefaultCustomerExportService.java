@@ -0,0 +1,123 @@
+package io.jacopocav.customercare.service;
+
+import static com.fasterxml.jackson.core.JsonGenerator.Feature.AUTO_CLOSE_TARGET;
+import static com.fasterxml.jackson.databind.SerializationFeature.FLUSH_AFTER_WRITE_VALUE;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.Assert;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import io.jacopocav.customercare.component.CustomerMapper;
+import io.jacopocav.customercare.component.DeviceMapper;
+import io.jacopocav.customercare.dto.PageResponse;
+import io.jacopocav.customercare.dto.ReadCustomerResponse;
+import io.jacopocav.customercare.model.Customer;
+import io.jacopocav.customercare.model.Device;
+import io.jacopocav.customercare.repository.CustomerDeviceRow;
+import io.jacopocav.customercare.repository.CustomerRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Customers and devices are read by a single query, a join ordered by customer, whose rows are
+ * streamed from a database cursor and grouped back by customer as they arrive. Once written, a
+ * customer and its devices are evicted from the persistence context, which would otherwise keep
+ * every entity read so far.
+ * <p>
+ * The persistence context is not cleared as a whole: the row that ends a customer already
+ * belongs to the next one, whose entities Hibernate is still loading.
+ */
+@Slf4j
+@Service
+public class DefaultCustomerExportService implements CustomerExportService {
+    private final CustomerRepository repository;
+    private final CustomerMapper mapper;
+    private final DeviceMapper deviceMapper;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writer;
+
+    public DefaultCustomerExportService(
+        CustomerRepository repository,
+        CustomerMapper mapper,
+        DeviceMapper deviceMapper,
+        EntityManager entityManager,
+        ObjectMapper objectMapper
+    ) {
+        this.repository = repository;
+        this.mapper = mapper;
+        this.deviceMapper = deviceMapper;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.writer = objectMapper.writerFor(ReadCustomerResponse.class)
+            .without(FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void export(OutputStream output) throws IOException {
+        Assert.notNull(output, "output is null");
+
+        long exported = 0;
+        try (final var generator = objectMapper.createGenerator(output);
+             final var rows = repository.streamAllWithDevices()) {
+            generator.disable(AUTO_CLOSE_TARGET);
+            // lines are ended explicitly instead
+            generator.setRootValueSeparator(null);
+
+            Customer customer = null;
+            final var devices = new ArrayList<Device>();
+            for (final var iterator = rows.iterator(); iterator.hasNext(); ) {
+                final CustomerDeviceRow row = iterator.next();
+
+                if (customer != null && !customer.getId().equals(row.getCustomer().getId())) {
+                    write(generator, customer, devices);
+                    evict(customer, devices);
+                    devices.clear();
+                    exported++;
+                }
+
+                customer = row.getCustomer();
+                addIfPresent(devices, row.getDevice());
+            }
+
+            if (customer != null) {
+                write(generator, customer, devices);
+                evict(customer, devices);
+                exported++;
+            }
+        }
+        output.flush();
+
+        log.debug("Exported {} customers", exported);
+    }
+
+    private void write(JsonGenerator generator, Customer customer, List<Device> devices)
+        throws IOException {
+        final var deviceDtos = devices.stream().map(deviceMapper::toDto).toList();
+
+        writer.writeValue(generator, mapper.toDto(customer, new PageResponse<>(deviceDtos, null)));
+        generator.writeRaw('\n');
+    }
+
+    private void evict(Customer customer, List<Device> devices) {
+        entityManager.detach(customer);
+        devices.forEach(entityManager::detach);
+    }
+
+    private static void addIfPresent(List<Device> devices, @Nullable Device device) {
+        if (device != null) {
+            devices.add(device);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package io.jacopocav.customercare.service;
+
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+import static org.springframework.transaction.annotation.Propagation.SUPPORTS;
+
+import java.util.List;
+import java.util.Objects;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.Assert;
+
+import io.jacopocav.customercare.cache.CustomerNameIndex;
+import io.jacopocav.customercare.component.CustomerMapper;
+import io.jacopocav.customercare.dto.CustomerSummaryResponse;
+import io.jacopocav.customercare.model.Customer;
+import io.jacopocav.customercare.repository.CustomerRepository;
+
+/**
+ * Matching ids are found by the {@link CustomerNameIndex}, then their customers are fetched by
+ * id with a single query. Ids whose customer is not found, like those of creations that were
+ * rolled back, are skipped.
+ */
+@Service
+public class DefaultCustomerSearchService implements CustomerSearchService {
+    private final CustomerNameIndex nameIndex;
+    private final CustomerRepository repository;
+    private final CustomerMapper mapper;
+
+    public DefaultCustomerSearchService(
+        CustomerNameIndex nameIndex,
+        CustomerRepository repository,
+        CustomerMapper mapper
+    ) {
+        this.nameIndex = nameIndex;
+        this.repository = repository;
+        this.mapper = mapper;
+    }
+
+    @Override
+    @Transactional(propagation = SUPPORTS, readOnly = true)
+    public List<CustomerSummaryResponse> search(String prefix, int size) {
+        Assert.isTrue(isNotBlank(prefix), "prefix is blank or null");
+        Assert.isTrue(size > 0 && size <= MAX_SIZE, "size is not in [1, %d]".formatted(MAX_SIZE));
+
+        final var ids = nameIndex.search(prefix, size);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        final var customers = repository.findAllById(ids).stream()
+            .collect(toMap(Customer::getId, identity()));
+        return ids.stream()
+            .map(customers::get)
+            .filter(Objects::nonNull)
+            .map(mapper::toSummaryDto)
+            .toList();
+    }
+}
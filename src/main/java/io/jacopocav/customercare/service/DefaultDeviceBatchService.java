@@ -0,0 +1,143 @@
+package io.jacopocav.customercare.service;
+
+import static io.jacopocav.customercare.event.ChangeType.CREATED;
+import static java.util.stream.Collectors.toMap;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+import io.jacopocav.customercare.cache.ChangeLog;
+import io.jacopocav.customercare.component.DeviceMapper;
+import io.jacopocav.customercare.dto.BatchCreateResponse;
+import io.jacopocav.customercare.dto.CreateDeviceRequest;
+import io.jacopocav.customercare.error.CustomerNotFoundException;
+import io.jacopocav.customercare.error.DeviceLimitReachedException;
+import io.jacopocav.customercare.event.DeviceChangedEvent;
+import io.jacopocav.customercare.model.Device;
+import io.jacopocav.customercare.repository.DeviceCountRow;
+import io.jacopocav.customercare.repository.DeviceRepository;
+import io.jacopocav.customercare.service.BatchCreator.Outcome;
+import jakarta.validation.Validator;
+
+/**
+ * Valid requests are inserted in chunks, each by its own transaction. The customers of a chunk
+ * are locked and their devices counted with one statement each, instead of one per request,
+ * then the accepted devices are inserted with JDBC batches. When a chunk fails, its requests are
+ * inserted one by one to find out which of them cannot be.
+ * <p>
+ * Single creations are grouped the same way, with those of concurrent calls.
+ */
+@Service
+public class DefaultDeviceBatchService implements DeviceBatchService {
+    private final DeviceMapper mapper;
+    private final DeviceRepository repository;
+    private final ChangeLog changeLog;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxDevicesPerCustomer;
+    private final BatchCreator<CreateDeviceRequest> batchCreator;
+    private final WriteBatcher<CreateDeviceRequest> writeBatcher;
+
+    public DefaultDeviceBatchService(
+        DeviceMapper mapper,
+        DeviceRepository repository,
+        ChangeLog changeLog,
+        ApplicationEventPublisher eventPublisher,
+        Validator validator,
+        TransactionTemplate transactionTemplate,
+        @Value("${customer-care.max-devices-per-customer}") int maxDevicesPerCustomer,
+        @Value("${customer-care.batch.chunk-size}") int chunkSize,
+        @Value("${customer-care.write-batching.max-size}") int writeBatchSize,
+        @Value("${customer-care.write-batching.max-delay}") Duration writeBatchDelay
+    ) {
+        this.mapper = mapper;
+        this.repository = repository;
+        this.changeLog = changeLog;
+        this.eventPublisher = eventPublisher;
+        this.maxDevicesPerCustomer = maxDevicesPerCustomer;
+        this.batchCreator =
+            new BatchCreator<>(validator, transactionTemplate, chunkSize, "device");
+        this.writeBatcher = new WriteBatcher<>(writeBatchSize, writeBatchDelay,
+            requests -> batchCreator.create(requests, this::insert));
+    }
+
+    @Override
+    public BatchCreateResponse createAll(List<CreateDeviceRequest> requests) {
+        return batchCreator.createAll(requests, MAX_SIZE, this::insert);
+    }
+
+    @Override
+    public UUID create(CreateDeviceRequest request) {
+        Assert.notNull(request, "request is null");
+
+        return writeBatcher.create(request);
+    }
+
+    private List<Outcome> insert(List<CreateDeviceRequest> requests) {
+        final var customerIds = new LinkedHashSet<UUID>();
+        for (final var request : requests) {
+            if (request.customerId() != null) {
+                customerIds.add(UUID.fromString(request.customerId()));
+            }
+        }
+
+        // serializes with the other creations of devices of the same customers until commit,
+        // so that the counts cannot change before the new devices are inserted
+        final var existing = customerIds.isEmpty()
+            ? new HashSet<UUID>()
+            : new HashSet<>(repository.lockCustomersByIds(customerIds));
+        final Map<UUID, Long> counts = existing.isEmpty()
+            ? new HashMap<>()
+            : repository.countByCustomerIds(existing).stream()
+                .collect(toMap(DeviceCountRow::getCustomerId, DeviceCountRow::getDevices));
+
+        final var outcomes = new ArrayList<Outcome>(requests.size());
+        final var devices = new ArrayList<Device>();
+        for (final var request : requests) {
+            if (request.customerId() == null) {
+                outcomes.add(Outcome.failed(new IllegalArgumentException("customerId is null")));
+                continue;
+            }
+
+            final var customerId = UUID.fromString(request.customerId());
+            if (!existing.contains(customerId)) {
+                outcomes.add(Outcome.failed(new CustomerNotFoundException(customerId)));
+            } else if (counts.merge(customerId, 1L, Long::sum) > maxDevicesPerCustomer) {
+                outcomes.add(Outcome.failed(
+                    new DeviceLimitReachedException(maxDevicesPerCustomer, customerId)));
+            } else {
+                final var device = mapper.toNewEntity(request);
+                devices.add(device);
+                // replaced by the id of the device once inserted
+                outcomes.add(null);
+            }
+        }
+
+        repository.saveAll(devices);
+        // sends the batched inserts before the ones of the change log
+        repository.flush();
+
+        final var events = devices.stream()
+            .map(device -> new DeviceChangedEvent(
+                device.getId(), device.getCustomer().getId(), CREATED))
+            .toList();
+        changeLog.appendDevices(events, 0L);
+        events.forEach(eventPublisher::publishEvent);
+
+        final var created = devices.stream().map(Device::getId).iterator();
+        outcomes.replaceAll(outcome -> outcome != null ? outcome : Outcome.created(created.next()));
+
+        return outcomes;
+    }
+}
@@ -1,37 +1,71 @@
 package io.jacopocav.customercare.service;
 
+import static io.jacopocav.customercare.event.ChangeType.CREATED;
+import static io.jacopocav.customercare.event.ChangeType.DELETED;
+import static io.jacopocav.customercare.event.ChangeType.UPDATED;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
+import static org.springframework.transaction.annotation.Propagation.SUPPORTS;
 
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
 
+import io.jacopocav.customercare.cache.ChangeLog;
+import io.jacopocav.customercare.cache.DeviceJsonCache;
+import io.jacopocav.customercare.cache.ExistenceFilter;
+import io.jacopocav.customercare.cache.SingleFlight;
+import io.jacopocav.customercare.cache.StaleResponseStore;
 import io.jacopocav.customercare.component.DeviceMapper;
 import io.jacopocav.customercare.dto.CreateDeviceRequest;
 import io.jacopocav.customercare.dto.ReadDeviceResponse;
+import io.jacopocav.customercare.dto.Revisioned;
 import io.jacopocav.customercare.dto.UpdateDeviceRequest;
+import io.jacopocav.customercare.error.CustomerNotFoundException;
 import io.jacopocav.customercare.error.DeviceLimitReachedException;
 import io.jacopocav.customercare.error.DeviceNotFoundException;
+import io.jacopocav.customercare.error.PreconditionFailedException;
+import io.jacopocav.customercare.event.ChangeType;
+import io.jacopocav.customercare.event.DeviceChangedEvent;
 import io.jacopocav.customercare.model.Device;
 import io.jacopocav.customercare.repository.DeviceRepository;
+import io.jacopocav.customercare.repository.OwnedVersionRow;
 
 @Service
 @Transactional
 public class DefaultDeviceCrudService implements DeviceCrudService {
     private final DeviceMapper mapper;
     private final DeviceRepository repository;
+    private final DeviceJsonCache jsonCache;
+    private final ExistenceFilter existenceFilter;
+    private final StaleResponseStore staleResponseStore;
+    private final ChangeLog changeLog;
+    private final ApplicationEventPublisher eventPublisher;
     private final int maxDevicesPerCustomer;
+    private final SingleFlight<JsonLoad, Revisioned<byte[]>> jsonLoads = new SingleFlight<>();
 
     public DefaultDeviceCrudService(
         DeviceMapper mapper,
         DeviceRepository repository,
+        DeviceJsonCache jsonCache,
+        ExistenceFilter existenceFilter,
+        StaleResponseStore staleResponseStore,
+        ChangeLog changeLog,
+        ApplicationEventPublisher eventPublisher,
         @Value("${customer-care.max-devices-per-customer}") int maxDevicesPerCustomer
     ) {
         this.mapper = mapper;
         this.repository = repository;
+        this.jsonCache = jsonCache;
+        this.existenceFilter = existenceFilter;
+        this.staleResponseStore = staleResponseStore;
+        this.changeLog = changeLog;
+        this.eventPublisher = eventPublisher;
         this.maxDevicesPerCustomer = maxDevicesPerCustomer;
     }
 
@@ -40,19 +74,28 @@ public class DefaultDeviceCrudService implements DeviceCrudService {
         Assert.notNull(request, "request is null");
 
         final var customerId = UUID.fromString(request.customerId());
-        final var deviceCount = repository.countByCustomerId(customerId);
+        // serializes the creations of devices of the same customer until commit, so that
+        // the count cannot change before the new device is inserted
+        repository.lockCustomerById(customerId)
+            .orElseThrow(() -> new CustomerNotFoundException(customerId));
 
-        if (deviceCount >= maxDevicesPerCustomer) {
+        if (repository.countByCustomerId(customerId) >= maxDevicesPerCustomer) {
             throw new DeviceLimitReachedException(maxDevicesPerCustomer, customerId);
         }
 
-        final Device device = mapper.toNewEntity(request);
+        // the customer cannot be deleted while locked, so the foreign key holds until commit
+        final Device saved = repository.save(mapper.toNewEntity(request));
 
-        return repository.save(device).getId();
+        publishChange(saved.getId(), customerId, saved.getVersion(), CREATED);
+        return saved.getId();
     }
 
+    /**
+     * Read methods do not start a transaction of their own, so that ids missing from the
+     * {@link ExistenceFilter} never acquire a connection.
+     */
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = SUPPORTS, readOnly = true)
     public ReadDeviceResponse read(String id) {
         requireNotBlank(id, "id");
 
@@ -60,36 +103,180 @@ public class DefaultDeviceCrudService implements DeviceCrudService {
         return mapper.toDto(device);
     }
 
+    /**
+     * Only the version of the device is queried on a cache hit. On a miss, the response is
+     * cached under the version of the loaded entity, which could be newer than the queried one.
+     * Concurrent misses for the same version of a device share a single load. When the database
+     * cannot be read, the last known response is served instead.
+     */
+    @Override
+    @Transactional(propagation = SUPPORTS, readOnly = true)
+    public Revisioned<byte[]> readJson(String id) {
+        requireNotBlank(id, "id");
+
+        final var uuid = UUID.fromString(id);
+        requireMightExist(uuid);
+
+        return staleResponseStore.read(uuid, () -> readFreshJson(uuid));
+    }
+
+    @Override
+    @Transactional(propagation = SUPPORTS, readOnly = true)
+    public String readRevision(String id) {
+        requireNotBlank(id, "id");
+
+        final var uuid = UUID.fromString(id);
+        return staleResponseStore.readRevision(uuid,
+            () -> Revisions.ofDevice(uuid, findVersion(uuid)));
+    }
+
+    /**
+     * Updates the device with a single statement, without loading it. Its new version and its
+     * customer, needed by the change log and the caches, are queried afterwards.
+     */
     @Override
     public void update(String id, UpdateDeviceRequest request) {
         requireNotBlank(id, "id");
         Assert.notNull(request, "request is null");
 
-        final var device = findDevice(id);
-        mapper.toEntity(request, device);
+        final var uuid = UUID.fromString(id);
+        requireMightExist(uuid);
+
+        final var changes = toChanges(request);
+        final var now = LocalDateTime.now();
+        if (repository.update(uuid, null, changes.getStatus(), changes.getColor(), now) == 0) {
+            throw new DeviceNotFoundException(uuid);
+        }
+
+        final var updated = findOwnedVersion(uuid);
+        publishChange(uuid, updated.getCustomerId(), updated.getVersion(), UPDATED);
+    }
+
+    /**
+     * Only the version and the customer of the device are queried before the update, which
+     * fails if the version of the device changes in the meantime.
+     */
+    @Override
+    public void update(String id, UpdateDeviceRequest request, String expectedRevision) {
+        requireNotBlank(id, "id");
+        Assert.notNull(request, "request is null");
+        Assert.notNull(expectedRevision, "expectedRevision is null");
+
+        final var uuid = UUID.fromString(id);
+        requireMightExist(uuid);
+
+        final var current = findOwnedVersion(uuid);
+        final long version = current.getVersion();
+
+        if (!Revisions.ofDevice(uuid, version).equals(expectedRevision)) {
+            throw new PreconditionFailedException(uuid);
+        }
+
+        final var changes = toChanges(request);
+        final var now = LocalDateTime.now();
+        if (repository.update(uuid, version, changes.getStatus(), changes.getColor(), now) == 0) {
+            // changed after its version was queried
+            throw new PreconditionFailedException(uuid);
+        }
+
+        publishChange(uuid, current.getCustomerId(), version + 1, UPDATED);
     }
 
+    /**
+     * Deletes the device with a single statement, without loading it. Only the id of its
+     * customer, needed by the change log and the caches, is queried beforehand.
+     */
     @Override
     public void delete(String id) {
         requireNotBlank(id, "id");
 
-        final var device = findDevice(id);
-        repository.delete(device);
+        final var uuid = UUID.fromString(id);
+        requireMightExist(uuid);
+
+        final var customerId = repository.findCustomerIdById(uuid)
+            .orElseThrow(() -> new DeviceNotFoundException(uuid));
+
+        if (repository.deleteRowById(uuid) == 0) {
+            // deleted after its customer was queried
+            throw new DeviceNotFoundException(uuid);
+        }
+
+        publishChange(uuid, customerId, null, DELETED);
     }
 
     @Override
+    @Transactional(propagation = SUPPORTS, readOnly = true)
     public boolean exists(String id) {
         requireNotBlank(id, "id");
-        return repository.existsById(UUID.fromString(id));
+
+        final var uuid = UUID.fromString(id);
+        return existenceFilter.mightExist(uuid) && repository.existsById(uuid);
+    }
+
+    private Revisioned<byte[]> readFreshJson(UUID uuid) {
+        final long version = findVersion(uuid);
+
+        final var cached = jsonCache.get(uuid, version);
+        if (cached != null) {
+            return new Revisioned<>(Revisions.ofDevice(uuid, version), cached);
+        }
+
+        return jsonLoads.load(new JsonLoad(uuid, version), () -> {
+            final var device = findDevice(uuid.toString());
+            final var json = jsonCache.put(uuid, device.getVersion(), mapper.toDto(device));
+
+            return new Revisioned<>(Revisions.ofDevice(uuid, device.getVersion()), json);
+        });
+    }
+
+    private long findVersion(UUID id) {
+        requireMightExist(id);
+        return repository.findVersionById(id)
+            .orElseThrow(() -> new DeviceNotFoundException(id));
+    }
+
+    private OwnedVersionRow findOwnedVersion(UUID id) {
+        return repository.findOwnedVersionById(id)
+            .orElseThrow(() -> new DeviceNotFoundException(id));
+    }
+
+    private Device toChanges(UpdateDeviceRequest request) {
+        final var changes = new Device();
+        mapper.toEntity(request, changes);
+
+        return changes;
     }
 
     private Device findDevice(String id) {
         final var uuid = UUID.fromString(id);
+        requireMightExist(uuid);
+
         return repository.findById(uuid)
             .orElseThrow(() -> new DeviceNotFoundException(uuid));
     }
 
+    private void requireMightExist(UUID id) {
+        if (!existenceFilter.mightExist(id)) {
+            throw new DeviceNotFoundException(id);
+        }
+    }
+
+    private void publishChange(
+        UUID id,
+        UUID customerId,
+        @Nullable Long version,
+        ChangeType changeType
+    ) {
+        final var event = new DeviceChangedEvent(id, customerId, changeType);
+
+        changeLog.append(event, version);
+        eventPublisher.publishEvent(event);
+    }
+
     private static void requireNotBlank(String value, String name) {
         Assert.isTrue(isNotBlank(value), name + " is blank or null");
     }
+
+    private record JsonLoad(UUID id, long version) {
+    }
 }
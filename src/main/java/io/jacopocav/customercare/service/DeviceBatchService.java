@@ -0,0 +1,28 @@
+package io.jacopocav.customercare.service;
+
+import java.util.List;
+import java.util.UUID;
+
+import io.jacopocav.customercare.dto.BatchCreateResponse;
+import io.jacopocav.customercare.dto.CreateDeviceRequest;
+
+public interface DeviceBatchService {
+    /**
+     * Maximum number of requests of a single batch.
+     */
+    int MAX_SIZE = 10_000;
+
+    /**
+     * Creates a device for each valid request, as long as its customer exists and does not
+     * exceed the maximum number of devices. The other requests, and requests that could not be
+     * inserted, are reported as errors without affecting the others.
+     */
+    BatchCreateResponse createAll(List<CreateDeviceRequest> requests);
+
+    /**
+     * Creates a single device in the same transaction as the ones of concurrent calls, which
+     * waits for a few milliseconds at most for them. The request must be valid already. Fails
+     * with the same exceptions as {@link DeviceCrudService#create}.
+     */
+    UUID create(CreateDeviceRequest request);
+}
@@ -4,6 +4,7 @@ import java.util.UUID;
 
 import io.jacopocav.customercare.dto.CreateDeviceRequest;
 import io.jacopocav.customercare.dto.ReadDeviceResponse;
+import io.jacopocav.customercare.dto.Revisioned;
 import io.jacopocav.customercare.dto.UpdateDeviceRequest;
 import jakarta.validation.constraints.NotBlank;
 
@@ -12,8 +13,28 @@ public interface DeviceCrudService {
 
     ReadDeviceResponse read(@NotBlank String id);
 
+    /**
+     * Same as {@link #read(String)}, but returns the response already serialized as UTF-8 JSON,
+     * together with its revision.
+     */
+    Revisioned<byte[]> readJson(@NotBlank String id);
+
+    /**
+     * Returns the current revision of the device, as returned by {@link #readJson(String)},
+     * without loading the device.
+     */
+    String readRevision(@NotBlank String id);
+
     void update(@NotBlank String id, UpdateDeviceRequest request);
 
+    /**
+     * Same as {@link #update(String, UpdateDeviceRequest)}, but only if the current revision
+     * of the device is {@code expectedRevision}.
+     *
+     * @throws io.jacopocav.customercare.error.PreconditionFailedException if it is not
+     */
+    void update(@NotBlank String id, UpdateDeviceRequest request, String expectedRevision);
+
     void delete(@NotBlank String id);
 
     boolean exists(@NotBlank String id);
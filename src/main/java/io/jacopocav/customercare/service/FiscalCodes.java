@@ -0,0 +1,31 @@
+package io.jacopocav.customercare.service;
+
+import static org.apache.commons.lang3.StringUtils.containsIgnoreCase;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import io.jacopocav.customercare.error.DuplicateFiscalCodeException;
+import io.jacopocav.customercare.model.Customer;
+
+/**
+ * Tells the violations of the unique index on fiscal codes from other integrity violations.
+ */
+final class FiscalCodes {
+    private FiscalCodes() {
+    }
+
+    /**
+     * Returns a {@link DuplicateFiscalCodeException} if {@code e} was caused by the unique index
+     * on fiscal codes, or {@code e} itself otherwise.
+     */
+    static RuntimeException translate(DataIntegrityViolationException e, String fiscalCode) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation
+                && containsIgnoreCase(violation.getConstraintName(), Customer.FISCAL_CODE_INDEX)) {
+                return new DuplicateFiscalCodeException(fiscalCode, e);
+            }
+        }
+        return e;
+    }
+}
@@ -0,0 +1,76 @@
+package io.jacopocav.customercare.service;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+import org.springframework.lang.Nullable;
+
+import io.jacopocav.customercare.dto.PageResponse;
+import io.jacopocav.customercare.error.InvalidCursorException;
+
+/**
+ * Position of a page in a keyset pagination over {@code (createdAt, id)}: the key of the last
+ * item of the previous page. Clients get it as an opaque string, so that its content can change
+ * without breaking them.
+ */
+record PageCursor(LocalDateTime createdAt, UUID id) {
+    private static final char SEPARATOR = '~';
+    /**
+     * Next cursor of a page of size 0 followed by other rows, which requests the first page.
+     */
+    private static final String FIRST_PAGE = "first";
+
+    /**
+     * Returns the first {@code size} of {@code rows}, which are fetched with a limit of
+     * {@code size + 1}: the extra row only tells whether another page follows. A page of size 0
+     * has no last item to continue from, so its next cursor requests the first page.
+     */
+    static <E, T> PageResponse<T> page(
+        List<E> rows,
+        int size,
+        Function<E, PageCursor> keyOf,
+        Function<E, T> toDto
+    ) {
+        if (size == 0) {
+            return new PageResponse<>(List.of(), rows.isEmpty() ? null : FIRST_PAGE);
+        }
+
+        final var page = rows.subList(0, Math.min(size, rows.size()));
+        final var nextCursor = rows.size() > size
+            ? keyOf.apply(page.get(page.size() - 1)).encode()
+            : null;
+
+        return new PageResponse<>(page.stream().map(toDto).toList(), nextCursor);
+    }
+
+    static boolean isFirstPage(@Nullable String cursor) {
+        return cursor == null || FIRST_PAGE.equals(cursor);
+    }
+
+    String encode() {
+        final var value = createdAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(UTF_8));
+    }
+
+    /**
+     * @throws InvalidCursorException if {@code cursor} was not returned by {@link #encode()}
+     */
+    static PageCursor decode(String cursor) {
+        try {
+            final var value = new String(Base64.getUrlDecoder().decode(cursor), UTF_8);
+            final var separator = value.indexOf(SEPARATOR);
+
+            return new PageCursor(
+                LocalDateTime.parse(value.substring(0, separator)),
+                UUID.fromString(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new InvalidCursorException(cursor, e);
+        }
+    }
+}
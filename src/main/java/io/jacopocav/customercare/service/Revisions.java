@@ -0,0 +1,55 @@
+package io.jacopocav.customercare.service;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Comparator.naturalOrder;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.UUID;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.DigestUtils;
+
+import io.jacopocav.customercare.model.Device;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Computes the revisions of customers and devices from the ids and versions of the
+ * involved entities, so that they can be obtained either from loaded entities or from
+ * version-only queries.
+ * <p>
+ * The devices of a customer only contribute their number, greatest version and latest
+ * modification time, which a single aggregate row holds: any update of a device raises the
+ * last two, a removal lowers the number and an addition raises the latest modification time.
+ */
+@UtilityClass
+class Revisions {
+    static String ofCustomer(UUID id, long version, Collection<Device> devices) {
+        return ofCustomer(id, version, devices.size(),
+            devices.stream()
+                .map(Device::getVersion)
+                .max(naturalOrder())
+                .orElse(null),
+            devices.stream()
+                .map(Device::getLastModifiedAt)
+                .filter(Objects::nonNull)
+                .max(naturalOrder())
+                .orElse(null));
+    }
+
+    static String ofCustomer(UUID id, long version, long deviceCount,
+        @Nullable Long maxDeviceVersion, @Nullable LocalDateTime lastDeviceModifiedAt) {
+
+        return digest(id + ":" + version + ";" + deviceCount + ":" + maxDeviceVersion + ":"
+            + lastDeviceModifiedAt);
+    }
+
+    static String ofDevice(UUID id, long version) {
+        return digest(id + ":" + version);
+    }
+
+    private static String digest(String value) {
+        return DigestUtils.md5DigestAsHex(value.getBytes(UTF_8));
+    }
+}
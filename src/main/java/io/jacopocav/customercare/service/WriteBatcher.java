@@ -0,0 +1,134 @@
+package io.jacopocav.customercare.service;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import io.jacopocav.customercare.service.BatchCreator.Outcome;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Groups the requests of concurrent callers, so that they are created by a single transaction
+ * instead of one each. The first caller of a batch waits until the batch holds {@code maxSize}
+ * requests, or for {@code maxDelay} at most, then creates the whole batch on its own thread while
+ * the next batch fills up. Every caller waits for its batch, then gets its own id, or throws its
+ * own exception.
+ */
+@Slf4j
+class WriteBatcher<R> {
+    private final int maxSize;
+    private final long maxDelayNanos;
+    private final Function<List<R>, List<Outcome>> createBatch;
+    private final Object lock = new Object();
+    @Nullable
+    private List<Pending<R>> open;
+
+    /**
+     * @param createBatch creates the requests of a batch, returning the outcome of each of them,
+     *                    in the same order
+     */
+    WriteBatcher(int maxSize, Duration maxDelay, Function<List<R>, List<Outcome>> createBatch) {
+        Assert.isTrue(maxSize > 0, "maxSize is not positive");
+        Assert.isTrue(!maxDelay.isNegative(), "maxDelay is negative");
+
+        this.maxSize = maxSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.createBatch = createBatch;
+    }
+
+    UUID create(R request) {
+        final var pending = new Pending<>(request, new CompletableFuture<UUID>());
+        final List<Pending<R>> batch;
+        final boolean first;
+
+        synchronized (lock) {
+            first = open == null;
+            if (first) {
+                open = new ArrayList<>(maxSize);
+            }
+            batch = open;
+            batch.add(pending);
+
+            if (batch.size() >= maxSize) {
+                open = null;
+                lock.notifyAll();
+            }
+        }
+
+        if (first) {
+            awaitFull(batch);
+            create(batch);
+        }
+
+        try {
+            return pending.result().join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private void awaitFull(List<Pending<R>> batch) {
+        final long deadline = System.nanoTime() + maxDelayNanos;
+        boolean interrupted = false;
+
+        synchronized (lock) {
+            long remaining;
+            while (open == batch && (remaining = deadline - System.nanoTime()) > 0) {
+                try {
+                    NANOSECONDS.timedWait(lock, remaining);
+                } catch (InterruptedException e) {
+                    // the other callers of the batch are waiting for it anyway
+                    interrupted = true;
+                }
+            }
+            if (open == batch) {
+                open = null;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Errors are rethrown to the caller creating the batch, after failing the others: otherwise
+     * they would wait forever.
+     */
+    private void create(List<Pending<R>> batch) {
+        try {
+            final var outcomes = createBatch.apply(batch.stream().map(Pending::request).toList());
+            Assert.state(outcomes.size() == batch.size(), "not an outcome for each request");
+
+            for (int i = 0; i < batch.size(); i++) {
+                final var outcome = outcomes.get(i);
+                final var result = batch.get(i).result();
+
+                if (outcome.id() != null) {
+                    result.complete(outcome.id());
+                } else {
+                    result.completeExceptionally(outcome.failure());
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            log.debug("Could not create batch of {} requests", batch.size(), e);
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+
+            if (e instanceof Error error) {
+                throw error;
+            }
+        }
+    }
+
+    private record Pending<R>(R request, CompletableFuture<UUID> result) {
+    }
+}
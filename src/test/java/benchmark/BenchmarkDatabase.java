@@ -0,0 +1,116 @@
+package benchmark;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.jacopocav.customercare.CustomerCareApplication;
+import io.jacopocav.customercare.repository.CustomerRepository;
+
+/**
+ * Runs the application, without a web server, on a file-based H2 database whose schema is
+ * created from the entity mapping, so that benchmarks measure the repository queries on the
+ * tables and indexes the application really uses.
+ * <p>
+ * Customers are inserted with JDBC batches, much faster than saving entities, each committed on
+ * its own.
+ */
+record BenchmarkDatabase(ConfigurableApplicationContext context) implements AutoCloseable {
+    static final int BATCH_SIZE = 1000;
+    /**
+     * A fixed creation time, so that runs insert the same {@code (created_at, id)} keys.
+     */
+    static final LocalDateTime EPOCH = LocalDateTime.of(2023, 1, 1, 0, 0);
+
+    /**
+     * @param options settings appended to the URL of the database, like
+     *                {@code ;CACHE_SIZE=1024}
+     */
+    static BenchmarkDatabase start(Path directory, String options) {
+        return new BenchmarkDatabase(new SpringApplicationBuilder(CustomerCareApplication.class)
+            .web(WebApplicationType.NONE)
+            .profiles("test")
+            // arguments, unlike default properties, override application.yaml
+            .run(
+                "--spring.datasource.url=jdbc:h2:file:%s/db%s".formatted(directory, options),
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--customer-care.warm-up.enabled=false",
+                "--customer-care.change-log.poll-interval=1h"));
+    }
+
+    CustomerRepository customers() {
+        return context.getBean(CustomerRepository.class);
+    }
+
+    JdbcTemplate jdbcTemplate() {
+        return context.getBean(JdbcTemplate.class);
+    }
+
+    /**
+     * Inserts the customers of rows {@code from} (inclusive) to {@code to} (exclusive), taking
+     * their ids from {@code ids} and their creation times from {@code createdAt}. Each row has
+     * its own {@linkplain #fiscalCodeOf fiscal code}.
+     */
+    void insertCustomers(
+        int from,
+        int to,
+        Supplier<UUID> ids,
+        IntFunction<LocalDateTime> createdAt
+    ) {
+        final var sql = """
+            insert into customer (id, version, created_at, last_modified_at, first_name,
+                last_name, fiscal_code, address)
+            values (?, 0, ?, current_timestamp, 'Mary', 'Brown', ?, 'Random Road 101')""";
+        final var transaction = context.getBean(TransactionTemplate.class);
+
+        final var rows = new ArrayList<Object[]>(BATCH_SIZE);
+        for (int row = from; row < to; row++) {
+            rows.add(new Object[] {
+                ids.get(), Timestamp.valueOf(createdAt.apply(row)), fiscalCodeOf(row)});
+
+            if (rows.size() == BATCH_SIZE || row == to - 1) {
+                transaction.executeWithoutResult(status -> jdbcTemplate().batchUpdate(sql, rows));
+                rows.clear();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+
+    static String fiscalCodeOf(int row) {
+        return "BNCH%012d".formatted(row);
+    }
+
+    /**
+     * Returns the median latency of {@code measured}, run {@code repetitions} times after
+     * {@code warmUp} runs that are not measured, in milliseconds.
+     */
+    static double medianMillis(int warmUp, int repetitions, Runnable measured) {
+        for (int i = 0; i < warmUp; i++) {
+            measured.run();
+        }
+
+        final var latencies = new long[repetitions];
+        for (int i = 0; i < repetitions; i++) {
+            final long start = System.nanoTime();
+            measured.run();
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return latencies[repetitions / 2] / 1e6;
+    }
+}
@@ -0,0 +1,181 @@
+package benchmark;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.jacopocav.customercare.CustomerCareApplication;
+import io.jacopocav.customercare.repository.CustomerRepository;
+import io.jacopocav.customercare.service.CustomerExportService;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Measures the throughput of the NDJSON export, the statements it runs and the heap it retains
+ * as it goes, compared with streaming the same rows without evicting them from the persistence
+ * context.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark}; {@code -Dbenchmark.customers} sets the number of
+ * customers, each with {@code -Dbenchmark.devices} devices.
+ */
+@Tag("benchmark")
+@ActiveProfiles("test")
+@SpringBootTest(
+    classes = CustomerCareApplication.class,
+    properties = {
+        "customer-care.warm-up.enabled=false",
+        // the poller would add its own statements
+        "customer-care.change-log.poll-interval=1h",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+    })
+class CustomerExportBenchmark {
+    static final int CUSTOMERS = Integer.getInteger("benchmark.customers", 200_000);
+    static final int DEVICES = Integer.getInteger("benchmark.devices", 2);
+    static final int SAMPLES = 4;
+
+    @Autowired CustomerExportService exportService;
+    @Autowired CustomerRepository repository;
+    @Autowired EntityManagerFactory entityManagerFactory;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @Test
+    void export() throws Exception {
+        insert();
+        final var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // warms up the JIT
+        exportService.export(new SamplingOutputStream(CUSTOMERS));
+
+        System.out.printf("%n%,d customers, %d devices each, retained heap after GC%n",
+            CUSTOMERS, DEVICES);
+        final var before = retainedMegabytes();
+        System.out.printf("  %-20s %s MB%n", "before", before);
+
+        statistics.clear();
+        final var exported = run("export", output -> exportService.export(output));
+        final var statements = statistics.getPrepareStatementCount();
+        final var notEvicted = run("rows not evicted", this::streamWithoutEviction);
+
+        System.out.printf("  %d statements per export%n", statements);
+        then(statements).isOne();
+        then(exported.get(SAMPLES - 1)).isLessThan(notEvicted.get(SAMPLES - 1));
+    }
+
+    private void insert() {
+        final var now = LocalDateTime.now();
+        final var customers = new ArrayList<Object[]>(CUSTOMERS);
+        final var devices = new ArrayList<Object[]>(CUSTOMERS * DEVICES);
+        for (int i = 0; i < CUSTOMERS; i++) {
+            final var customerId = UUID.randomUUID();
+            final var createdAt = Timestamp.valueOf(now.plusNanos(i * 1000L));
+            customers.add(new Object[] {customerId, createdAt, "EXPT%012d".formatted(i)});
+            for (int j = 0; j < DEVICES; j++) {
+                devices.add(new Object[] {UUID.randomUUID(), createdAt, customerId});
+            }
+        }
+
+        jdbcTemplate.batchUpdate("""
+            insert into customer (id, version, created_at, last_modified_at, first_name,
+                last_name, fiscal_code, address)
+            values (?, 0, ?, current_timestamp, 'Mary', 'Brown', ?, 'Random Road 101')""",
+            customers);
+        jdbcTemplate.batchUpdate("""
+            insert into device (id, version, created_at, last_modified_at, status, color,
+                customer_id)
+            values (?, 0, ?, current_timestamp, 'ACTIVE', 'aabbcc', ?)""",
+            devices);
+    }
+
+    /**
+     * Runs {@code export}, printing the throughput and the heap retained after each
+     * {@link #SAMPLES}-th of the customers, which it returns, in megabytes.
+     */
+    private List<Double> run(String name, Export export) throws IOException {
+        final var output = new SamplingOutputStream(CUSTOMERS / SAMPLES);
+
+        final long start = System.nanoTime();
+        export.to(output);
+        final long elapsed = System.nanoTime() - start;
+
+        System.out.printf("  %-20s %,9.0f customers/s, %s MB%n", name,
+            output.lines * 1e9 / elapsed, output.retainedMegabytes);
+        then(output.lines).isGreaterThanOrEqualTo(CUSTOMERS);
+        return output.retainedMegabytes;
+    }
+
+    /**
+     * Streams the rows of the export, writing a line for each customer, without evicting them.
+     */
+    private void streamWithoutEviction(OutputStream output) {
+        transactionTemplate.executeWithoutResult(status -> {
+            try (final var rows = repository.streamAllWithDevices()) {
+                UUID customerId = null;
+                for (final var iterator = rows.iterator(); iterator.hasNext(); ) {
+                    final var row = iterator.next();
+                    if (customerId != null && !customerId.equals(row.getCustomer().getId())) {
+                        output.write('\n');
+                    }
+                    customerId = row.getCustomer().getId();
+                }
+                output.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static double retainedMegabytes() {
+        System.gc();
+        final var heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        return Math.round(heap.getUsed() / 1e5) / 10.0;
+    }
+
+    @FunctionalInterface
+    private interface Export {
+        void to(OutputStream output) throws IOException;
+    }
+
+    /**
+     * Discards the exported lines, measuring the retained heap every {@code interval} lines.
+     */
+    private static class SamplingOutputStream extends OutputStream {
+        final int interval;
+        final List<Double> retainedMegabytes = new ArrayList<>();
+        long lines;
+
+        SamplingOutputStream(int interval) {
+            this.interval = interval;
+        }
+
+        @Override
+        public void write(int b) {
+            if (b == '\n' && ++lines % interval == 0) {
+                retainedMegabytes.add(retainedMegabytes());
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                write(bytes[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package benchmark;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import io.jacopocav.customercare.CustomerCareApplication;
+import io.jacopocav.customercare.cache.DefaultCustomerNameIndex;
+import io.jacopocav.customercare.service.CustomerSearchService;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Measures the memory taken by the name index for each customer and the latency of searching it
+ * by prefix, alone and as {@code GET /customers/search} does, compared with a case-insensitive
+ * {@code like} query on the in-memory H2 database.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark}; {@code -Dbenchmark.customers} sets the number of
+ * customers.
+ */
+@Tag("benchmark")
+@ActiveProfiles("test")
+@SpringBootTest(
+    classes = CustomerCareApplication.class,
+    properties = {
+        "customer-care.warm-up.enabled=false",
+        "customer-care.change-log.poll-interval=1h"
+    })
+class CustomerNameSearchBenchmark {
+    static final int CUSTOMERS = Integer.getInteger("benchmark.customers", 1_000_000);
+    static final int RESULTS = 10;
+    static final int SEARCHES = 2000;
+    static final int SCANS = 50;
+    static final String[] FIRST_NAMES = {
+        "Alice", "Andrea", "Anna", "Beatrice", "Carlo", "Chiara", "Davide", "Elena", "Federico",
+        "Francesca", "Giorgio", "Giulia", "Jacopo", "Laura", "Lorenzo", "Luca", "Marco", "Maria",
+        "Matteo", "Paola", "Riccardo", "Sara", "Simone", "Sofia", "Stefano", "Valentina"};
+    static final String[] SYLLABLES = {
+        "ba", "be", "ca", "co", "da", "di", "fe", "fo", "ga", "gi", "la", "li", "ma", "mo", "na",
+        "ni", "pa", "po", "ra", "ri", "sa", "so", "ta", "to", "va", "ve", "za", "zo"};
+
+    @Autowired DefaultCustomerNameIndex nameIndex;
+    @Autowired CustomerSearchService searchService;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired MeterRegistry meterRegistry;
+
+    @Test
+    void search() {
+        final var random = new Random(42);
+        final var lastNames = insert(random);
+
+        final var before = retainedBytes();
+        final long start = System.nanoTime();
+        nameIndex.load();
+        final long loadTime = System.nanoTime() - start;
+        final var retained = retainedBytes() - before;
+        final var size = meterRegistry.get("customer-care.name-index.size").gauge().value();
+
+        System.out.printf("%n%,d customers, index loaded in %.1f s%n", CUSTOMERS, loadTime / 1e9);
+        System.out.printf("  %-24s %6.1f bytes/customer%n", "index arrays", size / CUSTOMERS);
+        System.out.printf("  %-24s %6.1f bytes/customer%n", "retained heap", retained / CUSTOMERS);
+
+        // prefixes of 1 to 5 letters of existing last names, from many matches to a few
+        final var prefixes = new ArrayList<String>(SEARCHES);
+        for (int i = 0; i < SEARCHES; i++) {
+            final var lastName = lastNames.get(random.nextInt(lastNames.size()));
+            prefixes.add(lastName.substring(0, 1 + i % 5));
+        }
+
+        System.out.printf("  top %d results, latency p50 / p99%n", RESULTS);
+        final var index = run("index", prefixes, prefix -> nameIndex.search(prefix, RESULTS));
+        run("search service", prefixes, prefix -> searchService.search(prefix, RESULTS));
+        final var like = run("like query", prefixes.subList(0, SCANS), prefix ->
+            jdbcTemplate.queryForList("""
+                select id from customer
+                where lower(first_name) like ? or lower(last_name) like ?
+                fetch first ? rows only""",
+                UUID.class, prefix.toLowerCase() + "%", prefix.toLowerCase() + "%", RESULTS));
+
+        then(index).isLessThan(like);
+    }
+
+    /**
+     * Inserts the customers, returning their distinct last names.
+     */
+    private List<String> insert(Random random) {
+        final var lastNames = new ArrayList<String>();
+        for (final var first : SYLLABLES) {
+            for (final var second : SYLLABLES) {
+                for (final var third : SYLLABLES) {
+                    final var name = first + second + third;
+                    lastNames.add(Character.toUpperCase(name.charAt(0)) + name.substring(1));
+                }
+            }
+        }
+
+        final var rows = new ArrayList<Object[]>(CUSTOMERS);
+        for (int i = 0; i < CUSTOMERS; i++) {
+            rows.add(new Object[] {UUID.randomUUID(),
+                FIRST_NAMES[random.nextInt(FIRST_NAMES.length)],
+                lastNames.get(random.nextInt(lastNames.size())),
+                "SRCH%012d".formatted(i)});
+        }
+
+        jdbcTemplate.batchUpdate("""
+            insert into customer (id, version, created_at, last_modified_at, first_name,
+                last_name, fiscal_code, address)
+            values (?, 0, current_timestamp, current_timestamp, ?, ?, ?, 'Random Road 101')""",
+            rows);
+        return lastNames;
+    }
+
+    /**
+     * Runs {@code search} for each prefix, after running it for all of them once unmeasured,
+     * printing the latency percentiles and returning the median one, in milliseconds.
+     */
+    private static double run(String name, List<String> prefixes, Function<String, ?> search) {
+        prefixes.forEach(search::apply);
+
+        final var latencies = new long[prefixes.size()];
+        for (int i = 0; i < latencies.length; i++) {
+            final long start = System.nanoTime();
+            search.apply(prefixes.get(i));
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+
+        final var p50 = latencies[latencies.length / 2] / 1e6;
+        final var p99 = latencies[latencies.length * 99 / 100] / 1e6;
+        System.out.printf("  %-24s %8.3f ms / %8.3f ms%n", name, p50, p99);
+        return p50;
+    }
+
+    private static double retainedBytes() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,84 @@
+package benchmark;
+
+import static benchmark.BenchmarkDatabase.EPOCH;
+import static benchmark.BenchmarkDatabase.medianMillis;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.nio.file.Path;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.PageRequest;
+
+import io.jacopocav.customercare.model.Customer;
+import io.jacopocav.customercare.repository.CustomerRepository;
+
+/**
+ * Compares the latency of reading a page of customers at increasing depths with an offset and
+ * with the keyset seek of {@code GET /customers}, both with the repository queries, on a
+ * file-based H2 database holding the customer table and its {@code (created_at, id)} index.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark}; {@code -Dbenchmark.rows} sets the size of the table.
+ */
+@Tag("benchmark")
+class CustomerPaginationBenchmark {
+    static final int ROWS = Integer.getInteger("benchmark.rows", 1_000_000);
+    static final int PAGE_SIZE = 50;
+    static final int REPETITIONS = 20;
+    /**
+     * Reads of the first page run once before measuring, until the JIT compiles the JPA path.
+     */
+    static final int JIT_WARM_UP = 10_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void pageLatency() {
+        // without reusing the result of a query run again with the same parameters
+        try (final var database = BenchmarkDatabase.start(directory,
+            ";OPTIMIZE_REUSE_RESULTS=FALSE")) {
+            // a few customers share each instant, like those created by the same batch
+            database.insertCustomers(0, ROWS, UUID::randomUUID,
+                row -> EPOCH.plusNanos(row / 4 * 1000L));
+            final var customers = database.customers();
+            final var firstPage = PageRequest.of(0, PAGE_SIZE);
+            medianMillis(JIT_WARM_UP, 1, () -> customers.findFirstPage(firstPage));
+
+            System.out.printf("%n%d rows, pages of %d, median of %d reads%n",
+                ROWS, PAGE_SIZE, REPETITIONS);
+            double deepestOffset = 0;
+            double deepestKeyset = 0;
+            for (final int depth : new int[] {0, 1000, 10_000, 100_000, ROWS - PAGE_SIZE}) {
+                final var offset = PageRequest.of(depth / PAGE_SIZE, PAGE_SIZE);
+                final var last = lastBefore(customers, depth);
+
+                deepestOffset = medianMillis(0, REPETITIONS, () ->
+                    then(customers.findFirstPage(offset)).hasSize(PAGE_SIZE));
+                deepestKeyset = medianMillis(0, REPETITIONS, () -> then(last == null
+                    ? customers.findFirstPage(firstPage)
+                    : customers.findPageAfter(last.getCreatedAt(), last.getId(), firstPage))
+                    .hasSize(PAGE_SIZE));
+                System.out.printf("  after %,9d rows: offset %8.3f ms, keyset %6.3f ms%n",
+                    depth, deepestOffset, deepestKeyset);
+            }
+
+            then(deepestKeyset).isLessThan(deepestOffset);
+        }
+    }
+
+    /**
+     * Returns the last customer before the page at {@code depth}, whose key is in its cursor.
+     */
+    private static Customer lastBefore(CustomerRepository customers, int depth) {
+        if (depth == 0) {
+            return null;
+        }
+
+        final var found = customers.findFirstPage(PageRequest.of(depth - 1, 1));
+        then(found).hasSize(1);
+        return found.get(0);
+    }
+}
@@ -0,0 +1,64 @@
+package benchmark;
+
+import static benchmark.BenchmarkDatabase.EPOCH;
+import static benchmark.BenchmarkDatabase.fiscalCodeOf;
+import static benchmark.BenchmarkDatabase.medianMillis;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.jacopocav.customercare.model.Customer;
+
+/**
+ * Compares the latency of looking up a customer by fiscal code with the repository query of
+ * {@code GET /customers?fiscalCode=}, with the unique index on the column and after dropping
+ * it, on a file-based H2 database.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark}; {@code -Dbenchmark.rows} sets the size of the table.
+ */
+@Tag("benchmark")
+class FiscalCodeLookupBenchmark {
+    static final int ROWS = Integer.getInteger("benchmark.rows", 1_000_000);
+    static final int REPETITIONS = 50;
+    static final int WARM_UP = 5;
+    /**
+     * Cheap indexed lookups run once before measuring, until the JIT compiles the JPA path.
+     */
+    static final int JIT_WARM_UP = 10_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void lookupLatency() {
+        // without reusing the result of a query run again with the same parameters
+        try (final var database = BenchmarkDatabase.start(directory,
+            ";OPTIMIZE_REUSE_RESULTS=FALSE")) {
+            database.insertCustomers(0, ROWS, UUID::randomUUID, row -> EPOCH);
+
+            final var random = new Random(42);
+            final Runnable lookUp = () -> then(database.customers()
+                .findByFiscalCode(fiscalCodeOf(random.nextInt(ROWS))))
+                .isPresent();
+            System.out.printf("%n%d rows, median of %d lookups of random fiscal codes%n",
+                ROWS, REPETITIONS);
+
+            final var index = medianMillis(JIT_WARM_UP, REPETITIONS, lookUp);
+            System.out.printf("  %-12s %8.3f ms%n", "unique index", index);
+
+            // Hibernate creates the unique index as a constraint
+            database.jdbcTemplate().execute(
+                "alter table customer drop constraint " + Customer.FISCAL_CODE_INDEX);
+            final var scan = medianMillis(WARM_UP, REPETITIONS, lookUp);
+            System.out.printf("  %-12s %8.3f ms%n", "table scan", scan);
+
+            then(index).isLessThan(scan);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package benchmark;
+
+import static benchmark.BenchmarkDatabase.EPOCH;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.FileSystemUtils;
+
+import io.jacopocav.customercare.model.id.UuidV7;
+
+/**
+ * Compares the insert throughput of random and time-ordered UUID primary keys as the customer
+ * table grows, on a file-based H2 database whose page cache is much smaller than the table, like
+ * a production database holding tens of millions of rows.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark}; {@code -Dbenchmark.rows} sets the final size of the
+ * table and {@code -Dbenchmark.cache-kb} the size of the page cache.
+ */
+@Tag("benchmark")
+class IdGenerationBenchmark {
+    static final int ROWS = Integer.getInteger("benchmark.rows", 2_000_000);
+    static final int CACHE_KB = Integer.getInteger("benchmark.cache-kb", 16 * 1024);
+    static final int SLICES = 10;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void insertThroughput() throws Exception {
+        final var uuidV7 = new UuidV7(Clock.systemUTC(), new SecureRandom());
+
+        final var random = run("random UUID", UUID::randomUUID);
+        final var timeOrdered = run("UUIDv7", uuidV7::next);
+
+        System.out.printf("%nlast %d rows: random %.0f rows/s, UUIDv7 %.0f rows/s (%.1fx)%n",
+            ROWS / SLICES, random, timeOrdered, timeOrdered / random);
+        then(timeOrdered).isPositive();
+    }
+
+    /**
+     * Fills a new table with ids from {@code ids}, printing the throughput of each slice, and
+     * returns the throughput of the last one, in rows per second.
+     */
+    private double run(String name, Supplier<UUID> ids) throws Exception {
+        final var directory = Files.createDirectories(
+            this.directory.resolve(name.replace(' ', '-')));
+        final var slice = ROWS / SLICES;
+
+        double throughput = 0;
+        try (final var database = BenchmarkDatabase.start(directory,
+            ";CACHE_SIZE=%d".formatted(CACHE_KB))) {
+            System.out.printf("%n%s, %d rows, %d KB of page cache%n", name, ROWS, CACHE_KB);
+            for (int i = 0; i < SLICES; i++) {
+                final long start = System.nanoTime();
+                database.insertCustomers(i * slice, (i + 1) * slice, ids, row -> EPOCH);
+                final long elapsed = System.nanoTime() - start;
+
+                throughput = slice * 1e9 / elapsed;
+                System.out.printf("  up to %,11d rows: %,9.0f rows/s%n",
+                    slice * (i + 1), throughput);
+            }
+        } finally {
+            FileSystemUtils.deleteRecursively(directory);
+        }
+
+        return throughput;
+    }
+}
@@ -0,0 +1,136 @@
+package benchmark;
+
+import static integration.rest.SampleCustomer.sampleCustomer;
+import static integration.rest.SampleDevice.sampleDevice;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import io.jacopocav.customercare.CustomerCareApplication;
+import io.jacopocav.customercare.dto.CreateCustomerRequest;
+import io.jacopocav.customercare.dto.CreateDeviceRequest;
+import io.jacopocav.customercare.service.CustomerBatchService;
+import io.jacopocav.customercare.service.CustomerCrudService;
+import io.jacopocav.customercare.service.DeviceBatchService;
+import io.jacopocav.customercare.service.DeviceCrudService;
+
+/**
+ * Compares throughput and latency of single creations, each committed by its own transaction,
+ * with the ones grouped by the write batching of the batch services, under many concurrent
+ * callers.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark}; {@code -Dbenchmark.requests} sets the number of
+ * creations of each run and {@code -Dbenchmark.threads} the number of concurrent callers.
+ */
+@Tag("benchmark")
+@ActiveProfiles("test")
+@SpringBootTest(
+    classes = CustomerCareApplication.class,
+    properties = {
+        "customer-care.max-devices-per-customer=1000000",
+        "customer-care.warm-up.enabled=false"
+    })
+class WriteBatchingBenchmark {
+    static final int REQUESTS = Integer.getInteger("benchmark.requests", 50_000);
+    static final int THREADS = Integer.getInteger("benchmark.threads", 64);
+    static final int CUSTOMERS = 1000;
+
+    @Autowired CustomerCrudService customerCrudService;
+    @Autowired CustomerBatchService customerBatchService;
+    @Autowired DeviceCrudService deviceCrudService;
+    @Autowired DeviceBatchService deviceBatchService;
+
+    @Test
+    void createThroughput() throws Exception {
+        final var fiscalCodes = new AtomicInteger();
+        final IntFunction<CreateCustomerRequest> customers = i -> sampleCustomer
+            .withFiscalCode("BNCH%012d".formatted(fiscalCodes.incrementAndGet()))
+            .toCreateRequest();
+        final var owners = new ArrayList<String>();
+        for (int i = 0; i < CUSTOMERS; i++) {
+            owners.add(customerCrudService.create(customers.apply(i)).toString());
+        }
+        final IntFunction<CreateDeviceRequest> devices = i ->
+            sampleDevice.withCustomerId(owners.get(i % CUSTOMERS)).toCreateRequest();
+
+        // warms up the JIT and the connection pool
+        run("warm-up", REQUESTS / 10, customers, customerCrudService::create);
+        run("warm-up", REQUESTS / 10, customers, customerBatchService::create);
+
+        System.out.printf("%n%d creations, %d callers%n", REQUESTS, THREADS);
+        final var single = run("customers, single", REQUESTS, customers,
+            customerCrudService::create);
+        final var batched = run("customers, batched", REQUESTS, customers,
+            customerBatchService::create);
+        run("devices, single", REQUESTS, devices, deviceCrudService::create);
+        run("devices, batched", REQUESTS, devices, deviceBatchService::create);
+
+        then(batched).isPositive();
+        then(single).isPositive();
+    }
+
+    /**
+     * Runs {@code requests} creations from {@link #THREADS} callers, printing throughput and
+     * latency percentiles, and returns the throughput, in creations per second.
+     */
+    private <R> double run(
+        String name,
+        int requests,
+        IntFunction<R> request,
+        Function<R, UUID> create
+    ) throws Exception {
+        final var executor = Executors.newFixedThreadPool(THREADS);
+        final var start = new CountDownLatch(1);
+
+        final var latencies = new ArrayList<Future<Long>>(requests);
+        for (int i = 0; i < requests; i++) {
+            final var next = request.apply(i);
+            final Callable<Long> call = () -> {
+                start.await();
+                final long callStart = System.nanoTime();
+                create.apply(next);
+                return System.nanoTime() - callStart;
+            };
+            latencies.add(executor.submit(call));
+        }
+
+        final long runStart = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        then(executor.awaitTermination(10, MINUTES)).isTrue();
+        final long elapsed = System.nanoTime() - runStart;
+
+        final var sorted = new long[requests];
+        for (int i = 0; i < requests; i++) {
+            sorted[i] = latencies.get(i).get();
+        }
+        Arrays.sort(sorted);
+
+        final double throughput = requests * 1e9 / elapsed;
+        if (!name.equals("warm-up")) {
+            System.out.printf("  %-20s %,9.0f creations/s, latency p50 %6.2f ms, p99 %6.2f ms%n",
+                name, throughput, percentile(sorted, 50), percentile(sorted, 99));
+        }
+        return throughput;
+    }
+
+    private static double percentile(long[] sorted, int percentile) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)] / 1e6;
+    }
+}
@@ -2,12 +2,14 @@ package integration;
 
 import static org.apache.commons.lang3.StringUtils.stripStart;
 import static org.springframework.http.HttpMethod.DELETE;
+import static org.springframework.http.HttpMethod.GET;
 import static org.springframework.http.HttpMethod.PATCH;
 
 import java.net.URI;
 
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 
 public interface RestIntegrationTest {
@@ -28,6 +30,37 @@ public interface RestIntegrationTest {
         return getRest().exchange(uri, PATCH, httpEntity, responseType);
     }
 
+    default <T> ResponseEntity<T> patchIfMatch(
+        URI uri,
+        Object body,
+        String eTag,
+        Class<T> responseType
+    ) {
+        final var headers = new HttpHeaders();
+        headers.setIfMatch(eTag);
+
+        return patchForEntity(uri, new HttpEntity<>(body, headers), responseType);
+    }
+
+    default <T> ResponseEntity<T> postWithIdempotencyKey(
+        URI uri,
+        Object body,
+        String idempotencyKey,
+        Class<T> responseType
+    ) {
+        final var headers = new HttpHeaders();
+        headers.set("Idempotency-Key", idempotencyKey);
+
+        return getRest().postForEntity(uri, new HttpEntity<>(body, headers), responseType);
+    }
+
+    default <T> ResponseEntity<T> getIfNoneMatch(URI uri, String eTag, Class<T> responseType) {
+        final var headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+
+        return getRest().exchange(uri, GET, new HttpEntity<>(headers), responseType);
+    }
+
     default <T> ResponseEntity<T> deleteForEntity(URI uri, Class<T> responseType) {
         return getRest().exchange(uri, DELETE, null, responseType);
     }
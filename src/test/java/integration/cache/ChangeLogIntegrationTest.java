@@ -0,0 +1,133 @@
+package integration.cache;
+
+import static integration.rest.SampleCustomer.sampleCustomer;
+import static integration.rest.SampleDevice.sampleDevice;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import io.jacopocav.customercare.CustomerCareApplication;
+import io.jacopocav.customercare.cache.ChangeLog;
+import io.jacopocav.customercare.error.DeviceLimitReachedException;
+import io.jacopocav.customercare.service.CustomerCrudService;
+import io.jacopocav.customercare.service.DeviceCrudService;
+
+/**
+ * Runs two instances of the application on the same database. Change logs are polled
+ * explicitly by the tests.
+ */
+class ChangeLogIntegrationTest {
+    static Node first;
+    static Node second;
+
+    @BeforeAll
+    static void startNodes() {
+        first = new Node("create-drop");
+        // the schema has been created by the first node
+        second = new Node("none");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        second.context().close();
+        first.context().close();
+    }
+
+    @Test
+    void customerCreatedByOneNode_isFoundByTheOther() {
+        // given
+        final var id = first.customers()
+            .create(sampleCustomer.withUniqueFiscalCode().toCreateRequest())
+            .toString();
+
+        // when
+        final var beforePoll = second.customers().read(id);
+        second.changeLog().poll();
+        final var afterPoll = second.customers().read(id);
+
+        // then
+        then(beforePoll.id()).isEqualTo(id);
+        then(afterPoll.id()).isEqualTo(id);
+    }
+
+    @Test
+    void customerUpdatedByOneNode_isEvictedFromCacheOfTheOther() {
+        // given
+        final var id = first.customers()
+            .create(sampleCustomer.withUniqueFiscalCode().toCreateRequest())
+            .toString();
+        second.changeLog().poll();
+        second.customers().read(id);
+
+        // when
+        first.customers().update(id, sampleCustomer.withAddress("New Road 1").toUpdateRequest());
+        final var beforePoll = second.customers().read(id);
+        second.changeLog().poll();
+        final var afterPoll = second.customers().read(id);
+
+        // then
+        then(beforePoll.address()).isEqualTo(sampleCustomer.address());
+        then(afterPoll.address()).isEqualTo("New Road 1");
+    }
+
+    @Test
+    void deviceDeletedByOneNode_isNotCountedByTheOther() {
+        // given
+        final var customerId =
+            first.customers().create(sampleCustomer.withUniqueFiscalCode().toCreateRequest());
+        final var device = sampleDevice.withCustomerId(customerId.toString()).toCreateRequest();
+        second.changeLog().poll();
+
+        UUID deviceId = null;
+        DeviceLimitReachedException limitReached = null;
+        while (limitReached == null) {
+            try {
+                deviceId = second.devices().create(device);
+            } catch (DeviceLimitReachedException e) {
+                limitReached = e;
+            }
+        }
+
+        // when
+        first.changeLog().poll();
+        first.devices().delete(deviceId.toString());
+        second.changeLog().poll();
+        final var created = second.devices().create(device);
+
+        // then
+        then(limitReached.getCustomerId()).isEqualTo(customerId);
+        then(created).isNotNull();
+    }
+
+    record Node(ConfigurableApplicationContext context) {
+        Node(String ddlAuto) {
+            this(new SpringApplicationBuilder(CustomerCareApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties(
+                    "spring.datasource.url=jdbc:h2:mem:change-log-test",
+                    "spring.jpa.hibernate.ddl-auto=" + ddlAuto,
+                    "customer-care.change-log.poll-interval=1h")
+                .run());
+        }
+
+        CustomerCrudService customers() {
+            return context.getBean(CustomerCrudService.class);
+        }
+
+        DeviceCrudService devices() {
+            return context.getBean(DeviceCrudService.class);
+        }
+
+        ChangeLog changeLog() {
+            return context.getBean(ChangeLog.class);
+        }
+    }
+}
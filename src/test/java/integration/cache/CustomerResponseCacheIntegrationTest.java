@@ -0,0 +1,116 @@
+package integration.cache;
+
+import static integration.rest.SampleCustomer.sampleCustomer;
+import static integration.rest.SampleDevice.sampleDevice;
+import static io.jacopocav.customercare.cache.CacheNames.CUSTOMERS;
+import static org.apache.commons.lang3.StringUtils.substringAfterLast;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+import java.net.URI;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.BDDMockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import integration.RestIntegrationTest;
+import integration.rest.SampleDevice;
+import io.jacopocav.customercare.CustomerCareApplication;
+import io.jacopocav.customercare.dto.ReadCustomerResponse;
+import io.jacopocav.customercare.dto.UpdateCustomerRequest;
+import io.jacopocav.customercare.repository.CustomerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+
+@DirtiesContext
+@ActiveProfiles("test")
+@SpringBootTest(classes = CustomerCareApplication.class, webEnvironment = RANDOM_PORT)
+class CustomerResponseCacheIntegrationTest implements RestIntegrationTest {
+    @Getter
+    @LocalServerPort
+    int port;
+
+    @Getter
+    @Autowired
+    TestRestTemplate rest;
+
+    @Autowired MeterRegistry meterRegistry;
+    @SpyBean CustomerRepository customerRepository;
+
+    @Test
+    void read_hitsRepositoryOnlyOnce_givenCustomerNotChanged() {
+        // given
+        final var id = createCustomer();
+        final var hitsBefore = cacheGets("hit");
+
+        // when
+        final var first = readCustomer(id);
+        final var second = readCustomer(id);
+
+        // then
+        then(second).isEqualTo(first);
+        BDDMockito.then(customerRepository).should(times(1)).findDevicesById(any(), any());
+        then(cacheGets("hit")).isEqualTo(hitsBefore + 1);
+    }
+
+    @Test
+    void read_returnsFreshResponse_afterCustomerOrDeviceChange() {
+        // given
+        final var id = createCustomer();
+        readCustomer(id);
+
+        // when customer is updated
+        patchForEntity(urlOf("/customers/" + id), new UpdateCustomerRequest("New Road 1"),
+            String.class);
+
+        // then
+        then(readCustomer(id).address()).isEqualTo("New Road 1");
+
+        // when device is created
+        final SampleDevice device = sampleDevice.withCustomerId(id.toString());
+        final var deviceId = idOf(rest.postForLocation(urlOf("/devices"), device.toCreateRequest()));
+
+        // then
+        then(readCustomer(id).devices())
+            .isEqualTo(List.of(device.withId(deviceId.toString()).toReadResponse()));
+
+        // when device is deleted
+        deleteForEntity(urlOf("/devices/" + deviceId), String.class);
+
+        // then
+        then(readCustomer(id).devices()).isEmpty();
+    }
+
+    private double cacheGets(String result) {
+        final var counter = meterRegistry.find("cache.gets")
+            .tag("cache", CUSTOMERS)
+            .tag("result", result)
+            .functionCounter();
+
+        then(counter).isNotNull();
+        return counter.count();
+    }
+
+    private UUID createCustomer() {
+        final var customer = sampleCustomer.withUniqueFiscalCode();
+        return idOf(rest.postForLocation(urlOf("/customers"), customer.toCreateRequest()));
+    }
+
+    private ReadCustomerResponse readCustomer(UUID id) {
+        return rest.getForObject(urlOf("/customers/" + id), ReadCustomerResponse.class);
+    }
+
+    private static UUID idOf(URI location) {
+        return UUID.fromString(substringAfterLast(location.getPath(), "/"));
+    }
+}
@@ -0,0 +1,94 @@
+package integration.cache;
+
+import static integration.rest.SampleCustomer.sampleCustomer;
+import static integration.rest.SampleDevice.sampleDevice;
+import static org.apache.commons.lang3.StringUtils.substringAfterLast;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.mockito.Mockito.never;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+import static org.springframework.http.HttpMethod.HEAD;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.OK;
+
+import java.net.URI;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.BDDMockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import integration.RestIntegrationTest;
+import io.jacopocav.customercare.CustomerCareApplication;
+import io.jacopocav.customercare.repository.CustomerRepository;
+import io.jacopocav.customercare.repository.DeviceRepository;
+import lombok.Getter;
+
+@DirtiesContext
+@ActiveProfiles("test")
+@SpringBootTest(classes = CustomerCareApplication.class, webEnvironment = RANDOM_PORT)
+class ExistenceFilterIntegrationTest implements RestIntegrationTest {
+    @Getter
+    @LocalServerPort
+    int port;
+
+    @Getter
+    @Autowired
+    TestRestTemplate rest;
+
+    @SpyBean CustomerRepository customerRepository;
+    @SpyBean DeviceRepository deviceRepository;
+
+    @Test
+    void missingIds_areAnsweredWithoutRepository() {
+        // given
+        final var missingId = UUID.randomUUID();
+
+        // when
+        final var headResponse = head("/devices/" + missingId);
+        final var deviceResponse = rest.getForEntity(urlOf("/devices/" + missingId),
+            String.class);
+        final var customerResponse = rest.getForEntity(urlOf("/customers/" + missingId),
+            String.class);
+
+        // then
+        then(headResponse.getStatusCode()).isEqualTo(NOT_FOUND);
+        then(deviceResponse.getStatusCode()).isEqualTo(NOT_FOUND);
+        then(customerResponse.getStatusCode()).isEqualTo(NOT_FOUND);
+        BDDMockito.then(deviceRepository).should(never()).existsById(missingId);
+        BDDMockito.then(deviceRepository).should(never()).findVersionById(missingId);
+        BDDMockito.then(customerRepository).should(never()).findById(missingId);
+    }
+
+    @Test
+    void createdIds_areFound() {
+        // given
+        final var customerId =
+            idOf(rest.postForLocation(urlOf("/customers"),
+                sampleCustomer.withUniqueFiscalCode().toCreateRequest()));
+        final var device = sampleDevice.withCustomerId(customerId.toString());
+
+        // when
+        final var deviceId =
+            idOf(rest.postForLocation(urlOf("/devices"), device.toCreateRequest()));
+
+        // then
+        then(head("/devices/" + deviceId).getStatusCode()).isEqualTo(OK);
+        then(rest.getForEntity(urlOf("/customers/" + customerId), String.class).getStatusCode())
+            .isEqualTo(OK);
+    }
+
+    private ResponseEntity<Void> head(String resource) {
+        return rest.exchange(urlOf(resource), HEAD, null, Void.class);
+    }
+
+    private static UUID idOf(URI location) {
+        return UUID.fromString(substringAfterLast(location.getPath(), "/"));
+    }
+}
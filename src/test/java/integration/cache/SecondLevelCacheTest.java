@@ -0,0 +1,144 @@
+package integration.cache;
+
+import static integration.rest.SampleCustomer.sampleCustomer;
+import static integration.rest.SampleDevice.sampleDevice;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.util.UUID;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.jacopocav.customercare.CustomerCareApplication;
+import io.jacopocav.customercare.dto.UpdateCustomerRequest;
+import io.jacopocav.customercare.model.Customer;
+import io.jacopocav.customercare.repository.CustomerRepository;
+import io.jacopocav.customercare.repository.DeviceRepository;
+import io.jacopocav.customercare.service.CustomerCrudService;
+import io.jacopocav.customercare.service.DeviceCrudService;
+import jakarta.persistence.EntityManagerFactory;
+
+@DirtiesContext
+@ActiveProfiles("test")
+@SpringBootTest(classes = CustomerCareApplication.class, properties = {
+    "customer-care.second-level-cache.enabled=true",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class SecondLevelCacheTest {
+    @Autowired CustomerCrudService customerService;
+    @Autowired DeviceCrudService deviceService;
+    @Autowired CustomerRepository customerRepository;
+    @Autowired DeviceRepository deviceRepository;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired EntityManagerFactory entityManagerFactory;
+
+    Statistics statistics;
+    UUID customerId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        customerId =
+            customerService.create(sampleCustomer.withUniqueFiscalCode().toCreateRequest());
+    }
+
+    @Test
+    void findById_doesNotQueryDatabase_givenEntityAlreadyCached() {
+        // given
+        final var deviceId = deviceService.create(
+            sampleDevice.withCustomerId(customerId.toString()).toCreateRequest());
+        customerRepository.findById(customerId);
+        deviceRepository.findById(deviceId);
+        statistics.clear();
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            then(customerRepository.findById(customerId)).isPresent();
+            then(deviceRepository.findById(deviceId)).isPresent();
+        }
+
+        // then
+        then(statistics.getPrepareStatementCount()).isZero();
+        then(statistics.getSecondLevelCacheHitCount()).isEqualTo(20);
+    }
+
+    @Test
+    void findById_returnsUpdatedEntity_rightAfterUpdate() {
+        // given
+        customerRepository.findById(customerId);
+
+        // when
+        customerService.update(customerId.toString(), new UpdateCustomerRequest("New Road 3"));
+        statistics.clear();
+
+        final var actual = customerRepository.findById(customerId);
+
+        // then
+        then(actual).get()
+            .extracting(Customer::getAddress, Customer::getVersion)
+            .containsExactly("New Road 3", 1L);
+        // the update statement bypasses the cache, evicting the customer instead
+        then(statistics.getPrepareStatementCount()).isOne();
+    }
+
+    @Test
+    void findById_doesNotQueryDatabase_givenOtherEntitiesUpdatedOrDeleted() {
+        // given
+        final var otherId =
+            customerService.create(sampleCustomer.withUniqueFiscalCode().toCreateRequest());
+        final var deviceId = deviceService.create(
+            sampleDevice.withCustomerId(customerId.toString()).toCreateRequest());
+        final var otherDeviceId = deviceService.create(
+            sampleDevice.withCustomerId(otherId.toString()).toCreateRequest());
+        customerRepository.findById(customerId);
+        deviceRepository.findById(deviceId);
+
+        // when
+        customerService.update(otherId.toString(), new UpdateCustomerRequest("New Road 4"));
+        deviceService.update(otherDeviceId.toString(),
+            sampleDevice.withColor("#0000ff").toUpdateRequest());
+        deviceService.delete(otherDeviceId.toString());
+        customerService.delete(otherId.toString());
+        statistics.clear();
+
+        // then
+        then(customerRepository.findById(customerId)).isPresent();
+        then(deviceRepository.findById(deviceId)).isPresent();
+        then(statistics.getPrepareStatementCount()).isZero();
+        then(customerRepository.findById(otherId)).isEmpty();
+        then(deviceRepository.findById(otherDeviceId)).isEmpty();
+    }
+
+    @Test
+    void devicesCollection_includesNewDevice_rightAfterCreation() {
+        // given
+        then(countDevices()).isZero();
+
+        // when
+        final var deviceId = deviceService.create(
+            sampleDevice.withCustomerId(customerId.toString()).toCreateRequest());
+
+        // then
+        then(countDevices()).isOne();
+
+        // when
+        deviceService.delete(deviceId.toString());
+
+        // then
+        then(countDevices()).isZero();
+    }
+
+    private int countDevices() {
+        final Integer count = transactionTemplate.execute(status ->
+            customerRepository.findById(customerId).orElseThrow().getDevices().size());
+        then(count).isNotNull();
+        return count;
+    }
+}
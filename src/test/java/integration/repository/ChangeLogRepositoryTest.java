@@ -0,0 +1,63 @@
+package integration.repository;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+
+import io.jacopocav.customercare.CustomerCareApplication;
+import io.jacopocav.customercare.event.ChangeType;
+import io.jacopocav.customercare.model.ChangeLogEntry;
+import io.jacopocav.customercare.model.ChangeLogEntry.EntityType;
+import io.jacopocav.customercare.repository.ChangeLogRepository;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@ContextConfiguration(classes = CustomerCareApplication.class)
+class ChangeLogRepositoryTest {
+    @Autowired ChangeLogRepository underTest;
+
+    @Test
+    void insertAll_insertsEntriesInOrder() {
+        // given
+        final long lastId = underTest.findMaxId().orElse(0L);
+        final var origin = UUID.randomUUID();
+        final var entries = List.of(
+            newEntry(UUID.randomUUID(), origin),
+            newEntry(UUID.randomUUID(), origin));
+
+        // when
+        underTest.insertAll(entries);
+
+        // then
+        final var actual = underTest.findByIdGreaterThanOrderById(lastId, Pageable.unpaged());
+
+        then(actual)
+            .extracting(ChangeLogEntry::getEntityId)
+            .containsExactly(entries.get(0).getEntityId(), entries.get(1).getEntityId());
+        then(actual)
+            .allSatisfy(entry -> {
+                then(entry.getOrigin()).isEqualTo(origin);
+                then(entry.getEntityType()).isEqualTo(EntityType.CUSTOMER);
+                then(entry.getChangeType()).isEqualTo(ChangeType.CREATED);
+                then(entry.getEntityVersion()).isZero();
+                then(entry.getCreatedAt()).isNotNull();
+            });
+    }
+
+    private static ChangeLogEntry newEntry(UUID entityId, UUID origin) {
+        return new ChangeLogEntry()
+            .setEntityType(EntityType.CUSTOMER)
+            .setEntityId(entityId)
+            .setEntityVersion(0L)
+            .setChangeType(ChangeType.CREATED)
+            .setOrigin(origin);
+    }
+}
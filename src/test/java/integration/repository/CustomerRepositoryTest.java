@@ -1,7 +1,10 @@
 package integration.repository;
 
+import static java.util.Comparator.comparing;
+import static java.util.Comparator.naturalOrder;
 import static org.assertj.core.api.BDDAssertions.then;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -9,6 +12,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 
@@ -26,7 +30,7 @@ class CustomerRepositoryTest {
     @Autowired TestEntityManager entityManager;
 
     @Test
-    void findFetchingDevicesById_givenNoDeviceIsAssociatedToCustomer() {
+    void findDevicesById_givenNoDeviceIsAssociatedToCustomer() {
         // given
         final var customer = new Customer()
             .setFirstName("Mary")
@@ -35,78 +39,125 @@ class CustomerRepositoryTest {
             .setAddress("Random Road 101");
 
         final var id = entityManager.persistAndGetId(customer, UUID.class);
-        final var expected = new Customer()
-            .setId(id)
-            .setFirstName("Mary")
-            .setLastName("Brown")
-            .setFiscalCode("some fiscal code")
-            .setAddress("Random Road 101");
-
         entityManager.flush();
 
         // when
-        final var actual = underTest.findFetchingDevicesById(id);
+        final var actual = underTest.findDevicesById(id, PageRequest.of(0, 10));
 
         // then
-        then(actual)
-            .get()
-            .usingRecursiveComparison()
-            .ignoringFields("createdAt", "lastModifiedAt")
-            .isEqualTo(expected);
+        then(actual).isEmpty();
     }
 
     @Test
-    void findFetchingDevicesById_givenSomeDeviceIsAssociatedToCustomer() {
+    void findDevicesAfterById_returnsDevicesFollowingKey() {
         // given
-
         final var customer = new Customer()
             .setFirstName("Mary")
             .setLastName("Brown")
             .setFiscalCode("some fiscal code")
             .setAddress("Random Road 101");
+        final var otherCustomer = new Customer()
+            .setFirstName("John")
+            .setLastName("Brown")
+            .setFiscalCode("other code")
+            .setAddress("Random Road 101");
 
-        final var device = new Device()
-            .setColor("red")
+        final var customerId = entityManager.persistAndGetId(customer, UUID.class);
+        entityManager.persist(otherCustomer);
+        entityManager.persist(new Device()
+            .setColor("blue")
             .setStatus(Status.ACTIVE)
-            .setCustomer(customer);
+            .setCustomer(otherCustomer));
+        final var devices = new ArrayList<Device>();
+        for (int i = 0; i < 3; i++) {
+            devices.add(entityManager.persist(new Device()
+                .setColor("red")
+                .setStatus(Status.ACTIVE)
+                .setCustomer(customer)));
+        }
+        entityManager.flush();
+        entityManager.clear();
 
-        final var customerId = entityManager.persistAndGetId(customer, UUID.class);
-        final var expected = new Customer()
-            .setId(customerId)
+        devices.sort(comparing(Device::getCreatedAt).thenComparing(Device::getId));
+
+        // when
+        final var first = underTest.findDevicesById(customerId, PageRequest.of(0, 2));
+        final var last = first.get(1);
+        final var next = underTest.findDevicesAfterById(customerId, last.getCreatedAt(),
+            last.getId(), PageRequest.of(0, 2));
+
+        // then
+        then(first)
+            .extracting(Device::getId)
+            .containsExactly(devices.get(0).getId(), devices.get(1).getId());
+        then(next)
+            .extracting(Device::getId)
+            .containsExactly(devices.get(2).getId());
+    }
+
+    @Test
+    void findRevisionById_aggregatesDevices() {
+        // given
+        final var customer = new Customer()
             .setFirstName("Mary")
             .setLastName("Brown")
             .setFiscalCode("some fiscal code")
-            .setAddress("Random Road 101")
-            .setDevices(List.of(device));
+            .setAddress("Random Road 101");
+        final var empty = new Customer()
+            .setFirstName("John")
+            .setLastName("Brown")
+            .setFiscalCode("other code")
+            .setAddress("Random Road 101");
 
-        entityManager.persistAndFlush(device);
+        final var customerId = entityManager.persistAndGetId(customer, UUID.class);
+        final var emptyId = entityManager.persistAndGetId(empty, UUID.class);
+        final var devices = new ArrayList<Device>();
+        for (int i = 0; i < 2; i++) {
+            devices.add(entityManager.persist(new Device()
+                .setColor("red")
+                .setStatus(Status.ACTIVE)
+                .setCustomer(customer)));
+        }
+        entityManager.flush();
         entityManager.clear();
 
         // when
-        final var actual = underTest.findFetchingDevicesById(customerId);
+        final var actual = underTest.findRevisionById(customerId).orElseThrow();
+        final var actualEmpty = underTest.findRevisionById(emptyId).orElseThrow();
+        final var missing = underTest.findRevisionById(UUID.randomUUID());
 
         // then
-        then(actual)
-            .isPresent();
-
-        final var actualCustomer = actual.get();
-
-        then(actualCustomer)
-            .usingRecursiveComparison()
-            .ignoringFields("devices", "createdAt", "lastModifiedAt")
-            .isEqualTo(expected);
-
-        then(actualCustomer.getDevices())
-            .hasSize(1);
+        then(actual.getCustomerVersion()).isZero();
+        then(actual.getDeviceCount()).isEqualTo(2);
+        then(actual.getMaxDeviceVersion()).isZero();
+        then(actual.getLastDeviceModifiedAt())
+            .isEqualTo(devices.stream().map(Device::getLastModifiedAt).max(naturalOrder()).get());
+        then(actualEmpty.getDeviceCount()).isZero();
+        then(actualEmpty.getMaxDeviceVersion()).isNull();
+        then(actualEmpty.getLastDeviceModifiedAt()).isNull();
+        then(missing).isEmpty();
+    }
 
-        final var actualDevice = actualCustomer.getDevices().get(0);
+    @Test
+    void save_assignsTimeOrderedIds() {
+        // given
+        final var first = new Customer()
+            .setFirstName("Mary")
+            .setLastName("Brown")
+            .setFiscalCode("some fiscal code")
+            .setAddress("Random Road 101");
+        final var second = new Customer()
+            .setFirstName("John")
+            .setLastName("Brown")
+            .setFiscalCode("other code")
+            .setAddress("Random Road 101");
 
-        then(actualDevice)
-            .usingRecursiveComparison()
-            .ignoringFields("customer", "createdAt", "lastModifiedAt")
-            .isEqualTo(device);
+        // when
+        final var firstId = underTest.save(first).getId();
+        final var secondId = underTest.save(second).getId();
 
-        then(actualCustomer)
-            .isSameAs(actualDevice.getCustomer());
+        // then
+        then(firstId.version()).isEqualTo(7);
+        then(secondId).isGreaterThan(firstId);
     }
 }
@@ -0,0 +1,50 @@
+package integration.repository;
+
+import static org.assertj.core.api.BDDAssertions.catchThrowable;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.InstanceOfAssertFactories.type;
+
+import java.util.UUID;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+
+import io.jacopocav.customercare.CustomerCareApplication;
+import io.jacopocav.customercare.model.Device;
+import io.jacopocav.customercare.model.Device.Status;
+import io.jacopocav.customercare.repository.CustomerRepository;
+import io.jacopocav.customercare.repository.DeviceRepository;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@ContextConfiguration(classes = CustomerCareApplication.class)
+class DeviceRepositoryTest {
+    @Autowired DeviceRepository underTest;
+    @Autowired CustomerRepository customerRepository;
+
+    @Test
+    void saveAndFlush_reportsCustomerForeignKey_givenMissingCustomer() {
+        // given
+        final var device = new Device()
+            .setColor("red")
+            .setStatus(Status.ACTIVE)
+            .setCustomer(customerRepository.getReferenceById(UUID.randomUUID()));
+
+        // when
+        final var error = catchThrowable(() -> underTest.saveAndFlush(device));
+
+        // then
+        then(error)
+            .isInstanceOf(DataIntegrityViolationException.class)
+            .extracting(Throwable::getCause)
+            .asInstanceOf(type(ConstraintViolationException.class))
+            .extracting(ConstraintViolationException::getConstraintName)
+            .asString()
+            .containsIgnoringCase(Device.CUSTOMER_FOREIGN_KEY);
+    }
+}
@@ -1,14 +1,24 @@
 package integration.rest;
 
 import static integration.rest.SampleCustomer.sampleCustomer;
+import static integration.rest.SampleDevice.sampleDevice;
 import static org.apache.commons.lang3.StringUtils.substringAfterLast;
 import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.tuple;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+import static org.springframework.http.HttpMethod.GET;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.CREATED;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
 import static org.springframework.http.HttpStatus.OK;
+import static org.springframework.http.HttpStatus.PRECONDITION_FAILED;
+import static org.springframework.http.HttpStatus.UNPROCESSABLE_ENTITY;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 import org.junit.jupiter.api.Test;
@@ -16,12 +26,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ActiveProfiles;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import integration.RestIntegrationTest;
 import io.jacopocav.customercare.CustomerCareApplication;
+import io.jacopocav.customercare.dto.BatchCreateResponse;
+import io.jacopocav.customercare.dto.BatchItemError;
+import io.jacopocav.customercare.dto.CustomerSummaryResponse;
+import io.jacopocav.customercare.dto.ErrorResponse;
+import io.jacopocav.customercare.dto.PageResponse;
 import io.jacopocav.customercare.dto.ReadCustomerResponse;
+import io.jacopocav.customercare.dto.ReadDeviceResponse;
 import io.jacopocav.customercare.dto.UpdateCustomerRequest;
 import lombok.Getter;
 
@@ -37,10 +56,14 @@ class CustomerIntegrationTest implements RestIntegrationTest {
     @Autowired
     TestRestTemplate rest;
 
+    @Autowired
+    ObjectMapper objectMapper;
+
     @Test
     void create() {
         // create customer
-        final ResponseEntity<String> createResponse = createSampleCustomer();
+        final var customer = sampleCustomer.withUniqueFiscalCode();
+        final ResponseEntity<String> createResponse = createCustomer(customer);
 
         then(createResponse.getStatusCode())
             .isEqualTo(CREATED);
@@ -54,13 +77,14 @@ class CustomerIntegrationTest implements RestIntegrationTest {
         final var readResult = readCustomer(id).getBody();
 
         then(readResult)
-            .isEqualTo(sampleCustomer.withId(id.toString()).toReadResponse());
+            .isEqualTo(customer.withId(id.toString()).toReadResponse());
     }
 
     @Test
     void read() {
         // create customer
-        final UUID id = prepareSampleCustomer();
+        final var customer = sampleCustomer.withUniqueFiscalCode();
+        final UUID id = prepareCustomer(customer);
 
         // read non-existing customer
         final var notFoundResponse = readCustomer(UUID.randomUUID());
@@ -74,7 +98,308 @@ class CustomerIntegrationTest implements RestIntegrationTest {
         then(readResponse.getStatusCode())
             .isEqualTo(OK);
         then(readResponse.getBody())
-            .isEqualTo(sampleCustomer.withId(id.toString()).toReadResponse());
+            .isEqualTo(customer.withId(id.toString()).toReadResponse());
+    }
+
+    @Test
+    void create_withIdempotencyKey() {
+        final var key = UUID.randomUUID().toString();
+        final var customer = sampleCustomer.withFiscalCode("IDEM0000000000A1");
+
+        // create customer, then retry
+        final var createResponse = postWithIdempotencyKey(
+            urlOf("/customers"), customer.toCreateRequest(), key, String.class);
+        final var retryResponse = postWithIdempotencyKey(
+            urlOf("/customers"), customer.toCreateRequest(), key, String.class);
+
+        then(createResponse.getStatusCode())
+            .isEqualTo(CREATED);
+        then(retryResponse.getStatusCode())
+            .isEqualTo(CREATED);
+        then(retryResponse.getHeaders().getLocation())
+            .isEqualTo(createResponse.getHeaders().getLocation());
+
+        // reuse key for another customer
+        final var otherCustomer = customer.withFiscalCode("IDEM0000000000A2");
+        final var reuseResponse = postWithIdempotencyKey(
+            urlOf("/customers"), otherCustomer.toCreateRequest(), key, ErrorResponse.class);
+
+        then(reuseResponse.getStatusCode())
+            .isEqualTo(UNPROCESSABLE_ENTITY);
+        then(reuseResponse.getBody())
+            .isNotNull()
+            .extracting(ErrorResponse::summary)
+            .isEqualTo("Idempotency key reused");
+    }
+
+    @Test
+    void create_givenDuplicateFiscalCode() {
+        // create customer
+        final var customer = sampleCustomer.withUniqueFiscalCode();
+        prepareCustomer(customer);
+
+        // create another one with the same fiscal code, in lower case
+        final var duplicate = customer
+            .withFirstName("Bob")
+            .withFiscalCode(customer.fiscalCode().toLowerCase());
+        final var duplicateResponse = rest.postForEntity(
+            urlOf("/customers"), duplicate.toCreateRequest(), ErrorResponse.class);
+
+        then(duplicateResponse.getStatusCode())
+            .isEqualTo(CONFLICT);
+        then(duplicateResponse.getBody())
+            .isNotNull()
+            .extracting(ErrorResponse::summary)
+            .isEqualTo("Duplicate fiscal code");
+    }
+
+    @Test
+    void createAll() {
+        // create customers
+        final var first = sampleCustomer.withFiscalCode("BTCH0000000000A1");
+        final var second = sampleCustomer.withFiscalCode("BTCH0000000000A2");
+        final var invalid = sampleCustomer.withFiscalCode("not a fiscal code");
+        final var body = List.of(
+            first.toCreateRequest(), invalid.toCreateRequest(), second.toCreateRequest());
+
+        final var response =
+            rest.postForEntity(urlOf("/customers/batch"), body, BatchCreateResponse.class);
+
+        then(response.getStatusCode())
+            .isEqualTo(OK);
+
+        final var result = response.getBody();
+        then(result).isNotNull();
+        then(result.ids())
+            .hasSize(3)
+            .element(1).isNull();
+        then(result.errors())
+            .extracting(BatchItemError::index)
+            .containsExactly(1);
+
+        // read created customers
+        final var firstId = result.ids().get(0);
+        final var secondId = result.ids().get(2);
+
+        then(readCustomer(UUID.fromString(firstId)).getBody())
+            .isEqualTo(first.withId(firstId).toReadResponse());
+        then(readCustomer(UUID.fromString(secondId)).getBody())
+            .isEqualTo(second.withId(secondId).toReadResponse());
+    }
+
+    @Test
+    void createAll_givenEmptyBatch() {
+        final var response =
+            rest.postForEntity(urlOf("/customers/batch"), List.of(), String.class);
+
+        then(response.getStatusCode())
+            .isEqualTo(BAD_REQUEST);
+    }
+
+    @Test
+    void read_conditional() {
+        // create customer
+        final UUID id = prepareSampleCustomer();
+
+        // read customer
+        final var eTag = readCustomer(id).getHeaders().getETag();
+
+        then(eTag)
+            .isNotBlank();
+
+        // read unchanged customer
+        final var notModifiedResponse =
+            getIfNoneMatch(urlOf("/customers/" + id), eTag, ReadCustomerResponse.class);
+
+        then(notModifiedResponse.getStatusCode())
+            .isEqualTo(NOT_MODIFIED);
+        then(notModifiedResponse.getHeaders().getETag())
+            .isEqualTo(eTag);
+        then(notModifiedResponse.getBody())
+            .isNull();
+
+        // read updated customer
+        updateCustomer(id, "New Road 5");
+
+        final var modifiedResponse =
+            getIfNoneMatch(urlOf("/customers/" + id), eTag, ReadCustomerResponse.class);
+
+        then(modifiedResponse.getStatusCode())
+            .isEqualTo(OK);
+        then(modifiedResponse.getHeaders().getETag())
+            .isNotBlank()
+            .isNotEqualTo(eTag);
+        then(modifiedResponse.getBody())
+            .isNotNull();
+    }
+
+    @Test
+    void list() {
+        // create customers
+        final var created = List.of(
+            prepareSampleCustomer().toString(),
+            prepareSampleCustomer().toString(),
+            prepareSampleCustomer().toString());
+
+        // list all customers, two by page
+        final var listed = new ArrayList<String>();
+        String cursor = null;
+        do {
+            final var query = cursor == null ? "" : "&cursor=" + cursor;
+            final var page = rest.exchange(urlOf("/customers?size=2" + query), GET, null,
+                new ParameterizedTypeReference<PageResponse<CustomerSummaryResponse>>() {});
+
+            then(page.getStatusCode())
+                .isEqualTo(OK);
+            then(page.getBody().items())
+                .hasSizeLessThanOrEqualTo(2);
+
+            page.getBody().items().forEach(customer -> listed.add(customer.id()));
+            cursor = page.getBody().nextCursor();
+        } while (cursor != null);
+
+        then(listed)
+            .doesNotHaveDuplicates()
+            .containsAll(created);
+
+        // list with an invalid cursor
+        final var invalidCursorResponse =
+            rest.getForEntity(urlOf("/customers?cursor=invalid"), ErrorResponse.class);
+
+        then(invalidCursorResponse.getStatusCode())
+            .isEqualTo(BAD_REQUEST);
+    }
+
+    @Test
+    void listByFiscalCode() {
+        // create customer
+        final var customer = sampleCustomer.withUniqueFiscalCode();
+        final var id = prepareCustomer(customer);
+
+        // look it up by fiscal code, in lower case
+        final var page = rest.exchange(
+            urlOf("/customers?fiscalCode=" + customer.fiscalCode().toLowerCase()), GET, null,
+            new ParameterizedTypeReference<PageResponse<CustomerSummaryResponse>>() {});
+
+        then(page.getStatusCode())
+            .isEqualTo(OK);
+        then(page.getBody().items())
+            .extracting(CustomerSummaryResponse::id, CustomerSummaryResponse::fiscalCode)
+            .containsExactly(tuple(id.toString(), customer.fiscalCode()));
+        then(page.getBody().nextCursor())
+            .isNull();
+
+        // look up a fiscal code without customer
+        final var emptyPage = rest.exchange(
+            urlOf("/customers?fiscalCode=NONE000000000000"), GET, null,
+            new ParameterizedTypeReference<PageResponse<CustomerSummaryResponse>>() {});
+
+        then(emptyPage.getBody().items())
+            .isEmpty();
+
+        // look up an invalid fiscal code
+        final var invalidResponse =
+            rest.getForEntity(urlOf("/customers?fiscalCode=invalid"), ErrorResponse.class);
+
+        then(invalidResponse.getStatusCode())
+            .isEqualTo(BAD_REQUEST);
+    }
+
+    @Test
+    void search() {
+        // create customers, one with an accented name
+        final var customer = sampleCustomer.withUniqueFiscalCode()
+            .withFirstName("Zoë Anne")
+            .withLastName("Quintavalle");
+        final var id = prepareCustomer(customer);
+        final var otherId = prepareCustomer(sampleCustomer.withUniqueFiscalCode()
+            .withFirstName("Zoe")
+            .withLastName("Quintarelli"));
+
+        // search by prefixes of the last name and of a word of the first one
+        then(search("quinta"))
+            .extracting(CustomerSummaryResponse::id)
+            .containsExactly(otherId.toString(), id.toString());
+        then(search("ANN"))
+            .extracting(CustomerSummaryResponse::id, CustomerSummaryResponse::firstName)
+            .containsExactly(tuple(id.toString(), "Zoë Anne"));
+
+        // search after deleting one of them
+        deleteCustomer(otherId);
+
+        then(search("quinta"))
+            .extracting(CustomerSummaryResponse::id)
+            .containsExactly(id.toString());
+
+        // search with a blank name
+        final var invalidResponse =
+            rest.getForEntity(urlOf("/customers/search?name=%20"), ErrorResponse.class);
+
+        then(invalidResponse.getStatusCode())
+            .isEqualTo(BAD_REQUEST);
+    }
+
+    @Test
+    void listDevices() {
+        // create customer with devices
+        final UUID id = prepareSampleCustomer();
+        final var device = sampleDevice.withCustomerId(id.toString());
+        final var deviceIds = List.of(
+            idOf(rest.postForLocation(urlOf("/devices"), device.toCreateRequest())),
+            idOf(rest.postForLocation(urlOf("/devices"), device.toCreateRequest())));
+
+        // list devices, one by page
+        final var first = listDevices(id, "size=1");
+        final var second = listDevices(id, "size=1&cursor=" + first.nextCursor());
+
+        then(first.items())
+            .hasSize(1);
+        then(second.items())
+            .hasSize(1);
+        then(second.nextCursor())
+            .isNull();
+        then(List.of(first.items().get(0), second.items().get(0)))
+            .extracting(ReadDeviceResponse::id)
+            .containsExactlyInAnyOrderElementsOf(deviceIds);
+
+        // list devices of non-existing customer
+        final var notFoundResponse = rest.getForEntity(
+            urlOf("/customers/" + UUID.randomUUID() + "/devices"), ErrorResponse.class);
+
+        then(notFoundResponse.getStatusCode())
+            .isEqualTo(NOT_FOUND);
+    }
+
+    @Test
+    void export() throws Exception {
+        // create customer with device
+        final var customer = sampleCustomer.withUniqueFiscalCode();
+        final UUID id = prepareCustomer(customer);
+        final var device = sampleDevice.withCustomerId(id.toString());
+        final var deviceId =
+            idOf(rest.postForLocation(urlOf("/devices"), device.toCreateRequest()));
+
+        // export all customers
+        final var response = rest.getForEntity(urlOf("/customers/export"), String.class);
+
+        then(response.getStatusCode())
+            .isEqualTo(OK);
+        then(response.getHeaders().getContentType())
+            .hasToString("application/x-ndjson");
+
+        final var exported = new ArrayList<ReadCustomerResponse>();
+        for (final var line : response.getBody().split("\n")) {
+            exported.add(objectMapper.readValue(line, ReadCustomerResponse.class));
+        }
+
+        then(exported)
+            .extracting(ReadCustomerResponse::id)
+            .doesNotHaveDuplicates();
+        then(exported)
+            .contains(customer
+                .withId(id.toString())
+                .withDevices(List.of(device.withId(deviceId)))
+                .toReadResponse());
     }
 
     @Test
@@ -82,8 +407,9 @@ class CustomerIntegrationTest implements RestIntegrationTest {
         // create customer
         final var oldAddress = "Old Road 6";
         final var newAddress = "New Road 4";
-        final UUID id = prepareSampleCustomer(oldAddress);
-        final var expected = sampleCustomer
+        final var customer = sampleCustomer.withUniqueFiscalCode().withAddress(oldAddress);
+        final UUID id = prepareCustomer(customer);
+        final var expected = customer
             .withId(id.toString())
             .withAddress(newAddress)
             .toReadResponse();
@@ -101,6 +427,31 @@ class CustomerIntegrationTest implements RestIntegrationTest {
             .isEqualTo(expected);
     }
 
+    @Test
+    void update_conditional() {
+        // create customer
+        final UUID id = prepareSampleCustomer();
+        final var url = urlOf("/customers/" + id);
+        final var eTag = readCustomer(id).getHeaders().getETag();
+
+        // update customer at the expected revision
+        final var firstUpdate = patchIfMatch(url,
+            new UpdateCustomerRequest("New Road 1"), eTag, String.class);
+
+        then(firstUpdate.getStatusCode())
+            .isEqualTo(OK);
+
+        // update customer at a stale revision
+        final var secondUpdate = patchIfMatch(url,
+            new UpdateCustomerRequest("New Road 2"), eTag, String.class);
+
+        then(secondUpdate.getStatusCode())
+            .isEqualTo(PRECONDITION_FAILED);
+        then(readCustomer(id).getBody())
+            .extracting(ReadCustomerResponse::address)
+            .isEqualTo("New Road 1");
+    }
+
     @Test
     void delete() {
         // create customer
@@ -125,12 +476,34 @@ class CustomerIntegrationTest implements RestIntegrationTest {
             .isEqualTo(NOT_FOUND);
     }
 
+    @Test
+    void delete_cascade() {
+        // create customer with devices
+        final UUID id = prepareSampleCustomer();
+        final var device = sampleDevice.withCustomerId(id.toString()).toCreateRequest();
+        final var deviceLocation = rest.postForLocation(urlOf("/devices"), device);
+        rest.postForLocation(urlOf("/devices"), device);
+
+        // delete customer and devices
+        final var deleteResult =
+            deleteForEntity(urlOf("/customers/" + id + "?cascade=true"), String.class);
+
+        then(deleteResult.getStatusCode())
+            .isEqualTo(OK);
+
+        // read deleted customer and device
+        then(readCustomer(id).getStatusCode())
+            .isEqualTo(NOT_FOUND);
+        then(rest.getForEntity(deviceLocation, String.class).getStatusCode())
+            .isEqualTo(NOT_FOUND);
+    }
+
     private UUID prepareSampleCustomer() {
-        return prepareSampleCustomer(sampleCustomer.address());
+        return prepareCustomer(sampleCustomer.withUniqueFiscalCode());
     }
 
-    private UUID prepareSampleCustomer(String address) {
-        final URI location = createSampleCustomer(address).getHeaders().getLocation();
+    private UUID prepareCustomer(SampleCustomer customer) {
+        final URI location = createCustomer(customer).getHeaders().getLocation();
         then(location).isNotNull();
         return UUID.fromString(substringAfterLast(location.toString(), "/"));
     }
@@ -144,16 +517,34 @@ class CustomerIntegrationTest implements RestIntegrationTest {
         return patchForEntity(urlOf("/customers/" + id), updateRequest, String.class);
     }
 
-    private ResponseEntity<ReadCustomerResponse> readCustomer(UUID id) {
-        return rest.getForEntity(urlOf("/customers/" + id), ReadCustomerResponse.class);
+    private PageResponse<ReadDeviceResponse> listDevices(UUID id, String query) {
+        final var response = rest.exchange(urlOf("/customers/" + id + "/devices?" + query), GET,
+            null, new ParameterizedTypeReference<PageResponse<ReadDeviceResponse>>() {});
+
+        then(response.getStatusCode())
+            .isEqualTo(OK);
+        return response.getBody();
+    }
+
+    private List<CustomerSummaryResponse> search(String name) {
+        final var response = rest.exchange(urlOf("/customers/search?name=" + name), GET, null,
+            new ParameterizedTypeReference<PageResponse<CustomerSummaryResponse>>() {});
+
+        then(response.getStatusCode())
+            .isEqualTo(OK);
+        return response.getBody().items();
+    }
+
+    private static String idOf(URI location) {
+        then(location).isNotNull();
+        return substringAfterLast(location.toString(), "/");
     }
 
-    private ResponseEntity<String> createSampleCustomer() {
-        return createSampleCustomer(sampleCustomer.address());
+    private ResponseEntity<ReadCustomerResponse> readCustomer(UUID id) {
+        return rest.getForEntity(urlOf("/customers/" + id), ReadCustomerResponse.class);
     }
 
-    private ResponseEntity<String> createSampleCustomer(String address) {
-        final var customer = sampleCustomer.withAddress(address).toCreateRequest();
-        return rest.postForEntity(urlOf("/customers"), customer, String.class);
+    private ResponseEntity<String> createCustomer(SampleCustomer customer) {
+        return rest.postForEntity(urlOf("/customers"), customer.toCreateRequest(), String.class);
     }
 }
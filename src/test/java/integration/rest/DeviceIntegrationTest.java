@@ -10,7 +10,9 @@ import static org.springframework.boot.test.context.SpringBootTest.WebEnvironmen
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.CREATED;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
 import static org.springframework.http.HttpStatus.OK;
+import static org.springframework.http.HttpStatus.PRECONDITION_FAILED;
 
 import java.net.URI;
 import java.util.List;
@@ -26,6 +28,8 @@ import org.springframework.test.context.ActiveProfiles;
 
 import integration.RestIntegrationTest;
 import io.jacopocav.customercare.CustomerCareApplication;
+import io.jacopocav.customercare.dto.BatchCreateResponse;
+import io.jacopocav.customercare.dto.BatchItemError;
 import io.jacopocav.customercare.dto.ErrorResponse;
 import io.jacopocav.customercare.dto.ReadCustomerResponse;
 import io.jacopocav.customercare.dto.ReadDeviceResponse;
@@ -80,8 +84,7 @@ class DeviceIntegrationTest implements RestIntegrationTest {
 
         // read created device from customer
         final var readCustomerResponse = readCustomer(owner.id());
-        final var expectedCustomer = sampleCustomer
-            .withId(owner.id())
+        final var expectedCustomer = owner
             .withDevices(List.of(device.withId(deviceId.toString())))
             .toReadResponse();
 
@@ -111,6 +114,66 @@ class DeviceIntegrationTest implements RestIntegrationTest {
             .containsIgnoringCase(owner.id());
     }
 
+    @Test
+    void create_withIdempotencyKey_givenRetriesBeyondLimit() {
+        final var key = UUID.randomUUID().toString();
+
+        // create device, then retry more times than the device limit
+        final var createResponse = postWithIdempotencyKey(
+            urlOf("/devices"), device.toCreateRequest(), key, String.class);
+
+        for (int i = 0; i < deviceLimit; i++) {
+            final var retryResponse = postWithIdempotencyKey(
+                urlOf("/devices"), device.toCreateRequest(), key, String.class);
+
+            then(retryResponse.getStatusCode())
+                .isEqualTo(CREATED);
+            then(retryResponse.getHeaders().getLocation())
+                .isEqualTo(createResponse.getHeaders().getLocation());
+        }
+
+        // the retries did not create devices
+        then(readCustomer(owner.id()).devices())
+            .hasSize(1);
+    }
+
+    @Test
+    void createAll() {
+        // prepare one device, then create more than the remaining ones
+        addSampleDevice();
+        final var missingOwner = device.withCustomerId(UUID.randomUUID().toString());
+        final var body = List.of(
+            device.toCreateRequest(),
+            device.toCreateRequest(),
+            device.toCreateRequest(),
+            missingOwner.toCreateRequest());
+
+        final var response =
+            rest.postForEntity(urlOf("/devices/batch"), body, BatchCreateResponse.class);
+
+        then(response.getStatusCode())
+            .isEqualTo(OK);
+
+        final var result = response.getBody();
+        then(result).isNotNull();
+        then(result.ids())
+            .hasSize(4)
+            .satisfies(ids -> then(ids.subList(0, deviceLimit - 1)).doesNotContainNull())
+            .satisfies(ids -> then(ids.subList(deviceLimit - 1, 4)).containsOnlyNulls());
+        then(result.errors())
+            .extracting(BatchItemError::index)
+            .containsExactly(2, 3);
+        then(result.errors())
+            .extracting(error -> error.error().summary())
+            .containsExactly("Device limit reached", "Customer not found");
+
+        // read created device
+        final var createdId = result.ids().get(0);
+
+        then(readDevice(createdId))
+            .isEqualTo(device.withId(createdId).toReadResponse());
+    }
+
     @Test
     void read_singleDevice() {
         // prepare device
@@ -155,8 +218,7 @@ class DeviceIntegrationTest implements RestIntegrationTest {
         final var readResponse =
             rest.getForEntity(urlOf("/customers/" + device.customerId()),
                 ReadCustomerResponse.class);
-        final var expected = sampleCustomer
-            .withId(device.customerId())
+        final var expected = owner
             .withDevices(List.of(device))
             .toReadResponse();
 
@@ -166,6 +228,51 @@ class DeviceIntegrationTest implements RestIntegrationTest {
             .isEqualTo(expected);
     }
 
+    @Test
+    void read_conditional() {
+        prepareSampleDevice();
+
+        // read device and owner
+        final var deviceUrl = urlOf("/devices/" + device.id());
+        final var customerUrl = urlOf("/customers/" + owner.id());
+        final var deviceETag =
+            rest.getForEntity(deviceUrl, ReadDeviceResponse.class).getHeaders().getETag();
+        final var customerETag =
+            rest.getForEntity(customerUrl, ReadCustomerResponse.class).getHeaders().getETag();
+
+        then(deviceETag)
+            .isNotBlank();
+
+        // read unchanged device
+        final var notModifiedResponse =
+            getIfNoneMatch(deviceUrl, deviceETag, ReadDeviceResponse.class);
+
+        then(notModifiedResponse.getStatusCode())
+            .isEqualTo(NOT_MODIFIED);
+        then(notModifiedResponse.getBody())
+            .isNull();
+
+        // update device
+        patchForEntity(deviceUrl, device.withStatus("lost").toUpdateRequest(), String.class);
+
+        // read updated device and owner
+        final var modifiedResponse =
+            getIfNoneMatch(deviceUrl, deviceETag, ReadDeviceResponse.class);
+        final var modifiedCustomerResponse =
+            getIfNoneMatch(customerUrl, customerETag, ReadCustomerResponse.class);
+
+        then(modifiedResponse.getStatusCode())
+            .isEqualTo(OK);
+        then(modifiedResponse.getHeaders().getETag())
+            .isNotEqualTo(deviceETag);
+        then(modifiedResponse.getBody())
+            .isEqualTo(device.withStatus("lost").toReadResponse());
+        then(modifiedCustomerResponse.getStatusCode())
+            .isEqualTo(OK);
+        then(modifiedCustomerResponse.getHeaders().getETag())
+            .isNotEqualTo(customerETag);
+    }
+
     @Test
     void update() {
         prepareSampleDevice();
@@ -192,8 +299,7 @@ class DeviceIntegrationTest implements RestIntegrationTest {
 
         // read updated device through customer
         final var customerResponse = readCustomer(owner.id());
-        final var expectedCustomer = sampleCustomer
-            .withId(owner.id())
+        final var expectedCustomer = owner
             .withDevices(List.of(sampleAfterUpdate))
             .toReadResponse();
 
@@ -221,8 +327,7 @@ class DeviceIntegrationTest implements RestIntegrationTest {
 
         // read deleted device through customer
         final var readCustomer = readCustomer(owner.id());
-        final var expected = sampleCustomer
-            .withId(owner.id())
+        final var expected = owner
             .withDevices(List.of())
             .toReadResponse();
 
@@ -237,6 +342,30 @@ class DeviceIntegrationTest implements RestIntegrationTest {
             .isEqualTo(NOT_FOUND);
     }
 
+    @Test
+    void update_conditional() {
+        prepareSampleDevice();
+
+        final var url = urlOf("/devices/" + device.id());
+        final var eTag = rest.getForEntity(url, ReadDeviceResponse.class).getHeaders().getETag();
+
+        // update device at the expected revision
+        final var lost = device.withStatus("lost").toUpdateRequest();
+        final var firstUpdate = patchIfMatch(url, lost, eTag, String.class);
+
+        then(firstUpdate.getStatusCode())
+            .isEqualTo(OK);
+
+        // update device at a stale revision
+        final var inactive = device.withStatus("inactive").toUpdateRequest();
+        final var secondUpdate = patchIfMatch(url, inactive, eTag, String.class);
+
+        then(secondUpdate.getStatusCode())
+            .isEqualTo(PRECONDITION_FAILED);
+        then(readDevice(device.id()))
+            .isEqualTo(device.withStatus("lost").toReadResponse());
+    }
+
     private ReadDeviceResponse readDevice(String id) {
         return rest.getForObject(urlOf("/devices/" + id), ReadDeviceResponse.class);
     }
@@ -256,9 +385,10 @@ class DeviceIntegrationTest implements RestIntegrationTest {
     }
 
     private SampleCustomer prepareSampleCustomer() {
+        final var customer = sampleCustomer.withUniqueFiscalCode();
         final URI location =
-            rest.postForLocation(urlOf("/customers"), sampleCustomer.toCreateRequest());
-        return sampleCustomer.withId(getIdFromLocation(location).toString());
+            rest.postForLocation(urlOf("/customers"), customer.toCreateRequest());
+        return customer.withId(getIdFromLocation(location).toString());
     }
 
     private static UUID getIdFromLocation(URI location) {
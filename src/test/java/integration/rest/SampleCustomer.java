@@ -1,6 +1,7 @@
 package integration.rest;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import io.jacopocav.customercare.dto.CreateCustomerRequest;
 import io.jacopocav.customercare.dto.ReadCustomerResponse;
@@ -19,12 +20,21 @@ public record SampleCustomer(
     public static final SampleCustomer sampleCustomer =
         new SampleCustomer(null, "Alice", "Bobsworth", "ALCBBS58T92C234P", "Default Road 0",
             List.of());
+    private static final AtomicInteger fiscalCodes = new AtomicInteger();
+
+    /**
+     * Returns a copy with a fiscal code that no other copy has, since fiscal codes are unique.
+     */
+    public SampleCustomer withUniqueFiscalCode() {
+        return withFiscalCode("ALCBBS%010d".formatted(fiscalCodes.incrementAndGet()));
+    }
 
     public ReadCustomerResponse toReadResponse() {
         return new ReadCustomerResponse(id, firstName, lastName, fiscalCode, address,
             devices.stream()
                 .map(SampleDevice::toReadResponse)
-                .toList());
+                .toList(),
+            null);
     }
 
     public CreateCustomerRequest toCreateRequest() {
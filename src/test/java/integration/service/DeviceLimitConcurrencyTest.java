@@ -0,0 +1,94 @@
+package integration.service;
+
+import static integration.rest.SampleCustomer.sampleCustomer;
+import static integration.rest.SampleDevice.sampleDevice;
+import static integration.service.DeviceLimitConcurrencyTest.deviceLimit;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import io.jacopocav.customercare.CustomerCareApplication;
+import io.jacopocav.customercare.dto.CreateDeviceRequest;
+import io.jacopocav.customercare.error.DeviceLimitReachedException;
+import io.jacopocav.customercare.repository.DeviceRepository;
+import io.jacopocav.customercare.service.CustomerCrudService;
+import io.jacopocav.customercare.service.DeviceBatchService;
+import io.jacopocav.customercare.service.DeviceCrudService;
+
+@ActiveProfiles("test")
+@SpringBootTest(
+    classes = CustomerCareApplication.class,
+    properties = "customer-care.max-devices-per-customer=" + deviceLimit
+)
+class DeviceLimitConcurrencyTest {
+    static final int deviceLimit = 5;
+    static final int requests = 300;
+    static final int threads = 32;
+
+    @Autowired CustomerCrudService customerCrudService;
+    @Autowired DeviceCrudService deviceCrudService;
+    @Autowired DeviceBatchService deviceBatchService;
+    @Autowired DeviceRepository deviceRepository;
+
+    @Test
+    void create_neverExceedsLimit_givenConcurrentRequestsForSameCustomer() throws Exception {
+        then(createConcurrently(deviceCrudService::create)).isEqualTo(deviceLimit);
+    }
+
+    @Test
+    void createBatched_neverExceedsLimit_givenConcurrentRequestsForSameCustomer()
+        throws Exception {
+        then(createConcurrently(deviceBatchService::create)).isEqualTo(deviceLimit);
+    }
+
+    /**
+     * Creates devices of a new customer concurrently, returning the number of them that were
+     * created.
+     */
+    private int createConcurrently(Consumer<CreateDeviceRequest> creation) throws Exception {
+        final var customerId =
+            customerCrudService.create(sampleCustomer.withUniqueFiscalCode().toCreateRequest());
+        final var request = sampleDevice.withCustomerId(customerId.toString()).toCreateRequest();
+
+        final var executor = Executors.newFixedThreadPool(threads);
+        final var start = new CountDownLatch(1);
+        final Callable<Boolean> create = () -> {
+            start.await();
+            try {
+                creation.accept(request);
+                return true;
+            } catch (DeviceLimitReachedException e) {
+                return false;
+            }
+        };
+
+        final var results = new ArrayList<Future<Boolean>>();
+        for (int i = 0; i < requests; i++) {
+            results.add(executor.submit(create));
+        }
+        start.countDown();
+        executor.shutdown();
+        executor.awaitTermination(1, MINUTES);
+
+        int created = 0;
+        for (final var result : results) {
+            if (result.get()) {
+                created++;
+            }
+        }
+
+        then(deviceRepository.countByCustomerId(customerId)).isEqualTo(created);
+        return created;
+    }
+}
@@ -0,0 +1,94 @@
+package unit.cache;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.data.domain.PageRequest;
+
+import io.jacopocav.customercare.cache.CacheWarmUp;
+import io.jacopocav.customercare.dto.ReadCustomerResponse;
+import io.jacopocav.customercare.dto.ReadDeviceResponse;
+import io.jacopocav.customercare.dto.Revisioned;
+import io.jacopocav.customercare.error.CustomerNotFoundException;
+import io.jacopocav.customercare.repository.CustomerRepository;
+import io.jacopocav.customercare.repository.DeviceRepository;
+import io.jacopocav.customercare.service.CustomerCrudService;
+import io.jacopocav.customercare.service.DeviceCrudService;
+
+@ExtendWith(MockitoExtension.class)
+class CacheWarmUpTest {
+    static final int CUSTOMERS = 10;
+
+    @Mock CustomerRepository customerRepository;
+    @Mock DeviceRepository deviceRepository;
+    @Mock CustomerCrudService customerCrudService;
+    @Mock DeviceCrudService deviceCrudService;
+
+    @Test
+    void run_loadsRecentlyModifiedCustomersAndTheirDevices() throws Exception {
+        // given
+        final var customerId = UUID.randomUUID();
+        final var deletedCustomerId = UUID.randomUUID();
+        final var device = new ReadDeviceResponse("device-id", "", "", customerId.toString());
+        final var customer = new ReadCustomerResponse(customerId.toString(), "", "", "", "",
+            List.of(device), null);
+
+        given(customerRepository.findRecentlyModifiedIds(PageRequest.ofSize(CUSTOMERS)))
+            .willReturn(List.of(deletedCustomerId, customerId));
+        willThrow(new CustomerNotFoundException(deletedCustomerId))
+            .given(customerCrudService).readRevisioned(deletedCustomerId.toString());
+        given(customerCrudService.readRevisioned(customerId.toString()))
+            .willReturn(new Revisioned<>("abc", customer));
+
+        // when
+        underTest(Duration.ofSeconds(5)).run(new DefaultApplicationArguments());
+
+        // then
+        BDDMockito.then(deviceCrudService).should().readJson("device-id");
+        BDDMockito.then(deviceRepository).should().countByCustomerId(any());
+    }
+
+    @Test
+    void run_returns_givenTimeBudgetExceeded() throws Exception {
+        // given
+        final var interrupted = new CountDownLatch(1);
+
+        given(customerRepository.findRecentlyModifiedIds(any()))
+            .will(invocation -> {
+                try {
+                    Thread.sleep(Long.MAX_VALUE);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return List.of();
+            });
+
+        // when
+        final var start = System.nanoTime();
+        underTest(Duration.ofMillis(100)).run(new DefaultApplicationArguments());
+        final var elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // then
+        then(elapsed).isLessThan(Duration.ofSeconds(5));
+        then(interrupted.await(5, SECONDS)).isTrue();
+    }
+
+    private CacheWarmUp underTest(Duration timeBudget) {
+        return new CacheWarmUp(customerRepository, deviceRepository, customerCrudService,
+            deviceCrudService, CUSTOMERS, timeBudget);
+    }
+}
@@ -0,0 +1,221 @@
+package unit.cache;
+
+import static io.jacopocav.customercare.event.ChangeType.CREATED;
+import static io.jacopocav.customercare.event.ChangeType.DELETED;
+import static io.jacopocav.customercare.event.ChangeType.UPDATED;
+import static io.jacopocav.customercare.model.ChangeLogEntry.EntityType.CUSTOMER;
+import static io.jacopocav.customercare.model.ChangeLogEntry.EntityType.DEVICE;
+import static org.assertj.core.api.BDDAssertions.and;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.jacopocav.customercare.cache.CustomerNameIndex;
+import io.jacopocav.customercare.cache.CustomerResponseCache;
+import io.jacopocav.customercare.cache.DefaultChangeLog;
+import io.jacopocav.customercare.cache.ExistenceFilter;
+import io.jacopocav.customercare.cache.StaleResponseStore;
+import io.jacopocav.customercare.event.ChangeType;
+import io.jacopocav.customercare.event.DeviceChangedEvent;
+import io.jacopocav.customercare.model.ChangeLogEntry;
+import io.jacopocav.customercare.model.ChangeLogEntry.EntityType;
+import io.jacopocav.customercare.repository.ChangeLogRepository;
+import jakarta.persistence.EntityManagerFactory;
+
+@ExtendWith(MockitoExtension.class)
+@SuppressWarnings("AccessStaticViaInstance")
+class DefaultChangeLogTest {
+    static final long LAST_ID = 42;
+
+    @Mock ChangeLogRepository repository;
+    @Mock CustomerResponseCache responseCache;
+    @Mock ExistenceFilter existenceFilter;
+    @Mock CustomerNameIndex nameIndex;
+    @Mock StaleResponseStore staleResponseStore;
+    @Mock EntityManagerFactory entityManagerFactory;
+    @Mock SessionFactory sessionFactory;
+    @Mock Cache secondLevelCache;
+
+    DefaultChangeLog underTest;
+
+    @BeforeEach
+    void setUp() {
+        given(repository.findMaxId())
+            .willReturn(Optional.of(LAST_ID));
+        given(entityManagerFactory.unwrap(SessionFactory.class))
+            .willReturn(sessionFactory);
+        given(sessionFactory.getCache())
+            .willReturn(secondLevelCache);
+
+        underTest = new DefaultChangeLog(repository, responseCache, existenceFilter,
+            nameIndex, staleResponseStore, entityManagerFactory, Duration.ofSeconds(1), 2,
+            Duration.ofMinutes(1), Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        underTest.destroy();
+    }
+
+    @Test
+    void poll_appliesChangesOfOtherInstances() {
+        // given
+        final var customerId = UUID.randomUUID();
+        final var deviceId = UUID.randomUUID();
+
+        given(repository.findByIdGreaterThanOrderById(eq(LAST_ID), any()))
+            .willReturn(List.of(entry(LAST_ID + 1, DEVICE, deviceId, customerId, CREATED)));
+
+        // when
+        underTest.poll();
+
+        // then
+        then(existenceFilter).should().add(deviceId);
+        then(responseCache).should().evict(customerId);
+        then(staleResponseStore).should().evict(customerId);
+        then(secondLevelCache).should()
+            .evictCollectionData(any(), eq(customerId));
+    }
+
+    @Test
+    void poll_evictsLastKnownResponses_givenChangesOfOtherInstances() {
+        // given
+        final var customerId = UUID.randomUUID();
+        final var deviceId = UUID.randomUUID();
+        final var otherCustomerId = UUID.randomUUID();
+
+        given(repository.findByIdGreaterThanOrderById(eq(LAST_ID), any()))
+            .willReturn(List.of(entry(LAST_ID + 1, DEVICE, deviceId, customerId, UPDATED),
+                entry(LAST_ID + 2, CUSTOMER, otherCustomerId, null, DELETED)));
+
+        // when
+        underTest.poll();
+
+        // then
+        then(staleResponseStore).should().evict(deviceId);
+        then(staleResponseStore).should().evict(customerId);
+        then(staleResponseStore).should().evict(otherCustomerId);
+    }
+
+    @Test
+    void poll_updatesNameIndex_givenCustomersCreatedOrDeletedByOtherInstances() {
+        // given
+        final var createdIds = List.of(UUID.randomUUID(), UUID.randomUUID());
+        final var deletedId = UUID.randomUUID();
+
+        given(repository.findByIdGreaterThanOrderById(eq(LAST_ID), any()))
+            .willReturn(List.of(entry(LAST_ID + 1, CUSTOMER, createdIds.get(0), null, CREATED),
+                entry(LAST_ID + 2, CUSTOMER, deletedId, null, DELETED)));
+        given(repository.findByIdGreaterThanOrderById(eq(LAST_ID + 2), any()))
+            .willReturn(List.of(entry(LAST_ID + 3, CUSTOMER, createdIds.get(1), null, CREATED)));
+
+        // the list of ids is reused by each batch
+        final var loaded = new ArrayList<List<UUID>>();
+        willAnswer(invocation -> loaded.add(List.copyOf(invocation.getArgument(0))))
+            .given(nameIndex).load(any());
+
+        // when
+        underTest.poll();
+
+        // then
+        and.then(loaded).containsExactly(List.of(createdIds.get(0)), List.of(createdIds.get(1)));
+        then(nameIndex).should().remove(deletedId);
+    }
+
+    @Test
+    void poll_skipsChangesOfThisInstance() {
+        // given
+        final var event = new DeviceChangedEvent(UUID.randomUUID(), UUID.randomUUID(), UPDATED);
+        underTest.append(event, 1L);
+
+        final var appended = ArgumentCaptor.forClass(ChangeLogEntry.class);
+        then(repository).should().save(appended.capture());
+
+        given(repository.findByIdGreaterThanOrderById(eq(LAST_ID), any()))
+            .willReturn(List.of(appended.getValue().setId(LAST_ID + 1)));
+
+        // when
+        underTest.poll();
+
+        // then
+        then(responseCache).shouldHaveNoInteractions();
+        then(existenceFilter).shouldHaveNoInteractions();
+    }
+
+    @Test
+    void poll_readsAllNewEntries_givenMoreThanBatchSize() {
+        // given
+        final var ids = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+
+        given(repository.findByIdGreaterThanOrderById(eq(LAST_ID), any()))
+            .willReturn(List.of(entry(LAST_ID + 1, CUSTOMER, ids.get(0), null, UPDATED),
+                entry(LAST_ID + 2, CUSTOMER, ids.get(1), null, UPDATED)));
+        given(repository.findByIdGreaterThanOrderById(eq(LAST_ID + 2), any()))
+            .willReturn(List.of(entry(LAST_ID + 3, CUSTOMER, ids.get(2), null, UPDATED)));
+
+        // when
+        underTest.poll();
+
+        // then
+        ids.forEach(id -> then(responseCache).should().evict(id));
+    }
+
+    @Test
+    void poll_readsSkippedIdsAgain_untilTheyAreCommitted() {
+        // given
+        final var lateId = UUID.randomUUID();
+
+        given(repository.findByIdGreaterThanOrderById(eq(LAST_ID), any()))
+            .willReturn(List.of(entry(LAST_ID + 2, CUSTOMER, UUID.randomUUID(), null, CREATED)));
+        given(repository.findAllById(Set.of(LAST_ID + 1)))
+            .willReturn(List.of())
+            .willReturn(List.of(entry(LAST_ID + 1, CUSTOMER, lateId, null, CREATED)));
+
+        // when
+        underTest.poll();
+        underTest.poll();
+        underTest.poll();
+
+        // then
+        then(existenceFilter).should().add(lateId);
+        then(repository).should(never()).findByIdGreaterThanOrderById(eq(LAST_ID + 1), any());
+        then(repository).should(times(2)).findAllById(any());
+    }
+
+    private static ChangeLogEntry entry(
+        long id,
+        EntityType entityType,
+        UUID entityId,
+        UUID customerId,
+        ChangeType changeType
+    ) {
+        return new ChangeLogEntry()
+            .setId(id)
+            .setEntityType(entityType)
+            .setEntityId(entityId)
+            .setCustomerId(customerId)
+            .setChangeType(changeType)
+            .setOrigin(UUID.randomUUID());
+    }
+}
@@ -0,0 +1,228 @@
+package unit.cache;
+
+import static io.jacopocav.customercare.event.ChangeType.DELETED;
+import static io.jacopocav.customercare.event.ChangeType.UPDATED;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.mockito.BDDMockito.given;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.jacopocav.customercare.cache.DefaultCustomerNameIndex;
+import io.jacopocav.customercare.event.CustomerChangedEvent;
+import io.jacopocav.customercare.event.CustomersCreatedEvent;
+import io.jacopocav.customercare.repository.CustomerNameRow;
+import io.jacopocav.customercare.repository.CustomerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class DefaultCustomerNameIndexTest {
+    static final int MAX_PENDING_CHANGES = 3;
+
+    @Mock CustomerRepository repository;
+    SimpleMeterRegistry meterRegistry;
+
+    DefaultCustomerNameIndex underTest;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new DefaultCustomerNameIndex(repository, meterRegistry, MAX_PENDING_CHANGES);
+    }
+
+    @Test
+    void search_matchesPrefixOfAnyWord_ignoringCaseAndAccents() {
+        // given
+        final var jose = new CustomerNameRow(UUID.randomUUID(), "José", "García Márquez");
+        final var john = new CustomerNameRow(UUID.randomUUID(), "John", "Doe");
+        final var mary = new CustomerNameRow(UUID.randomUUID(), "Mary-Ann", "O'Brien");
+
+        given(repository.streamAllNames())
+            .willReturn(Stream.of(jose, john, mary));
+
+        // when
+        underTest.load();
+
+        // then
+        then(underTest.search("JO", 10)).containsExactly(john.id(), jose.id());
+        then(underTest.search("garcia m", 10)).containsExactly(jose.id());
+        then(underTest.search("marq", 10)).containsExactly(jose.id());
+        then(underTest.search("ann", 10)).containsExactly(mary.id());
+        then(underTest.search("o brien", 10)).containsExactly(mary.id());
+        then(underTest.search("brown", 10)).isEmpty();
+        then(underTest.search(" - ", 10)).isEmpty();
+    }
+
+    @Test
+    void search_returnsEachCustomerOnce_upToLimit() {
+        // given
+        final var anna = new CustomerNameRow(UUID.randomUUID(), "Anna", "Annis");
+        final var andrew = new CustomerNameRow(UUID.randomUUID(), "Andrew", "Smith");
+        final var angela = new CustomerNameRow(UUID.randomUUID(), "Angela", "Jones");
+
+        given(repository.streamAllNames())
+            .willReturn(Stream.of(anna, andrew, angela));
+
+        // when
+        underTest.load();
+
+        // then
+        then(underTest.search("an", 10)).containsExactly(andrew.id(), angela.id(), anna.id());
+        then(underTest.search("an", 2)).containsExactly(andrew.id(), angela.id());
+    }
+
+    @Test
+    void addAll_makesCustomersSearchable_beforeAndAfterLoad() {
+        // given
+        final var early = new CustomerNameRow(UUID.randomUUID(), "Marco", "Bianchi");
+        final var loaded = new CustomerNameRow(UUID.randomUUID(), "Mario", "Rossi");
+        final var late = new CustomerNameRow(UUID.randomUUID(), "Marta", "Verdi");
+        final var other = new CustomerNameRow(UUID.randomUUID(), "Luca", "Neri");
+
+        given(repository.streamAllNames())
+            .willReturn(Stream.of(loaded));
+
+        // when
+        underTest.addAll(List.of(early));
+        final var beforeLoad = underTest.search("mar", 10);
+        underTest.load();
+        underTest.addAll(List.of(late, other));
+
+        // then
+        then(beforeLoad).containsExactly(early.id());
+        then(underTest.search("mar", 10)).containsExactly(early.id(), loaded.id(), late.id());
+        then(underTest.search("luca", 10)).containsExactly(other.id());
+    }
+
+    @Test
+    void addAll_addsAllCustomers_givenMoreThanMaxPendingChanges() {
+        // given
+        final var customers = Stream.generate(() -> new CustomerNameRow(
+            UUID.randomUUID(), "Sara", "Costa")).limit(MAX_PENDING_CHANGES * 2).toList();
+
+        given(repository.streamAllNames())
+            .willReturn(Stream.empty());
+        underTest.load();
+
+        // when
+        underTest.addAll(customers);
+
+        // then
+        then(meterRegistry.get("customer-care.name-index.entries").gauge().value())
+            .isEqualTo(customers.size() * 2);
+        then(underTest.search("sara", 10))
+            .containsExactlyInAnyOrderElementsOf(customers.stream()
+                .map(CustomerNameRow::id)
+                .toList());
+    }
+
+    @Test
+    void remove_hidesCustomer_givenRemovedBeforeOrAfterLoad() {
+        // given
+        final var before = new CustomerNameRow(UUID.randomUUID(), "Luca", "Neri");
+        final var after = new CustomerNameRow(UUID.randomUUID(), "Luigi", "Gialli");
+        final var kept = new CustomerNameRow(UUID.randomUUID(), "Lucia", "Blu");
+
+        given(repository.streamAllNames())
+            .willReturn(Stream.of(before, after, kept));
+
+        // when
+        underTest.remove(before.id());
+        underTest.load();
+        underTest.remove(after.id());
+
+        // then
+        then(underTest.search("lu", 10)).containsExactly(kept.id());
+    }
+
+    @Test
+    void on_removesDeletedCustomers_only() {
+        // given
+        final var deleted = new CustomerNameRow(UUID.randomUUID(), "Luca", "Neri");
+        final var updated = new CustomerNameRow(UUID.randomUUID(), "Luigi", "Gialli");
+
+        given(repository.streamAllNames())
+            .willReturn(Stream.of(deleted, updated));
+        underTest.load();
+
+        // when
+        underTest.on(new CustomerChangedEvent(deleted.id(), DELETED));
+        underTest.on(new CustomerChangedEvent(updated.id(), UPDATED));
+
+        // then
+        then(underTest.search("lu", 10)).containsExactly(updated.id());
+    }
+
+    @Test
+    void on_addsCreatedCustomers() {
+        // given
+        final var created = new CustomerNameRow(UUID.randomUUID(), "Paolo", "Conte");
+
+        // when
+        underTest.on(new CustomersCreatedEvent(List.of(created)));
+
+        // then
+        then(underTest.search("paolo", 10)).containsExactly(created.id());
+    }
+
+    @Test
+    void search_recordsLatency() {
+        // when
+        underTest.search("mar", 10);
+        underTest.search("lu", 10);
+
+        // then
+        then(meterRegistry.get("customer-care.name-index.search").timer().count())
+            .isEqualTo(2);
+    }
+
+    @Test
+    void load_addsNamesOfGivenIds() {
+        // given
+        final var row = new CustomerNameRow(UUID.randomUUID(), "Paolo", "Conte");
+
+        given(repository.findNamesByIds(Set.of(row.id())))
+            .willReturn(List.of(row));
+
+        // when
+        underTest.load(Set.of(row.id()));
+
+        // then
+        then(underTest.search("conte", 10)).containsExactly(row.id());
+    }
+
+    @Test
+    void compaction_keepsResults_andDropsRemovedEntries() {
+        // given
+        final var ids = Stream.generate(UUID::randomUUID).limit(4).toList();
+
+        given(repository.streamAllNames())
+            .willReturn(Stream.empty());
+        underTest.load();
+
+        // when
+        // with two entries for each customer, the second and third additions compact the index
+        ids.subList(0, 2).forEach(this::addSara);
+        ids.subList(0, 2).forEach(underTest::remove);
+        ids.subList(2, 4).forEach(this::addSara);
+
+        // then
+        then(underTest.search("sara", 10)).containsExactlyInAnyOrderElementsOf(ids.subList(2, 4));
+        then(meterRegistry.get("customer-care.name-index.entries").gauge().value())
+            .isEqualTo(4);
+        then(meterRegistry.get("customer-care.name-index.size").gauge().value())
+            .isPositive();
+    }
+
+    private void addSara(UUID id) {
+        underTest.addAll(List.of(new CustomerNameRow(id, "Sara", "Costa")));
+    }
+}
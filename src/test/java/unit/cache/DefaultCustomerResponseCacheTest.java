@@ -0,0 +1,187 @@
+package unit.cache;
+
+import static io.jacopocav.customercare.cache.CacheNames.CUSTOMERS;
+import static io.jacopocav.customercare.event.ChangeType.CREATED;
+import static io.jacopocav.customercare.event.ChangeType.DELETED;
+import static io.jacopocav.customercare.event.ChangeType.UPDATED;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import io.jacopocav.customercare.cache.DefaultCustomerResponseCache;
+import io.jacopocav.customercare.dto.ReadCustomerResponse;
+import io.jacopocav.customercare.dto.Revisioned;
+import io.jacopocav.customercare.event.CustomerChangedEvent;
+import io.jacopocav.customercare.event.DeviceChangedEvent;
+
+class DefaultCustomerResponseCacheTest {
+    final UUID id = UUID.randomUUID();
+    final Revisioned<ReadCustomerResponse> response = new Revisioned<>("abc",
+        new ReadCustomerResponse(id.toString(), "John", "Doe", "XXX", "Some Road 1", List.of(),
+            null));
+    final AtomicInteger loads = new AtomicInteger();
+    final Supplier<Revisioned<ReadCustomerResponse>> loader = () -> {
+        loads.incrementAndGet();
+        return response;
+    };
+
+    DefaultCustomerResponseCache underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new DefaultCustomerResponseCache(new ConcurrentMapCacheManager(CUSTOMERS));
+    }
+
+    @Test
+    void get_callsLoaderOnlyOnMiss() {
+        // when
+        final var first = underTest.get(id, loader);
+        final var second = underTest.get(id, loader);
+
+        // then
+        then(first).isEqualTo(response);
+        then(second).isSameAs(first);
+        then(loads).hasValue(1);
+    }
+
+    @Test
+    void get_doesNotCacheResult_givenEvictionDuringLoad() {
+        // when
+        underTest.get(id, () -> {
+            underTest.evict(id);
+            return loader.get();
+        });
+        underTest.get(id, loader);
+
+        // then
+        then(loads).hasValue(2);
+    }
+
+    @Test
+    void on_customerChanged_evictsUpdatedAndDeletedCustomers() {
+        // given
+        underTest.get(id, loader);
+
+        // when
+        underTest.on(new CustomerChangedEvent(id, CREATED));
+        underTest.get(id, loader);
+        underTest.on(new CustomerChangedEvent(id, UPDATED));
+        underTest.get(id, loader);
+        underTest.on(new CustomerChangedEvent(id, DELETED));
+        underTest.get(id, loader);
+
+        // then
+        then(loads).hasValue(3);
+    }
+
+    @Test
+    void on_deviceChanged_evictsOwningCustomer() {
+        // given
+        final var otherId = UUID.randomUUID();
+        underTest.get(id, loader);
+        underTest.get(otherId, loader);
+
+        // when
+        underTest.on(new DeviceChangedEvent(UUID.randomUUID(), id, CREATED));
+        underTest.get(id, loader);
+        underTest.get(otherId, loader);
+
+        // then
+        then(loads).hasValue(3);
+    }
+
+    @Test
+    void get_doesNotCacheStaleResponses() {
+        // given
+        final Supplier<Revisioned<ReadCustomerResponse>> staleLoader = () -> {
+            loads.incrementAndGet();
+            return response.staleSince(Instant.now());
+        };
+
+        // when
+        final var first = underTest.get(id, staleLoader);
+        final var second = underTest.get(id, loader);
+
+        // then
+        then(first.isStale()).isTrue();
+        then(second).isEqualTo(response);
+        then(loads).hasValue(2);
+    }
+
+    @Test
+    void get_sharesLoad_givenConcurrentMisses() throws Exception {
+        // given
+        final var loadStarted = new CountDownLatch(1);
+        final var releaseLoad = new CountDownLatch(1);
+        final Supplier<Revisioned<ReadCustomerResponse>> blockingLoader = () -> {
+            loadStarted.countDown();
+            awaitUninterruptibly(releaseLoad);
+            return loader.get();
+        };
+        final var executor = Executors.newFixedThreadPool(2);
+
+        try {
+            // when
+            final var first = executor.submit(() -> underTest.get(id, blockingLoader));
+            then(loadStarted.await(5, SECONDS)).isTrue();
+            final var second = executor.submit(() -> underTest.get(id, blockingLoader));
+            Thread.sleep(100);
+            releaseLoad.countDown();
+
+            // then
+            then(first.get(5, SECONDS)).isEqualTo(response);
+            then(second.get(5, SECONDS)).isEqualTo(response);
+            then(loads).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void get_doesNotShareLoad_givenEvictionAfterLoadStarted() throws Exception {
+        // given
+        final var loadStarted = new CountDownLatch(1);
+        final var releaseLoad = new CountDownLatch(1);
+        final var executor = Executors.newSingleThreadExecutor();
+
+        try {
+            final var first = executor.submit(() -> underTest.get(id, () -> {
+                loadStarted.countDown();
+                awaitUninterruptibly(releaseLoad);
+                return loader.get();
+            }));
+            then(loadStarted.await(5, SECONDS)).isTrue();
+
+            // when
+            underTest.evict(id);
+            underTest.get(id, loader);
+            releaseLoad.countDown();
+            first.get(5, SECONDS);
+
+            // then
+            then(loads).hasValue(2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            then(latch.await(5, SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
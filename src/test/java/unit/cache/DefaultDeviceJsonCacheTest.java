@@ -0,0 +1,52 @@
+package unit.cache;
+
+import static io.jacopocav.customercare.cache.CacheNames.DEVICE_JSON;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.jacopocav.customercare.cache.DefaultDeviceJsonCache;
+import io.jacopocav.customercare.dto.ReadDeviceResponse;
+
+class DefaultDeviceJsonCacheTest {
+    final ObjectMapper objectMapper = new ObjectMapper();
+    DefaultDeviceJsonCache underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new DefaultDeviceJsonCache(new ConcurrentMapCacheManager(DEVICE_JSON),
+            objectMapper);
+    }
+
+    @Test
+    void put_returnsSerializedResponse() throws Exception {
+        // given
+        final var id = UUID.randomUUID();
+        final var response = new ReadDeviceResponse(id.toString(), "ACTIVE", "#aabbcc", "x");
+
+        // when
+        final byte[] actual = underTest.put(id, 0, response);
+
+        // then
+        then(objectMapper.readValue(actual, ReadDeviceResponse.class)).isEqualTo(response);
+    }
+
+    @Test
+    void get_returnsJsonOnlyForCachedVersion() {
+        // given
+        final var id = UUID.randomUUID();
+        final var response = new ReadDeviceResponse(id.toString(), "ACTIVE", "#aabbcc", "x");
+        final byte[] expected = underTest.put(id, 3, response);
+
+        // when/then
+        then(underTest.get(id, 3)).isSameAs(expected);
+        then(underTest.get(id, 4)).isNull();
+        then(underTest.get(UUID.randomUUID(), 3)).isNull();
+    }
+}
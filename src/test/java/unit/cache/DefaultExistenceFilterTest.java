@@ -0,0 +1,162 @@
+package unit.cache;
+
+import static io.jacopocav.customercare.event.ChangeType.CREATED;
+import static io.jacopocav.customercare.event.ChangeType.DELETED;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.mockito.BDDMockito.given;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.jacopocav.customercare.cache.DefaultExistenceFilter;
+import io.jacopocav.customercare.event.CustomerChangedEvent;
+import io.jacopocav.customercare.event.DeviceChangedEvent;
+import io.jacopocav.customercare.model.id.UuidV7;
+import io.jacopocav.customercare.repository.CustomerRepository;
+import io.jacopocav.customercare.repository.DeviceRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class DefaultExistenceFilterTest {
+    static final double FALSE_POSITIVE_RATE = 0.01;
+    static final Duration POLL_INTERVAL = Duration.ofSeconds(1);
+    static final Duration GAP_TIMEOUT = Duration.ofMinutes(1);
+
+    @Mock CustomerRepository customerRepository;
+    @Mock DeviceRepository deviceRepository;
+    SimpleMeterRegistry meterRegistry;
+
+    DefaultExistenceFilter underTest;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new DefaultExistenceFilter(customerRepository, deviceRepository,
+            meterRegistry, 100, FALSE_POSITIVE_RATE, POLL_INTERVAL, GAP_TIMEOUT);
+    }
+
+    @Test
+    void mightExist_returnsTrue_givenIdsNotLoadedYet() {
+        // when
+        final var actual = underTest.mightExist(UUID.randomUUID());
+
+        // then
+        then(actual).isTrue();
+    }
+
+    @Test
+    void mightExist_returnsTrueForLoadedIds_andFalseForMostOtherIds() {
+        // given
+        final var customerIds = randomIds(50);
+        final var deviceIds = randomIds(50);
+
+        given(customerRepository.findAllIds())
+            .willReturn(customerIds.stream());
+        given(deviceRepository.findAllIds())
+            .willReturn(deviceIds.stream());
+
+        // when
+        underTest.load();
+
+        // then
+        then(customerIds).allMatch(underTest::mightExist);
+        then(deviceIds).allMatch(underTest::mightExist);
+        then(observedFalsePositiveRate()).isLessThan(FALSE_POSITIVE_RATE * 2);
+    }
+
+    @Test
+    void mightExist_returnsTrue_givenTimeOrderedIdGeneratedWithinPollIntervalAndGapTimeout() {
+        // given
+        final var now = Instant.now();
+        final var recent = idGeneratedAt(now.minusSeconds(30));
+        final var old = idGeneratedAt(now.minus(POLL_INTERVAL.plus(GAP_TIMEOUT)).minusSeconds(1));
+        givenNoExistingIds();
+
+        // when
+        underTest.load();
+
+        // then
+        then(underTest.mightExist(recent)).isTrue();
+        then(underTest.mightExist(old)).isFalse();
+    }
+
+    @Test
+    void add_keepsFalsePositiveRate_givenCapacityExceeded() {
+        // given
+        final var ids = randomIds(5_000);
+        givenNoExistingIds();
+
+        // when
+        underTest.load();
+        ids.forEach(underTest::add);
+
+        // then
+        then(ids).allMatch(underTest::mightExist);
+        then(observedFalsePositiveRate()).isLessThan(FALSE_POSITIVE_RATE * 2);
+        then(meterRegistry.get("customer-care.existence-filter.insertions").gauge().value())
+            .isEqualTo(5_000);
+        then(meterRegistry.get("customer-care.existence-filter.false-positive-rate").gauge().value())
+            .isLessThan(FALSE_POSITIVE_RATE);
+        then(meterRegistry.get("customer-care.existence-filter.size").gauge().value())
+            .isPositive();
+    }
+
+    @Test
+    void on_addsCreatedIds() {
+        // given
+        final var customerId = UUID.randomUUID();
+        final var deviceId = UUID.randomUUID();
+        final var deletedId = UUID.randomUUID();
+        givenNoExistingIds();
+        underTest.load();
+
+        // when
+        underTest.on(new CustomerChangedEvent(customerId, CREATED));
+        underTest.on(new DeviceChangedEvent(deviceId, customerId, CREATED));
+        underTest.on(new CustomerChangedEvent(deletedId, DELETED));
+
+        // then
+        then(underTest.mightExist(customerId)).isTrue();
+        then(underTest.mightExist(deviceId)).isTrue();
+        then(underTest.mightExist(deletedId)).isFalse();
+    }
+
+    private void givenNoExistingIds() {
+        given(customerRepository.findAllIds())
+            .willReturn(Stream.empty());
+        given(deviceRepository.findAllIds())
+            .willReturn(Stream.empty());
+    }
+
+    private double observedFalsePositiveRate() {
+        final var lookups = 10_000;
+        final var falsePositives = randomIds(lookups).stream()
+            .filter(underTest::mightExist)
+            .count();
+
+        return (double) falsePositives / lookups;
+    }
+
+    private static UUID idGeneratedAt(Instant instant) {
+        return new UuidV7(Clock.fixed(instant, ZoneOffset.UTC), new Random()).next();
+    }
+
+    private static List<UUID> randomIds(int count) {
+        return Stream.generate(UUID::randomUUID)
+            .limit(count)
+            .collect(toList());
+    }
+}
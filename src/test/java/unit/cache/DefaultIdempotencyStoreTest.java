@@ -0,0 +1,238 @@
+package unit.cache;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.BDDAssertions.catchThrowable;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.lenient;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.jacopocav.customercare.cache.DefaultIdempotencyStore;
+import io.jacopocav.customercare.dto.UpdateCustomerRequest;
+import io.jacopocav.customercare.error.IdempotencyKeyReusedException;
+import io.jacopocav.customercare.model.IdempotentCreation;
+import io.jacopocav.customercare.repository.IdempotentCreationRepository;
+
+@ExtendWith(MockitoExtension.class)
+class DefaultIdempotencyStoreTest {
+    final UpdateCustomerRequest request = new UpdateCustomerRequest("Some Road 101");
+    final AtomicInteger creations = new AtomicInteger();
+    /**
+     * Rows of the table, by key.
+     */
+    final Map<String, IdempotentCreation> rows = new ConcurrentHashMap<>();
+    /**
+     * Keys inserted by the current transaction: not found by other ones, and deleted from
+     * {@link #rows} on rollback.
+     */
+    final Set<String> uncommitted = ConcurrentHashMap.newKeySet();
+
+    @Mock IdempotentCreationRepository repository;
+    @Mock PlatformTransactionManager transactionManager;
+
+    DefaultIdempotencyStore underTest;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(repository.findById(anyString()))
+            .thenAnswer(invocation -> Optional.ofNullable(rows.get(invocation.getArgument(0)))
+                .filter(row -> !uncommitted.contains(row.getIdempotencyKey())));
+        lenient().when(repository.saveAndFlush(any()))
+            .thenAnswer(invocation -> {
+                final IdempotentCreation row = invocation.getArgument(0);
+                if (rows.putIfAbsent(row.getIdempotencyKey(), row) != null) {
+                    throw new DataIntegrityViolationException("duplicate key");
+                }
+                uncommitted.add(row.getIdempotencyKey());
+                return row;
+            });
+        lenient().doAnswer(invocation -> {
+            uncommitted.clear();
+            return null;
+        }).when(transactionManager).commit(any());
+        lenient().doAnswer(invocation -> {
+            uncommitted.forEach(rows::remove);
+            uncommitted.clear();
+            return null;
+        }).when(transactionManager).rollback(any());
+
+        underTest = new DefaultIdempotencyStore(repository, new ObjectMapper(),
+            transactionManager, Duration.ofDays(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        underTest.destroy();
+    }
+
+    @Test
+    void create_returnsFirstResult_givenSameKeyAndRequest() {
+        // given
+        final var first = underTest.create("key", request, this::newId);
+
+        // when
+        final var actual = underTest.create("key", request, this::newId);
+
+        // then
+        then(actual).isEqualTo(first);
+        then(creations).hasValue(1);
+    }
+
+    @Test
+    void create_throws_givenSameKeyAndDifferentRequest() {
+        // given
+        underTest.create("key", request, this::newId);
+
+        // when
+        final var actual = catchThrowable(() -> underTest.create("key",
+            new UpdateCustomerRequest("Another Road 202"), this::newId));
+
+        // then
+        then(actual).isInstanceOf(IdempotencyKeyReusedException.class);
+        then(creations).hasValue(1);
+    }
+
+    @Test
+    void create_createsAgain_givenFailedCreation() {
+        // given
+        final var error = new IllegalStateException("failed");
+        catchThrowable(() -> underTest.create("key", request, () -> {
+            throw error;
+        }));
+
+        // when
+        underTest.create("key", request, this::newId);
+
+        // then
+        then(creations).hasValue(1);
+    }
+
+    @Test
+    void create_returnsStoredId_givenKeyStoredByAnotherInstance() {
+        // given
+        final var first = underTest.create("key", request, this::newId);
+        final var other = new DefaultIdempotencyStore(repository, new ObjectMapper(),
+            transactionManager, Duration.ofDays(1));
+
+        // when
+        final var actual = other.create("key", request, this::newId);
+
+        // then
+        then(actual).isEqualTo(first);
+        then(creations).hasValue(1);
+    }
+
+    @Test
+    void create_returnsStoredIdWithoutCreating_givenKeyInsertedByAnotherInstanceConcurrently() {
+        // given
+        final var storedId = underTest.create("key", request, this::newId);
+        // the other instance read no key, then its insert waited for this one and failed
+        final var other = new DefaultIdempotencyStore(repository, new ObjectMapper(),
+            transactionManager, Duration.ofDays(1));
+        given(repository.findById("key"))
+            .willReturn(Optional.empty(), Optional.empty(), Optional.of(rows.get("key")));
+
+        // when
+        final var actual = other.create("key", request, this::newId);
+
+        // then
+        then(actual).isEqualTo(storedId);
+        then(creations).hasValue(1);
+    }
+
+    @Test
+    void create_storesKeyBeforeCreating() {
+        // when
+        underTest.create("key", request, () -> {
+            then(rows).containsKey("key");
+            return newId();
+        });
+
+        // then
+        then(rows.get("key").getCreatedId()).isNotNull();
+    }
+
+    @Test
+    void create_createsOnce_givenConcurrentRequestsWithSameKey() throws Exception {
+        // given
+        final var threads = 8;
+        final var executor = Executors.newFixedThreadPool(threads);
+        final var start = new CountDownLatch(1);
+
+        // when
+        final var results = new ArrayList<Future<UUID>>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return underTest.create("key", request, this::slowNewId);
+            }));
+        }
+        start.countDown();
+        executor.shutdown();
+
+        // then
+        then(executor.awaitTermination(5, SECONDS)).isTrue();
+        then(creations).hasValue(1);
+        for (final var result : results) {
+            then(result.get()).isEqualTo(results.get(0).get());
+        }
+    }
+
+    @Test
+    void start_deletesKeysOlderThanRetention() throws Exception {
+        // given
+        final var deleted = new CountDownLatch(1);
+        given(repository.deleteCreatedBefore(any()))
+            .willAnswer(invocation -> {
+                then(invocation.getArgument(0, LocalDateTime.class))
+                    .isBefore(LocalDateTime.now().minusHours(23));
+                deleted.countDown();
+                return 0;
+            });
+
+        // when
+        underTest.start();
+
+        // then
+        then(deleted.await(5, SECONDS)).isTrue();
+    }
+
+    private UUID newId() {
+        creations.incrementAndGet();
+        return UUID.randomUUID();
+    }
+
+    private UUID slowNewId() {
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return newId();
+    }
+}
@@ -0,0 +1,294 @@
+package unit.cache;
+
+import static io.jacopocav.customercare.cache.CacheNames.STALE_RESPONSES;
+import static io.jacopocav.customercare.event.ChangeType.CREATED;
+import static io.jacopocav.customercare.event.ChangeType.DELETED;
+import static io.jacopocav.customercare.event.ChangeType.UPDATED;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.BDDAssertions.catchThrowable;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import io.jacopocav.customercare.cache.DefaultStaleResponseStore;
+import io.jacopocav.customercare.dto.Revisioned;
+import io.jacopocav.customercare.error.CustomerNotFoundException;
+import io.jacopocav.customercare.event.CustomerChangedEvent;
+import io.jacopocav.customercare.event.DeviceChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DefaultStaleResponseStoreTest {
+    final UUID id = UUID.randomUUID();
+    final Revisioned<String> lastKnown = new Revisioned<>("1", "last known");
+    final Revisioned<String> fresh = new Revisioned<>("2", "fresh");
+    final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    SimpleMeterRegistry meterRegistry;
+    DefaultStaleResponseStore underTest;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new DefaultStaleResponseStore(new ConcurrentMapCacheManager(STALE_RESPONSES),
+            meterRegistry, transactionManager, Duration.ofSeconds(2), Duration.ofMillis(50), 2000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        underTest.destroy();
+    }
+
+    @Test
+    void read_returnsFreshResponse_givenReaderSucceeds() {
+        // given
+        underTest.read(id, () -> lastKnown);
+
+        // when
+        final var actual = underTest.read(id, () -> fresh);
+
+        // then
+        then(actual).isEqualTo(fresh);
+        then(actual.isStale()).isFalse();
+    }
+
+    @Test
+    void read_throws_givenReaderFailsWithoutLastKnownResponse() {
+        // given
+        final var error = new DataAccessResourceFailureException("database down");
+
+        // when
+        final var actual = catchThrowable(() -> underTest.read(id, () -> {
+            throw error;
+        }));
+
+        // then
+        then(actual).isSameAs(error);
+    }
+
+    @Test
+    void read_servesLastKnownResponse_andRefreshesIt_givenDataAccessFailure() throws Exception {
+        // given
+        underTest.read(id, () -> lastKnown);
+        final var attempts = new AtomicInteger();
+        final var refreshed = new CountDownLatch(1);
+        final Supplier<Revisioned<String>> failingOnce = () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new DataAccessResourceFailureException("database down");
+            }
+            refreshed.countDown();
+            return fresh;
+        };
+
+        // when
+        final var actual = underTest.read(id, failingOnce);
+
+        // then
+        then(actual.content()).isEqualTo(lastKnown.content());
+        then(actual.revision()).isEqualTo(lastKnown.revision());
+        then(actual.isStale()).isTrue();
+        then(meterRegistry.get("customer-care.stale-responses.served").counter().count())
+            .isEqualTo(1);
+
+        // and then
+        then(refreshed.await(5, SECONDS)).isTrue();
+        then(underTest.read(id, () -> fresh)).isEqualTo(fresh);
+    }
+
+    @Test
+    void read_readsInReadOnlyTransactionWithTimeout_givenLastKnownResponse() {
+        // given
+        underTest.read(id, () -> lastKnown);
+
+        // when
+        underTest.read(id, () -> fresh);
+
+        // then
+        final var definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager).getTransaction(definition.capture());
+        then(definition.getValue().isReadOnly()).isTrue();
+        then(definition.getValue().getTimeout()).isEqualTo(2);
+    }
+
+    @Test
+    void read_servesLastKnownResponse_givenReadTimesOut() {
+        // given
+        underTest.read(id, () -> lastKnown);
+
+        // when
+        final var actual = underTest.read(id, () -> {
+            throw new QueryTimeoutException("statement timed out");
+        });
+
+        // then
+        then(actual.content()).isEqualTo(lastKnown.content());
+        then(actual.isStale()).isTrue();
+    }
+
+    @Test
+    void read_neverServesLastKnownResponse_givenManyConcurrentReads() throws Exception {
+        // given
+        final int readers = 32;
+        underTest.read(id, () -> lastKnown);
+        // every read waits for all the others to be in progress
+        final var allReading = new CyclicBarrier(readers);
+        final Supplier<Revisioned<String>> slowRead = () -> {
+            try {
+                allReading.await(5, SECONDS);
+            } catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+                throw new IllegalStateException(e);
+            }
+            return fresh;
+        };
+
+        // when
+        final var executor = Executors.newFixedThreadPool(readers);
+        final var results = new ArrayList<Future<Revisioned<String>>>();
+        try {
+            for (int i = 0; i < readers; i++) {
+                results.add(executor.submit(() -> underTest.read(id, slowRead)));
+            }
+
+            // then
+            for (final var result : results) {
+                then(result.get(10, SECONDS)).isEqualTo(fresh);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        then(meterRegistry.get("customer-care.stale-responses.served").counter().count())
+            .isZero();
+    }
+
+    @Test
+    void on_evictsLastKnownResponses_givenCommittedChanges() {
+        // given
+        final var customerId = UUID.randomUUID();
+        final var deviceId = UUID.randomUUID();
+        final var createdId = UUID.randomUUID();
+        for (final var known : new UUID[] {id, customerId, deviceId, createdId}) {
+            underTest.read(known, () -> lastKnown);
+        }
+
+        // when
+        underTest.on(new CustomerChangedEvent(id, UPDATED));
+        underTest.on(new DeviceChangedEvent(deviceId, customerId, DELETED));
+        underTest.on(new CustomerChangedEvent(createdId, CREATED));
+
+        // then
+        for (final var evicted : new UUID[] {id, customerId, deviceId}) {
+            then(catchThrowable(() -> underTest.read(evicted, () -> {
+                throw new DataAccessResourceFailureException("database down");
+            }))).isInstanceOf(DataAccessResourceFailureException.class);
+        }
+        then(underTest.read(createdId, () -> {
+            throw new DataAccessResourceFailureException("database down");
+        }).isStale()).isTrue();
+    }
+
+    @Test
+    void new_throws_givenConnectionTimeoutLongerThanReadTimeout() {
+        // when
+        final var actual = catchThrowable(() -> new DefaultStaleResponseStore(
+            new ConcurrentMapCacheManager(STALE_RESPONSES), meterRegistry, transactionManager,
+            Duration.ofSeconds(2), Duration.ofMillis(50), 30_000));
+
+        // then
+        then(actual).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void readRevision_returnsFreshRevision_givenReaderSucceeds() {
+        // given
+        underTest.read(id, () -> lastKnown);
+
+        // when
+        final var actual = underTest.readRevision(id, fresh::revision);
+
+        // then
+        then(actual).isEqualTo(fresh.revision());
+    }
+
+    @Test
+    void readRevision_returnsLastKnownRevision_givenDataAccessFailure() {
+        // given
+        underTest.read(id, () -> lastKnown);
+
+        // when
+        final var actual = underTest.readRevision(id, () -> {
+            throw new DataAccessResourceFailureException("database down");
+        });
+
+        // then
+        then(actual).isEqualTo(lastKnown.revision());
+        then(meterRegistry.get("customer-care.stale-responses.served").counter().count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    void readRevision_throws_givenDataAccessFailureWithoutLastKnownResponse() {
+        // given
+        final var error = new DataAccessResourceFailureException("database down");
+
+        // when
+        final var actual = catchThrowable(() -> underTest.readRevision(id, () -> {
+            throw error;
+        }));
+
+        // then
+        then(actual).isSameAs(error);
+    }
+
+    @Test
+    void evict_forgetsLastKnownResponse() {
+        // given
+        underTest.read(id, () -> lastKnown);
+
+        // when
+        underTest.evict(id);
+
+        // then
+        then(catchThrowable(() -> underTest.readRevision(id, () -> {
+            throw new DataAccessResourceFailureException("database down");
+        }))).isInstanceOf(DataAccessResourceFailureException.class);
+    }
+
+    @Test
+    void read_forgetsLastKnownResponse_givenResourceNotFound() {
+        // given
+        underTest.read(id, () -> lastKnown);
+        final var error = new CustomerNotFoundException(id);
+
+        // when
+        final var actual = catchThrowable(() -> underTest.read(id, () -> {
+            throw error;
+        }));
+
+        // then
+        then(actual).isSameAs(error);
+        then(catchThrowable(() -> underTest.read(id, () -> {
+            throw new DataAccessResourceFailureException("database down");
+        }))).isInstanceOf(DataAccessResourceFailureException.class);
+    }
+}
@@ -0,0 +1,117 @@
+package unit.cache;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.BDDAssertions.catchThrowable;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.jacopocav.customercare.cache.SingleFlight;
+
+class SingleFlightTest {
+    static final int CALLERS = 8;
+
+    final AtomicInteger loads = new AtomicInteger();
+    final CountDownLatch loadStarted = new CountDownLatch(1);
+    final CountDownLatch releaseLoad = new CountDownLatch(1);
+
+    SingleFlight<String, String> underTest;
+    ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new SingleFlight<>();
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseLoad.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void load_sharesInFlightLoad_givenConcurrentCallersForSameKey() throws Exception {
+        // given
+        final var leader = executor.submit(() -> underTest.load("key", this::blockingLoad));
+        then(loadStarted.await(5, SECONDS)).isTrue();
+
+        // when
+        final var followers = new ArrayList<Future<String>>();
+        for (int i = 1; i < CALLERS; i++) {
+            followers.add(executor.submit(() -> underTest.load("key", this::blockingLoad)));
+        }
+        Thread.sleep(100);
+        releaseLoad.countDown();
+
+        // then
+        then(leader.get(5, SECONDS)).isEqualTo("value 1");
+        for (final var follower : followers) {
+            then(follower.get(5, SECONDS)).isEqualTo("value 1");
+        }
+        then(loads).hasValue(1);
+    }
+
+    @Test
+    void load_propagatesExceptionToAllCallers() throws Exception {
+        // given
+        final var error = new IllegalStateException("load failed");
+        final var leader = executor.submit(() -> underTest.load("key", () -> {
+            blockingLoad();
+            throw error;
+        }));
+        then(loadStarted.await(5, SECONDS)).isTrue();
+
+        // when
+        final var follower = executor.submit(() -> underTest.load("key", this::blockingLoad));
+        Thread.sleep(100);
+        releaseLoad.countDown();
+
+        // then
+        for (final var future : List.of(leader, follower)) {
+            final var actual = catchThrowable(() -> future.get(5, SECONDS));
+            then(actual).hasCause(error);
+        }
+        then(loads).hasValue(1);
+    }
+
+    @Test
+    void load_startsNewLoad_afterPreviousOneCompleted() {
+        // given
+        releaseLoad.countDown();
+
+        // when
+        final var first = underTest.load("key", this::blockingLoad);
+        final var second = underTest.load("key", this::blockingLoad);
+        final var other = underTest.load("other key", this::blockingLoad);
+
+        // then
+        then(first).isEqualTo("value 1");
+        then(second).isEqualTo("value 2");
+        then(other).isEqualTo("value 3");
+    }
+
+    private String blockingLoad() {
+        final var load = loads.incrementAndGet();
+        loadStarted.countDown();
+
+        try {
+            then(releaseLoad.await(5, SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+
+        return "value " + load;
+    }
+}
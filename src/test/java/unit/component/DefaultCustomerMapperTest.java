@@ -3,7 +3,6 @@ package unit.component;
 import static org.assertj.core.api.BDDAssertions.catchThrowable;
 import static org.assertj.core.api.BDDAssertions.then;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
-import static org.mockito.BDDMockito.given;
 
 import java.util.List;
 import java.util.UUID;
@@ -19,26 +18,24 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.ArgumentsProvider;
 import org.junit.jupiter.params.provider.ArgumentsSource;
 import org.junit.jupiter.params.provider.NullSource;
-import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import io.jacopocav.customercare.component.DefaultCustomerMapper;
-import io.jacopocav.customercare.component.DeviceMapper;
 import io.jacopocav.customercare.dto.CreateCustomerRequest;
+import io.jacopocav.customercare.dto.CustomerSummaryResponse;
+import io.jacopocav.customercare.dto.PageResponse;
 import io.jacopocav.customercare.dto.ReadCustomerResponse;
 import io.jacopocav.customercare.dto.ReadDeviceResponse;
 import io.jacopocav.customercare.dto.UpdateCustomerRequest;
 import io.jacopocav.customercare.model.Customer;
-import io.jacopocav.customercare.model.Device;
 
 @ExtendWith(MockitoExtension.class)
 class DefaultCustomerMapperTest {
-    @Mock DeviceMapper deviceMapper;
     DefaultCustomerMapper underTest;
 
     @BeforeEach
     void setUp() {
-        underTest = new DefaultCustomerMapper(deviceMapper);
+        underTest = new DefaultCustomerMapper();
     }
 
     @Nested
@@ -48,7 +45,8 @@ class DefaultCustomerMapperTest {
         @NullSource
         void toDto_throws_givenIllegalArgument(Customer entity) {
             // when
-            final var error = catchThrowable(() -> underTest.toDto(entity));
+            final var devices = new PageResponse<ReadDeviceResponse>(List.of(), null);
+            final var error = catchThrowable(() -> underTest.toDto(entity, devices));
 
             // then
             then(error).isInstanceOf(IllegalArgumentException.class);
@@ -83,21 +81,16 @@ class DefaultCustomerMapperTest {
             // given
             final var customerId = UUID.randomUUID();
 
-            final var device1 = new Device().setColor("red");
-            final var expectedDevice1 =
-                new ReadDeviceResponse("", "", "red", customerId.toString());
-
-            final var device2 = new Device().setColor("blue");
-            final var expectedDevice2 =
-                new ReadDeviceResponse("", "", "blue", customerId.toString());
+            final var device1 = new ReadDeviceResponse("", "", "red", customerId.toString());
+            final var device2 = new ReadDeviceResponse("", "", "blue", customerId.toString());
+            final var devices = new PageResponse<>(List.of(device1, device2), "next");
 
             final var entity = new Customer()
                 .setId(customerId)
                 .setFirstName("John")
                 .setLastName("Doe")
                 .setFiscalCode("XXX")
-                .setAddress("Country Road 66")
-                .setDevices(List.of(device1, device2));
+                .setAddress("Country Road 66");
 
             final var expected = new ReadCustomerResponse(
                 customerId.toString(),
@@ -105,16 +98,33 @@ class DefaultCustomerMapperTest {
                 "Doe",
                 "XXX",
                 "Country Road 66",
-                List.of(expectedDevice1, expectedDevice2)
+                List.of(device1, device2),
+                "next"
             );
 
-            given(deviceMapper.toDto(device1))
-                .willReturn(expectedDevice1);
-            given(deviceMapper.toDto(device2))
-                .willReturn(expectedDevice2);
+            // when
+            final ReadCustomerResponse actual = underTest.toDto(entity, devices);
+
+            // then
+            then(actual).isEqualTo(expected);
+        }
+
+        @Test
+        void toSummaryDto_returnsDtoWithoutDevices() {
+            // given
+            final var customerId = UUID.randomUUID();
+            final var entity = new Customer()
+                .setId(customerId)
+                .setFirstName("John")
+                .setLastName("Doe")
+                .setFiscalCode("XXX")
+                .setAddress("Country Road 66");
+
+            final var expected = new CustomerSummaryResponse(
+                customerId.toString(), "John", "Doe", "XXX", "Country Road 66");
 
             // when
-            final ReadCustomerResponse actual = underTest.toDto(entity);
+            final var actual = underTest.toSummaryDto(entity);
 
             // then
             then(actual).isEqualTo(expected);
@@ -170,6 +180,18 @@ class DefaultCustomerMapperTest {
                 .usingRecursiveComparison()
                 .isEqualTo(expected);
         }
+
+        @Test
+        void toNewEntity_upperCasesFiscalCode() {
+            // given
+            final var dto = new CreateCustomerRequest("John", "Doe", "abcdef12g34h567i", "Road 1");
+
+            // when
+            final Customer actual = underTest.toNewEntity(dto);
+
+            // then
+            then(actual.getFiscalCode()).isEqualTo("ABCDEF12G34H567I");
+        }
     }
 
     static class ToEntity_IllegalArguments implements ArgumentsProvider {
@@ -5,11 +5,9 @@ import static io.jacopocav.customercare.model.Device.Status.INACTIVE;
 import static io.jacopocav.customercare.model.Device.Status.LOST;
 import static org.assertj.core.api.BDDAssertions.catchThrowable;
 import static org.assertj.core.api.BDDAssertions.then;
-import static org.assertj.core.api.InstanceOfAssertFactories.type;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 import static org.mockito.BDDMockito.given;
 
-import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Stream;
 
@@ -30,8 +28,6 @@ import io.jacopocav.customercare.component.DefaultDeviceMapper;
 import io.jacopocav.customercare.dto.CreateDeviceRequest;
 import io.jacopocav.customercare.dto.ReadDeviceResponse;
 import io.jacopocav.customercare.dto.UpdateDeviceRequest;
-import io.jacopocav.customercare.error.CustomerNotFoundException;
-import io.jacopocav.customercare.error.ResourceNotFoundException;
 import io.jacopocav.customercare.model.Customer;
 import io.jacopocav.customercare.model.Device;
 import io.jacopocav.customercare.repository.CustomerRepository;
@@ -135,30 +131,6 @@ class DefaultDeviceMapperTest {
                 .isEqualTo(expected);
         }
 
-        @Test
-        void toNewEntity_throws_givenCustomerNotFound() {
-            // given
-            final var customerId = UUID.randomUUID();
-
-            final var dto = new CreateDeviceRequest(
-                customerId.toString(),
-                "active",
-                "aBcDeF"
-            );
-
-            given(customerRepository.findById(customerId))
-                .willReturn(Optional.empty());
-
-            // when
-            final var error = catchThrowable(() -> underTest.toNewEntity(dto));
-
-            // then
-            then(error)
-                .asInstanceOf(type(CustomerNotFoundException.class))
-                .extracting(ResourceNotFoundException::getIdentifier)
-                .isEqualTo(customerId);
-        }
-
         @Test
         void toNewEntity_returnsNewDeviceWithValuesCopiedFromRequest() {
             // given
@@ -176,8 +148,8 @@ class DefaultDeviceMapperTest {
                 .setStatus(ACTIVE)
                 .setColor("abcdef");
 
-            given(customerRepository.findById(customerId))
-                .willReturn(Optional.of(customer));
+            given(customerRepository.getReferenceById(customerId))
+                .willReturn(customer);
 
             // when
             final Device actual = underTest.toNewEntity(dto);
@@ -0,0 +1,128 @@
+package unit.model;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import io.jacopocav.customercare.model.id.UuidV7;
+
+class UuidV7Test {
+    final AtomicLong millis = new AtomicLong(1_700_000_000_000L);
+    final UuidV7 underTest = new UuidV7(new MillisClock(millis), new Random(42));
+
+    @Test
+    void next_returnsVersion7WithTimestamp() {
+        // when
+        final var actual = underTest.next();
+
+        // then
+        then(actual.version()).isEqualTo(7);
+        then(actual.variant()).isEqualTo(2);
+        then(UuidV7.millisOf(actual)).isEqualTo(millis.get());
+    }
+
+    @Test
+    void next_isIncreasing_givenSameMillisecond() {
+        // when
+        final var uuids = generate(10_000);
+
+        // then
+        then(uuids).isSorted().doesNotHaveDuplicates();
+        then(uuids.get(uuids.size() - 1).getMostSignificantBits() >>> 16)
+            .as("timestamp after counter overflow")
+            .isGreaterThan(millis.get());
+    }
+
+    @Test
+    void next_isIncreasing_givenClockGoingBackwards() {
+        // given
+        final var before = underTest.next();
+        millis.addAndGet(-1000);
+
+        // when
+        final var after = underTest.next();
+
+        // then
+        then(after).isGreaterThan(before);
+    }
+
+    @Test
+    void next_isIncreasingForEachThread_givenConcurrentCallers() throws Exception {
+        // given
+        final int threads = 8;
+        final var executor = Executors.newFixedThreadPool(threads);
+        final Callable<List<UUID>> generator = () -> {
+            millis.incrementAndGet();
+            return generate(10_000);
+        };
+
+        try {
+            // when
+            final var futures =
+                executor.invokeAll(Collections.nCopies(threads, generator), 10, SECONDS);
+
+            // then
+            final var all = new HashSet<UUID>();
+            for (final var future : futures) {
+                final var uuids = future.get();
+                then(uuids).isSorted();
+                all.addAll(uuids);
+            }
+            then(all).hasSize(threads * 10_000);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<UUID> generate(int count) {
+        final var uuids = new ArrayList<UUID>(count);
+        for (int i = 0; i < count; i++) {
+            uuids.add(underTest.next());
+        }
+
+        return uuids;
+    }
+
+    private static class MillisClock extends Clock {
+        private final AtomicLong millis;
+
+        MillisClock(AtomicLong millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public long millis() {
+            return millis.get();
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis());
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -1,12 +1,19 @@
 package unit.rest;
 
 import static org.assertj.core.api.BDDAssertions.and;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+import static org.springframework.http.HttpHeaders.ETAG;
 import static org.springframework.http.HttpStatus.CREATED;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
+import static org.springframework.http.HttpStatus.OK;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 
 import java.net.URI;
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
@@ -17,23 +24,38 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.mock.web.MockServletContext;
 
+import io.jacopocav.customercare.cache.IdempotencyStore;
+import io.jacopocav.customercare.dto.BatchCreateResponse;
 import io.jacopocav.customercare.dto.CreateCustomerRequest;
+import io.jacopocav.customercare.dto.CustomerSummaryResponse;
+import io.jacopocav.customercare.dto.PageResponse;
 import io.jacopocav.customercare.dto.ReadCustomerResponse;
+import io.jacopocav.customercare.dto.ReadDeviceResponse;
+import io.jacopocav.customercare.dto.Revisioned;
 import io.jacopocav.customercare.dto.UpdateCustomerRequest;
 import io.jacopocav.customercare.rest.CustomerController;
+import io.jacopocav.customercare.service.CustomerBatchService;
 import io.jacopocav.customercare.service.CustomerCrudService;
+import io.jacopocav.customercare.service.CustomerExportService;
+import io.jacopocav.customercare.service.CustomerSearchService;
 
 @SuppressWarnings("AccessStaticViaInstance")
 @ExtendWith(MockitoExtension.class)
 class CustomerControllerTest {
     @Mock CustomerCrudService crudService;
+    @Mock CustomerBatchService batchService;
+    @Mock CustomerExportService exportService;
+    @Mock CustomerSearchService searchService;
+    @Mock IdempotencyStore idempotencyStore;
     CustomerController underTest;
 
     @BeforeEach
     void setUp() {
-        underTest = new CustomerController(crudService);
+        underTest = new CustomerController(crudService, batchService, exportService,
+            searchService, idempotencyStore, false);
     }
 
     @Test
@@ -52,7 +74,7 @@ class CustomerControllerTest {
             .willReturn(newId);
 
         // when
-        final ResponseEntity<Void> actual = underTest.create(body, servletRequest);
+        final ResponseEntity<Void> actual = underTest.create(body, null, servletRequest);
 
         // then
         and.then(actual.getStatusCode()).isEqualTo(CREATED);
@@ -60,18 +82,197 @@ class CustomerControllerTest {
         and.then(actual.getHeaders()).isEqualTo(expectedHeaders);
     }
 
+    @Test
+    void create_withIdempotencyKey() {
+        // given
+        final var body = new CreateCustomerRequest("John", "Doe", "ABCX", "Some Road 101");
+        final var servletRequest = post(URI.create("https://www.some-base-url.com:1234/customers"))
+            .buildRequest(new MockServletContext());
+        final var storedId = UUID.randomUUID();
+
+        given(idempotencyStore.create(eq("some key"), eq(body), any()))
+            .willReturn(storedId);
+
+        // when
+        final ResponseEntity<Void> actual = underTest.create(body, "some key", servletRequest);
+
+        // then
+        and.then(actual.getStatusCode()).isEqualTo(CREATED);
+        and.then(actual.getHeaders().getLocation())
+            .hasToString("https://www.some-base-url.com:1234/customers/" + storedId);
+        then(crudService).shouldHaveNoInteractions();
+    }
+
     @Test
     void read() {
         // given
         final var id = "12345";
         final var expected =
-            new ReadCustomerResponse(id, "Mary", "Doe", "4321X", "Any Road 66", List.of());
+            new ReadCustomerResponse(id, "Mary", "Doe", "4321X", "Any Road 66", List.of(),
+                null);
+
+        given(crudService.readRevisioned(id))
+            .willReturn(new Revisioned<>("abc", expected));
+
+        // when
+        final ResponseEntity<ReadCustomerResponse> actual =
+            underTest.read(id, null);
+
+        // then
+        and.then(actual.getStatusCode()).isEqualTo(OK);
+        and.then(actual.getHeaders().getETag()).isEqualTo("\"abc\"");
+        and.then(actual.getBody()).isEqualTo(expected);
+        then(crudService).should(never()).readRevision(id);
+    }
+
+    @Test
+    void read_addsWarningAndAge_givenStaleResponse() {
+        // given
+        final var id = "12345";
+        final var expected =
+            new ReadCustomerResponse(id, "Mary", "Doe", "4321X", "Any Road 66", List.of(),
+                null);
+
+        given(crudService.readRevisioned(id))
+            .willReturn(new Revisioned<>("abc", expected, Instant.now().minusSeconds(90)));
+
+        // when
+        final ResponseEntity<ReadCustomerResponse> actual =
+            underTest.read(id, null);
+
+        // then
+        and.then(actual.getStatusCode()).isEqualTo(OK);
+        and.then(actual.getHeaders().getFirst("Warning")).isEqualTo("110 - \"Response is Stale\"");
+        and.then(actual.getHeaders().getFirst("Age")).isIn("90", "91");
+        and.then(actual.getBody()).isEqualTo(expected);
+    }
+
+    @Test
+    void read_returnsNotModified_whenRevisionMatchesIfNoneMatch() {
+        // given
+        final var id = "12345";
+
+        given(crudService.readRevision(id))
+            .willReturn("abc");
+
+        // when
+        final ResponseEntity<ReadCustomerResponse> actual =
+            underTest.read(id, "W/\"xyz\", \"abc\"");
+
+        // then
+        and.then(actual.getStatusCode()).isEqualTo(NOT_MODIFIED);
+        and.then(actual.getHeaders().get(ETAG)).containsExactly("\"abc\"");
+        and.then(actual.getBody()).isNull();
+        then(crudService).should(never()).readRevisioned(id);
+    }
+
+    @Test
+    void read_returnsRevisionOfBody_givenChangeAfterIfNoneMatchCheck() {
+        // given
+        final var id = "12345";
+
+        given(crudService.readRevision(id))
+            .willReturn("abc");
+        given(crudService.readRevisioned(id))
+            .willReturn(new Revisioned<>("def", new ReadCustomerResponse(id, "Mary", "Doe",
+                "4321X", "Any Road 66", List.of(), null)));
+
+        // when
+        final ResponseEntity<ReadCustomerResponse> actual = underTest.read(id, "\"xyz\"");
+
+        // then
+        and.then(actual.getStatusCode()).isEqualTo(OK);
+        and.then(actual.getHeaders().get(ETAG)).containsExactly("\"def\"");
+    }
+
+    @Test
+    void list() {
+        // given
+        final var expected = new PageResponse<CustomerSummaryResponse>(List.of(), null);
+
+        given(crudService.list("cursor", 10))
+            .willReturn(expected);
+
+        // when
+        final var actual = underTest.list("cursor", 10);
+
+        // then
+        and.then(actual).isSameAs(expected);
+    }
+
+    @Test
+    void listByFiscalCode() {
+        // given
+        final var customer =
+            new CustomerSummaryResponse("id", "John", "Doe", "ABCDEF12G34H567I", "Road 1");
+
+        given(crudService.listByFiscalCode("abcdef12g34h567i"))
+            .willReturn(List.of(customer));
+
+        // when
+        final var actual = underTest.listByFiscalCode("abcdef12g34h567i");
+
+        // then
+        and.then(actual).isEqualTo(new PageResponse<>(List.of(customer), null));
+    }
+
+    @Test
+    void search() {
+        // given
+        final var customer =
+            new CustomerSummaryResponse("id", "John", "Doe", "ABCDEF12G34H567I", "Road 1");
+
+        given(searchService.search("jo", 10))
+            .willReturn(List.of(customer));
+
+        // when
+        final var actual = underTest.search("jo", 10);
+
+        // then
+        and.then(actual).isEqualTo(new PageResponse<>(List.of(customer), null));
+    }
+
+    @Test
+    void listDevices() {
+        // given
+        final var id = UUID.randomUUID().toString();
+        final var expected = new PageResponse<ReadDeviceResponse>(List.of(), null);
+
+        given(crudService.listDevices(id, null, 10))
+            .willReturn(expected);
+
+        // when
+        final var actual = underTest.listDevices(id, null, 10);
+
+        // then
+        and.then(actual).isSameAs(expected);
+    }
+
+    @Test
+    void export() throws Exception {
+        // given
+        final var response = new MockHttpServletResponse();
+
+        // when
+        underTest.export(response);
+
+        // then
+        and.then(response.getContentType()).isEqualTo("application/x-ndjson");
+        then(exportService).should().export(response.getOutputStream());
+    }
+
+    @Test
+    void createAll() {
+        // given
+        final var body = List.of(
+            new CreateCustomerRequest("John", "Doe", "ABCX", "Some Road 101"));
+        final var expected = new BatchCreateResponse(List.of("some id"), List.of());
 
-        given(crudService.read(id))
+        given(batchService.createAll(body))
             .willReturn(expected);
 
         // when
-        final ReadCustomerResponse actual = underTest.read(id);
+        final var actual = underTest.createAll(body);
 
         // then
         and.then(actual).isEqualTo(expected);
@@ -85,7 +286,35 @@ class CustomerControllerTest {
             new UpdateCustomerRequest("New Road 72");
 
         // when
-        underTest.update(id, request);
+        underTest.update(id, request, null);
+
+        // then
+        then(crudService).should().update(id, request);
+    }
+
+    @Test
+    void update_withIfMatch() {
+        // given
+        final var id = "12345";
+        final var request =
+            new UpdateCustomerRequest("New Road 72");
+
+        // when
+        underTest.update(id, request, "\"abcdef\"");
+
+        // then
+        then(crudService).should().update(id, request, "abcdef");
+    }
+
+    @Test
+    void update_withAnyIfMatch() {
+        // given
+        final var id = "12345";
+        final var request =
+            new UpdateCustomerRequest("New Road 72");
+
+        // when
+        underTest.update(id, request, "*");
 
         // then
         then(crudService).should().update(id, request);
@@ -97,9 +326,21 @@ class CustomerControllerTest {
         final var id = "12345";
 
         // when
-        underTest.delete(id);
+        underTest.delete(id, false);
+
+        // then
+        then(crudService).should().delete(id, false);
+    }
+
+    @Test
+    void delete_cascade() {
+        // given
+        final var id = "12345";
+
+        // when
+        underTest.delete(id, true);
 
         // then
-        then(crudService).should().delete(id);
+        then(crudService).should().delete(id, true);
     }
 }
@@ -1,12 +1,20 @@
 package unit.rest;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.BDDAssertions.and;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+import static org.springframework.http.HttpHeaders.ETAG;
 import static org.springframework.http.HttpStatus.CREATED;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
+import static org.springframework.http.HttpStatus.OK;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 
 import java.net.URI;
+import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -21,21 +29,26 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockServletContext;
 
+import io.jacopocav.customercare.cache.IdempotencyStore;
+import io.jacopocav.customercare.dto.BatchCreateResponse;
 import io.jacopocav.customercare.dto.CreateDeviceRequest;
-import io.jacopocav.customercare.dto.ReadDeviceResponse;
+import io.jacopocav.customercare.dto.Revisioned;
 import io.jacopocav.customercare.dto.UpdateDeviceRequest;
 import io.jacopocav.customercare.rest.DeviceController;
+import io.jacopocav.customercare.service.DeviceBatchService;
 import io.jacopocav.customercare.service.DeviceCrudService;
 
 @SuppressWarnings("AccessStaticViaInstance")
 @ExtendWith(MockitoExtension.class)
 class DeviceControllerTest {
     @Mock DeviceCrudService crudService;
+    @Mock DeviceBatchService batchService;
+    @Mock IdempotencyStore idempotencyStore;
     DeviceController underTest;
 
     @BeforeEach
     void setUp() {
-        underTest = new DeviceController(crudService);
+        underTest = new DeviceController(crudService, batchService, idempotencyStore, false);
     }
 
     @Test
@@ -54,7 +67,7 @@ class DeviceControllerTest {
             .willReturn(newId);
 
         // when
-        final ResponseEntity<Void> actual = underTest.create(body, servletRequest);
+        final ResponseEntity<Void> actual = underTest.create(body, null, servletRequest);
 
         // then
         and.then(actual.getStatusCode()).isEqualTo(CREATED);
@@ -63,22 +76,98 @@ class DeviceControllerTest {
     }
 
     @Test
-    void read() {
+    void createAll() {
         // given
-        final var id = "12345";
-        final var expected =
-            new ReadDeviceResponse(id, "INACTIVE", "#ffffff", "customerId");
+        final var body = List.of(new CreateDeviceRequest("customerId", "ACTIVE", "#aabbcc"));
+        final var expected = new BatchCreateResponse(List.of("some id"), List.of());
 
-        given(crudService.read(id))
+        given(batchService.createAll(body))
             .willReturn(expected);
 
         // when
-        final ReadDeviceResponse actual = underTest.read(id);
+        final var actual = underTest.createAll(body);
 
         // then
         and.then(actual).isEqualTo(expected);
     }
 
+    @Test
+    void read() {
+        // given
+        final var id = "12345";
+        final var expected = "{\"id\":\"12345\"}".getBytes(UTF_8);
+
+        given(crudService.readJson(id))
+            .willReturn(new Revisioned<>("abc", expected));
+
+        // when
+        final ResponseEntity<byte[]> actual =
+            underTest.read(id, null);
+
+        // then
+        and.then(actual.getStatusCode()).isEqualTo(OK);
+        and.then(actual.getHeaders().getContentType()).isEqualTo(APPLICATION_JSON);
+        and.then(actual.getHeaders().getETag()).isEqualTo("\"abc\"");
+        and.then(actual.getBody()).isEqualTo(expected);
+        then(crudService).should(never()).readRevision(id);
+    }
+
+    @Test
+    void read_addsWarningAndAge_givenStaleResponse() {
+        // given
+        final var id = "12345";
+        final var expected = "{\"id\":\"12345\"}".getBytes(UTF_8);
+
+        given(crudService.readJson(id))
+            .willReturn(new Revisioned<>("abc", expected, Instant.now().minusSeconds(90)));
+
+        // when
+        final ResponseEntity<byte[]> actual =
+            underTest.read(id, null);
+
+        // then
+        and.then(actual.getStatusCode()).isEqualTo(OK);
+        and.then(actual.getHeaders().getFirst("Warning")).isEqualTo("110 - \"Response is Stale\"");
+        and.then(actual.getHeaders().getFirst("Age")).isIn("90", "91");
+        and.then(actual.getBody()).isEqualTo(expected);
+    }
+
+    @Test
+    void read_returnsNotModified_whenRevisionMatchesIfNoneMatch() {
+        // given
+        final var id = "12345";
+
+        given(crudService.readRevision(id))
+            .willReturn("abc");
+
+        // when
+        final ResponseEntity<byte[]> actual = underTest.read(id, "W/\"xyz\", \"abc\"");
+
+        // then
+        and.then(actual.getStatusCode()).isEqualTo(NOT_MODIFIED);
+        and.then(actual.getHeaders().get(ETAG)).containsExactly("\"abc\"");
+        and.then(actual.getBody()).isNull();
+        then(crudService).should(never()).readJson(id);
+    }
+
+    @Test
+    void read_returnsRevisionOfBody_givenChangeAfterIfNoneMatchCheck() {
+        // given
+        final var id = "12345";
+
+        given(crudService.readRevision(id))
+            .willReturn("abc");
+        given(crudService.readJson(id))
+            .willReturn(new Revisioned<>("def", "{\"id\":\"12345\"}".getBytes(UTF_8)));
+
+        // when
+        final ResponseEntity<byte[]> actual = underTest.read(id, "\"xyz\"");
+
+        // then
+        and.then(actual.getStatusCode()).isEqualTo(OK);
+        and.then(actual.getHeaders().get(ETAG)).containsExactly("\"def\"");
+    }
+
     @ParameterizedTest
     @CsvSource({
         "true,OK",
@@ -106,7 +195,35 @@ class DeviceControllerTest {
             new UpdateDeviceRequest("LOST", "11aa22");
 
         // when
-        underTest.update(id, request);
+        underTest.update(id, request, null);
+
+        // then
+        then(crudService).should().update(id, request);
+    }
+
+    @Test
+    void update_withIfMatch() {
+        // given
+        final var id = "12345";
+        final var request =
+            new UpdateDeviceRequest("LOST", "11aa22");
+
+        // when
+        underTest.update(id, request, "\"abcdef\"");
+
+        // then
+        then(crudService).should().update(id, request, "abcdef");
+    }
+
+    @Test
+    void update_withAnyIfMatch() {
+        // given
+        final var id = "12345";
+        final var request =
+            new UpdateDeviceRequest("LOST", "11aa22");
+
+        // when
+        underTest.update(id, request, "*");
 
         // then
         then(crudService).should().update(id, request);
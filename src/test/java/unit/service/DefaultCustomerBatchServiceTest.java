@@ -0,0 +1,253 @@
+package unit.service;
+
+import static io.jacopocav.customercare.event.ChangeType.CREATED;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.BDDAssertions.and;
+import static org.assertj.core.api.BDDAssertions.catchThrowable;
+import static org.assertj.core.api.InstanceOfAssertFactories.MAP;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.jacopocav.customercare.cache.ChangeLog;
+import io.jacopocav.customercare.component.CustomerMapper;
+import io.jacopocav.customercare.dto.BatchItemError;
+import io.jacopocav.customercare.dto.CreateCustomerRequest;
+import io.jacopocav.customercare.event.CustomerChangedEvent;
+import io.jacopocav.customercare.event.CustomersCreatedEvent;
+import io.jacopocav.customercare.model.Customer;
+import io.jacopocav.customercare.repository.CustomerNameRow;
+import io.jacopocav.customercare.repository.CustomerRepository;
+import io.jacopocav.customercare.service.CustomerBatchService;
+import io.jacopocav.customercare.service.DefaultCustomerBatchService;
+import jakarta.validation.Validation;
+
+@ExtendWith(MockitoExtension.class)
+@SuppressWarnings("AccessStaticViaInstance")
+class DefaultCustomerBatchServiceTest {
+    static final CreateCustomerRequest VALID =
+        new CreateCustomerRequest("John", "Doe", "ABCDEF12G34H567I", "Some Road 101");
+    static final CreateCustomerRequest INVALID =
+        new CreateCustomerRequest("", "Doe", "ABCDEF12G34H567I", "Some Road 101");
+
+    @Mock CustomerMapper mapper;
+    @Mock CustomerRepository repository;
+    @Mock ChangeLog changeLog;
+    @Mock ApplicationEventPublisher eventPublisher;
+    @Mock TransactionTemplate transactionTemplate;
+
+    final List<Customer> saved = new ArrayList<>();
+
+    DefaultCustomerBatchService underTest;
+
+    @BeforeEach
+    void setUp() {
+        final var validator = Validation.buildDefaultValidatorFactory().getValidator();
+        underTest = new DefaultCustomerBatchService(mapper, repository, changeLog, eventPublisher,
+            validator, transactionTemplate, 2, 3, Duration.ofSeconds(10));
+
+        lenient().when(transactionTemplate.execute(any()))
+            .thenAnswer(invocation -> invocation
+                .getArgument(0, TransactionCallback.class).doInTransaction(null));
+        lenient().when(mapper.toNewEntity(any()))
+            .thenAnswer(invocation -> new Customer());
+        lenient().when(repository.saveAll(anyList()))
+            .thenAnswer(invocation -> {
+                final List<Customer> customers = invocation.getArgument(0);
+                customers.forEach(customer -> customer.setId(UUID.randomUUID()));
+                saved.addAll(customers);
+                return customers;
+            });
+    }
+
+    @Test
+    void createAll_throws_givenTooManyRequests() {
+        // given
+        final var requests = Collections.nCopies(CustomerBatchService.MAX_SIZE + 1, VALID);
+
+        // when
+        final var error = catchThrowable(() -> underTest.createAll(requests));
+
+        // then
+        and.then(error).isInstanceOf(IllegalArgumentException.class);
+        then(repository).shouldHaveNoInteractions();
+    }
+
+    @Test
+    void createAll_insertsValidRequestsInChunks() {
+        // given
+        final var requests = List.of(VALID, INVALID, VALID, VALID);
+
+        // when
+        final var actual = underTest.createAll(requests);
+
+        // then
+        then(repository).should(times(2)).saveAll(anyList());
+        then(changeLog).should(times(2)).appendCustomers(anyList(), any(Long.class));
+        and.then(saved).hasSize(3);
+
+        and.then(actual.ids()).containsExactly(
+            saved.get(0).getId().toString(),
+            null,
+            saved.get(1).getId().toString(),
+            saved.get(2).getId().toString());
+        and.then(actual.errors())
+            .extracting(BatchItemError::index)
+            .containsExactly(1);
+        and.then(actual.errors().get(0).error().additionalInfo())
+            .asInstanceOf(MAP)
+            .containsOnlyKeys("firstName");
+
+        for (final var customer : saved) {
+            then(eventPublisher).should()
+                .publishEvent(new CustomerChangedEvent(customer.getId(), CREATED));
+        }
+        // one addition to the name index for each chunk
+        then(eventPublisher).should().publishEvent(new CustomersCreatedEvent(List.of(
+            new CustomerNameRow(saved.get(0).getId(), null, null),
+            new CustomerNameRow(saved.get(1).getId(), null, null))));
+        then(eventPublisher).should().publishEvent(new CustomersCreatedEvent(List.of(
+            new CustomerNameRow(saved.get(2).getId(), null, null))));
+    }
+
+    @Test
+    void createAll_insertsOneByOne_givenChunkFails() {
+        // given
+        final var requests = List.of(VALID, VALID);
+
+        willThrow(DataIntegrityViolationException.class)
+            .willDoNothing()
+            .willThrow(DataIntegrityViolationException.class)
+            .given(repository).flush();
+
+        // when
+        final var actual = underTest.createAll(requests);
+
+        // then
+        // the first two were saved by the failed chunk
+        and.then(actual.ids()).hasSize(2);
+        and.then(actual.ids().get(0)).isEqualTo(saved.get(2).getId().toString());
+        and.then(actual.ids().get(1)).isNull();
+        and.then(actual.errors())
+            .extracting(BatchItemError::index)
+            .containsExactly(1);
+    }
+
+    @Test
+    void createAll_reportsDuplicateFiscalCodes() {
+        // given
+        final var requests = List.of(VALID, VALID);
+        final var violation = new DataIntegrityViolationException("duplicate",
+            new ConstraintViolationException("duplicate", new SQLException(),
+                "PUBLIC.UX_CUSTOMER_FISCAL_CODE ON PUBLIC.CUSTOMER(FISCAL_CODE)"));
+
+        given(mapper.toNewEntity(VALID))
+            .willAnswer(invocation -> new Customer().setFiscalCode(VALID.fiscalCode()));
+        willThrow(violation)
+            .willDoNothing()
+            .willThrow(violation)
+            .given(repository).flush();
+
+        // when
+        final var actual = underTest.createAll(requests);
+
+        // then
+        and.then(actual.ids().get(1)).isNull();
+        and.then(actual.errors())
+            .singleElement()
+            .satisfies(error -> {
+                and.then(error.index()).isEqualTo(1);
+                and.then(error.error().summary()).isEqualTo("Duplicate fiscal code");
+            });
+    }
+
+    @Test
+    void createAll_reportsNullRequests() {
+        // given
+        final var requests = new ArrayList<CreateCustomerRequest>();
+        requests.add(null);
+
+        // when
+        final var actual = underTest.createAll(requests);
+
+        // then
+        and.then(actual.ids()).containsExactly((String) null);
+        and.then(actual.errors())
+            .extracting(BatchItemError::index)
+            .containsExactly(0);
+        then(repository).shouldHaveNoInteractions();
+    }
+
+    @Test
+    void create_insertsConcurrentCallsTogether() throws Exception {
+        // given
+        final var executor = Executors.newFixedThreadPool(3);
+
+        // when
+        final var futures = List.of(
+            executor.submit(() -> underTest.create(VALID)),
+            executor.submit(() -> underTest.create(VALID)),
+            executor.submit(() -> underTest.create(VALID)));
+        final var actual = new ArrayList<UUID>();
+        for (final var future : futures) {
+            actual.add(future.get(5, SECONDS));
+        }
+        executor.shutdown();
+
+        // then
+        then(repository).should().saveAll(anyList());
+        then(changeLog).should().appendCustomers(anyList(), any(Long.class));
+        and.then(actual)
+            .containsExactlyInAnyOrderElementsOf(saved.stream().map(Customer::getId).toList());
+    }
+
+    @Test
+    void create_failsEveryConcurrentCall_givenError() throws Exception {
+        // given
+        final var error = new OutOfMemoryError("some error");
+        final var executor = Executors.newFixedThreadPool(3);
+
+        given(repository.saveAll(anyList()))
+            .willThrow(error);
+
+        // when
+        final var futures = List.of(
+            executor.submit(() -> underTest.create(VALID)),
+            executor.submit(() -> underTest.create(VALID)),
+            executor.submit(() -> underTest.create(VALID)));
+        final var failures = new ArrayList<Throwable>();
+        for (final var future : futures) {
+            failures.add(catchThrowable(() -> future.get(5, SECONDS)));
+        }
+        executor.shutdown();
+
+        // then
+        and.then(failures).allSatisfy(failure -> and.then(failure)
+            .isInstanceOf(ExecutionException.class)
+            .hasRootCause(error));
+    }
+}
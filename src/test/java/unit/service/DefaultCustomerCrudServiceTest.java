@@ -4,15 +4,29 @@ import static org.assertj.core.api.BDDAssertions.and;
 import static org.assertj.core.api.BDDAssertions.catchThrowable;
 import static org.assertj.core.api.BDDAssertions.thenNoException;
 import static org.assertj.core.api.InstanceOfAssertFactories.type;
+import static io.jacopocav.customercare.event.ChangeType.CREATED;
+import static io.jacopocav.customercare.event.ChangeType.DELETED;
+import static io.jacopocav.customercare.event.ChangeType.UPDATED;
+import static io.jacopocav.customercare.service.CustomerCrudService.MAX_PAGE_SIZE;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 
+import java.sql.SQLException;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -22,29 +36,69 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.ArgumentsProvider;
 import org.junit.jupiter.params.provider.ArgumentsSource;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+
+import io.jacopocav.customercare.cache.ChangeLog;
+import io.jacopocav.customercare.cache.CustomerResponseCache;
+import io.jacopocav.customercare.cache.ExistenceFilter;
+import io.jacopocav.customercare.cache.StaleResponseStore;
 import io.jacopocav.customercare.component.CustomerMapper;
+import io.jacopocav.customercare.component.DeviceMapper;
 import io.jacopocav.customercare.dto.CreateCustomerRequest;
+import io.jacopocav.customercare.dto.CustomerSummaryResponse;
+import io.jacopocav.customercare.dto.PageResponse;
 import io.jacopocav.customercare.dto.ReadCustomerResponse;
+import io.jacopocav.customercare.dto.ReadDeviceResponse;
+import io.jacopocav.customercare.dto.Revisioned;
 import io.jacopocav.customercare.dto.UpdateCustomerRequest;
 import io.jacopocav.customercare.error.CustomerNotFoundException;
+import io.jacopocav.customercare.error.DuplicateFiscalCodeException;
+import io.jacopocav.customercare.error.InvalidCursorException;
+import io.jacopocav.customercare.error.PreconditionFailedException;
+import io.jacopocav.customercare.event.CustomerChangedEvent;
+import io.jacopocav.customercare.event.CustomersCreatedEvent;
+import io.jacopocav.customercare.event.DeviceChangedEvent;
 import io.jacopocav.customercare.model.Customer;
+import io.jacopocav.customercare.model.Device;
+import io.jacopocav.customercare.repository.CustomerNameRow;
 import io.jacopocav.customercare.repository.CustomerRepository;
+import io.jacopocav.customercare.repository.RevisionRow;
 import io.jacopocav.customercare.service.DefaultCustomerCrudService;
 
 @ExtendWith(MockitoExtension.class)
 @SuppressWarnings("AccessStaticViaInstance")
 class DefaultCustomerCrudServiceTest {
+    static final int MAX_EMBEDDED_DEVICES = 2;
+
     @Mock CustomerMapper mapper;
+    @Mock DeviceMapper deviceMapper;
     @Mock CustomerRepository repository;
+    @Mock CustomerResponseCache responseCache;
+    @Mock ExistenceFilter existenceFilter;
+    @Mock StaleResponseStore staleResponseStore;
+    @Mock ChangeLog changeLog;
+    @Mock ApplicationEventPublisher eventPublisher;
 
     DefaultCustomerCrudService underTest;
 
     @BeforeEach
     void setUp() {
-        underTest = new DefaultCustomerCrudService(mapper, repository);
+        underTest = new DefaultCustomerCrudService(mapper, deviceMapper, repository, responseCache,
+            existenceFilter, staleResponseStore, changeLog, eventPublisher,
+            MAX_EMBEDDED_DEVICES);
+
+        lenient().when(existenceFilter.mightExist(any()))
+            .thenReturn(true);
+        lenient().when(staleResponseStore.read(any(), any()))
+            .thenAnswer(invocation -> invocation.getArgument(1, Supplier.class).get());
+        lenient().when(staleResponseStore.readRevision(any(), any()))
+            .thenAnswer(invocation -> invocation.getArgument(1, Supplier.class).get());
     }
 
     @Nested
@@ -88,6 +142,37 @@ class DefaultCustomerCrudServiceTest {
             // then
             and.then(error).isInstanceOf(IllegalArgumentException.class);
         }
+
+        @ParameterizedTest
+        @NullAndEmptySource
+        @ValueSource(strings = " ")
+        void listByFiscalCode_throws_givenBlankFiscalCode(String fiscalCode) {
+            // when
+            final var error = catchThrowable(() -> underTest.listByFiscalCode(fiscalCode));
+
+            // then
+            and.then(error).isInstanceOf(IllegalArgumentException.class);
+            then(repository).shouldHaveNoInteractions();
+        }
+
+        @Test
+        void list_throws_givenSizeAboveMax() {
+            // when
+            final var error = catchThrowable(() -> underTest.list(null, MAX_PAGE_SIZE + 1));
+
+            // then
+            and.then(error).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        void list_throws_givenInvalidCursor() {
+            // when
+            final var error = catchThrowable(() -> underTest.list("not a cursor", 10));
+
+            // then
+            and.then(error).isInstanceOf(InvalidCursorException.class);
+            then(repository).shouldHaveNoInteractions();
+        }
     }
 
     @Nested
@@ -96,12 +181,12 @@ class DefaultCustomerCrudServiceTest {
         void create_returnsUuidOfCreatedCustomer() {
             // given
             final var expected = UUID.randomUUID();
-            final var newCustomer = new Customer();
+            final var newCustomer = new Customer().setFirstName("John").setLastName("Doe");
             final var request = new CreateCustomerRequest("", "", "", "");
 
             given(mapper.toNewEntity(request))
                 .willReturn(newCustomer);
-            given(repository.save(newCustomer))
+            given(repository.saveAndFlush(newCustomer))
                 .will(invocation -> invocation.getArgument(0, Customer.class).setId(expected));
 
             // when
@@ -109,6 +194,87 @@ class DefaultCustomerCrudServiceTest {
 
             // then
             and.then(actual).isEqualTo(expected);
+            then(changeLog).should().append(new CustomerChangedEvent(expected, CREATED), 0L);
+            then(eventPublisher).should().publishEvent(new CustomerChangedEvent(expected, CREATED));
+            then(eventPublisher).should().publishEvent(new CustomersCreatedEvent(
+                List.of(new CustomerNameRow(expected, "John", "Doe"))));
+        }
+
+        @Test
+        void create_throws_givenDuplicateFiscalCode() {
+            // given
+            final var newCustomer = new Customer().setFiscalCode("ABCDEF12G34H567I");
+            final var request = new CreateCustomerRequest("", "", "", "");
+            final var violation = new DataIntegrityViolationException("duplicate",
+                new ConstraintViolationException("duplicate", new SQLException(),
+                    "PUBLIC.UX_CUSTOMER_FISCAL_CODE ON PUBLIC.CUSTOMER(FISCAL_CODE)"));
+
+            given(mapper.toNewEntity(request))
+                .willReturn(newCustomer);
+            given(repository.saveAndFlush(newCustomer))
+                .willThrow(violation);
+
+            // when
+            final var error = catchThrowable(() -> underTest.create(request));
+
+            // then
+            and.then(error)
+                .asInstanceOf(type(DuplicateFiscalCodeException.class))
+                .extracting(DuplicateFiscalCodeException::getFiscalCode)
+                .isEqualTo("ABCDEF12G34H567I");
+            then(changeLog).shouldHaveNoInteractions();
+            then(eventPublisher).shouldHaveNoInteractions();
+        }
+
+        @Test
+        void create_rethrows_givenOtherIntegrityViolation() {
+            // given
+            final var newCustomer = new Customer();
+            final var request = new CreateCustomerRequest("", "", "", "");
+            final var violation = new DataIntegrityViolationException("null first name");
+
+            given(mapper.toNewEntity(request))
+                .willReturn(newCustomer);
+            given(repository.saveAndFlush(newCustomer))
+                .willThrow(violation);
+
+            // when
+            final var error = catchThrowable(() -> underTest.create(request));
+
+            // then
+            and.then(error).isSameAs(violation);
+        }
+
+        @Test
+        void listByFiscalCode_looksUpUpperCasedFiscalCode() {
+            // given
+            final var customer = new Customer();
+            final var expected = new CustomerSummaryResponse("id", "", "", "ABCDEF12G34H567I", "");
+
+            given(repository.findByFiscalCode("ABCDEF12G34H567I"))
+                .willReturn(Optional.of(customer));
+            given(mapper.toSummaryDto(customer))
+                .willReturn(expected);
+
+            // when
+            final var actual = underTest.listByFiscalCode("abcdef12G34H567I");
+
+            // then
+            and.then(actual).containsExactly(expected);
+        }
+
+        @Test
+        void listByFiscalCode_returnsEmptyList_givenNoMatch() {
+            // given
+            given(repository.findByFiscalCode("ABCDEF12G34H567I"))
+                .willReturn(Optional.empty());
+
+            // when
+            final var actual = underTest.listByFiscalCode("ABCDEF12G34H567I");
+
+            // then
+            and.then(actual).isEmpty();
+            then(mapper).shouldHaveNoInteractions();
         }
 
         @Test
@@ -116,7 +282,8 @@ class DefaultCustomerCrudServiceTest {
             // given
             final var id = UUID.randomUUID();
 
-            given(repository.findFetchingDevicesById(id))
+            givenCacheMiss(id);
+            given(repository.findById(id))
                 .willReturn(Optional.empty());
 
             // when
@@ -134,14 +301,17 @@ class DefaultCustomerCrudServiceTest {
         void read_returnsCustomerDto_givenCustomerFound() {
             // given
             final var id = UUID.randomUUID();
-            final var customer = new Customer()
-                .setId(id);
-            final var expected = new ReadCustomerResponse(id.toString(), "", "", "", "", List.of());
+            final var customer = new Customer().setId(id);
+            final var expected = new ReadCustomerResponse(id.toString(), "", "", "", "", List.of(),
+                null);
 
-            given(repository.findFetchingDevicesById(id))
+            givenCacheMiss(id);
+            given(repository.findById(id))
                 .willReturn(Optional.of(customer));
+            given(repository.findDevicesById(id, PageRequest.of(0, MAX_EMBEDDED_DEVICES + 1)))
+                .willReturn(List.of());
 
-            given(mapper.toDto(customer))
+            given(mapper.toDto(customer, new PageResponse<>(List.of(), null)))
                 .willReturn(expected);
 
             // when
@@ -152,16 +322,38 @@ class DefaultCustomerCrudServiceTest {
         }
 
         @Test
-        void update_throws_givenCustomerNotFound() {
+        void read_returnsCachedDto_givenCacheHit() {
             // given
             final var id = UUID.randomUUID();
-            final var request = new UpdateCustomerRequest("some address");
+            final var expected = new ReadCustomerResponse(id.toString(), "", "", "", "", List.of(),
+                null);
+
+            given(responseCache.get(eq(id), any()))
+                .willReturn(new Revisioned<>("abc", expected));
 
             // when
-            final var error = catchThrowable(() -> underTest.update(id.toString(), request));
+            final ReadCustomerResponse actual = underTest.read(id.toString());
 
             // then
+            and.then(actual).isEqualTo(expected);
+            then(repository).shouldHaveNoInteractions();
             then(mapper).shouldHaveNoInteractions();
+        }
+
+        @Test
+        void read_throws_givenIdNotInExistenceFilter() {
+            // given
+            final var id = UUID.randomUUID();
+
+            given(existenceFilter.mightExist(id))
+                .willReturn(false);
+
+            // when
+            final var error = catchThrowable(() -> underTest.read(id.toString()));
+
+            // then
+            then(responseCache).shouldHaveNoInteractions();
+            then(repository).shouldHaveNoInteractions();
             and.then(error)
                 .asInstanceOf(type(CustomerNotFoundException.class))
                 .extracting(CustomerNotFoundException::getIdentifier)
@@ -169,21 +361,278 @@ class DefaultCustomerCrudServiceTest {
         }
 
         @Test
-        void update_mapsRequestToCustomer_givenCustomerFound() {
+        void readRevision_throws_givenCustomerNotFound() {
             // given
             final var id = UUID.randomUUID();
-            final var request = new UpdateCustomerRequest("some address");
 
+            given(repository.findRevisionById(id))
+                .willReturn(Optional.empty());
+
+            // when
+            final var error = catchThrowable(() -> underTest.readRevision(id.toString()));
+
+            // then
+            and.then(error)
+                .asInstanceOf(type(CustomerNotFoundException.class))
+                .extracting(CustomerNotFoundException::getIdentifier)
+                .isEqualTo(id);
+        }
+
+        @Test
+        void readRevision_matchesRevisionOfLoadedCustomer() {
+            // given
+            final var id = UUID.randomUUID();
+            final var firstDevice = new Device().setId(UUID.randomUUID());
+            firstDevice.setVersion(3);
+            final var secondDevice = new Device().setId(UUID.randomUUID());
+            secondDevice.setVersion(1);
             final var customer = new Customer().setId(id);
+            customer.setVersion(2);
 
+            givenCacheMiss(id);
             given(repository.findById(id))
                 .willReturn(Optional.of(customer));
+            given(repository.findDevicesById(id, PageRequest.of(0, MAX_EMBEDDED_DEVICES + 1)))
+                .willReturn(List.of(firstDevice, secondDevice));
+            given(repository.findRevisionById(id))
+                .willReturn(Optional.of(revisionRow(2, 2, 3L)));
+
+            // when
+            final Revisioned<ReadCustomerResponse> loaded = underTest.readRevisioned(id.toString());
+            final String actual = underTest.readRevision(id.toString());
+
+            // then
+            and.then(actual).isEqualTo(loaded.revision());
+        }
+
+        @Test
+        void read_embedsFirstDevicesOnly_givenMoreThanMax() {
+            // given
+            final var id = UUID.randomUUID();
+            final var customer = new Customer().setId(id);
+            final var devices = devices(MAX_EMBEDDED_DEVICES + 1);
+
+            givenCacheMiss(id);
+            given(repository.findById(id))
+                .willReturn(Optional.of(customer));
+            given(repository.findDevicesById(id, PageRequest.of(0, MAX_EMBEDDED_DEVICES + 1)))
+                .willReturn(devices);
+            given(repository.findRevisionById(id))
+                .willReturn(Optional.of(revisionRow(0, devices.size(), 0L)));
+            given(repository.findDevicesAfterById(id, devices.get(1).getCreatedAt(),
+                devices.get(1).getId(), PageRequest.of(0, 11)))
+                .willReturn(devices.subList(2, 3));
+            given(deviceMapper.toDto(any()))
+                .willAnswer(invocation -> deviceSummaryOf(invocation.getArgument(0)));
+            given(mapper.toDto(eq(customer), any()))
+                .willAnswer(invocation -> {
+                    final PageResponse<ReadDeviceResponse> page = invocation.getArgument(1);
+                    return new ReadCustomerResponse(id.toString(), "", "", "", "",
+                        page.items(), page.nextCursor());
+                });
+
+            // when
+            final var loaded = underTest.readRevisioned(id.toString());
+            final var remaining = underTest.listDevices(id.toString(),
+                loaded.content().devicesNextCursor(), 10);
+
+            // then
+            and.then(loaded.content().devices())
+                .extracting(ReadDeviceResponse::id)
+                .containsExactly(
+                    devices.get(0).getId().toString(),
+                    devices.get(1).getId().toString());
+            and.then(loaded.revision())
+                .isEqualTo(underTest.readRevision(id.toString()));
+            and.then(remaining.items())
+                .extracting(ReadDeviceResponse::id)
+                .containsExactly(devices.get(2).getId().toString());
+            and.then(remaining.nextCursor()).isNull();
+        }
+
+        @Test
+        void read_embedsNoDevices_andPointsToFirstPage_givenMaxOfZero() {
+            // given
+            underTest = new DefaultCustomerCrudService(mapper, deviceMapper, repository,
+                responseCache, existenceFilter, staleResponseStore, changeLog,
+                eventPublisher, 0);
+            final var id = UUID.randomUUID();
+            final var customer = new Customer().setId(id);
+            final var devices = devices(2);
+
+            givenCacheMiss(id);
+            given(repository.findById(id))
+                .willReturn(Optional.of(customer));
+            given(repository.findDevicesById(id, PageRequest.of(0, 1)))
+                .willReturn(devices.subList(0, 1));
+            given(repository.findRevisionById(id))
+                .willReturn(Optional.of(revisionRow(0, devices.size(), 0L)));
+            given(repository.findDevicesById(id, PageRequest.of(0, 11)))
+                .willReturn(devices);
+            given(deviceMapper.toDto(any()))
+                .willAnswer(invocation -> deviceSummaryOf(invocation.getArgument(0)));
+            given(mapper.toDto(eq(customer), any()))
+                .willAnswer(invocation -> {
+                    final PageResponse<ReadDeviceResponse> page = invocation.getArgument(1);
+                    return new ReadCustomerResponse(id.toString(), "", "", "", "",
+                        page.items(), page.nextCursor());
+                });
+
+            // when
+            final var loaded = underTest.readRevisioned(id.toString());
+            final var all = underTest.listDevices(id.toString(),
+                loaded.content().devicesNextCursor(), 10);
+
+            // then
+            and.then(loaded.content().devices()).isEmpty();
+            and.then(loaded.content().devicesNextCursor()).isNotNull();
+            and.then(all.items())
+                .extracting(ReadDeviceResponse::id)
+                .containsExactly(
+                    devices.get(0).getId().toString(),
+                    devices.get(1).getId().toString());
+            and.then(all.nextCursor()).isNull();
+        }
+
+        @Test
+        void listDevices_throws_givenCustomerNotFound() {
+            // given
+            final var id = UUID.randomUUID();
+
+            given(repository.findDevicesById(id, PageRequest.of(0, 11)))
+                .willReturn(List.of());
+            given(repository.existsById(id))
+                .willReturn(false);
+
+            // when
+            final var error = catchThrowable(() -> underTest.listDevices(id.toString(), null, 10));
+
+            // then
+            and.then(error)
+                .asInstanceOf(type(CustomerNotFoundException.class))
+                .extracting(CustomerNotFoundException::getIdentifier)
+                .isEqualTo(id);
+        }
+
+        @Test
+        void readRevision_changes_givenDeviceVersionChanged() {
+            // given
+            final var id = UUID.randomUUID();
+
+            given(repository.findRevisionById(id))
+                .willReturn(Optional.of(revisionRow(0, 1, 0L)))
+                .willReturn(Optional.of(revisionRow(0, 1, 1L)));
+
+            // when
+            final String before = underTest.readRevision(id.toString());
+            final String after = underTest.readRevision(id.toString());
+
+            // then
+            and.then(after).isNotEqualTo(before);
+        }
+
+        @Test
+        void update_throws_givenCustomerNotFound() {
+            // given
+            final var id = UUID.randomUUID();
+            final var request = new UpdateCustomerRequest("some address");
+
+            given(repository.updateAddress(eq(id), isNull(), any(), any()))
+                .willReturn(0);
+
+            // when
+            final var error = catchThrowable(() -> underTest.update(id.toString(), request));
+
+            // then
+            then(changeLog).shouldHaveNoInteractions();
+            and.then(error)
+                .asInstanceOf(type(CustomerNotFoundException.class))
+                .extracting(CustomerNotFoundException::getIdentifier)
+                .isEqualTo(id);
+        }
+
+        @Test
+        void update_updatesAddressWithoutLoadingCustomer() {
+            // given
+            final var id = UUID.randomUUID();
+            final var request = new UpdateCustomerRequest("some address");
+
+            willAnswer(invocation -> invocation.getArgument(1, Customer.class)
+                .setAddress("some address"))
+                .given(mapper).toEntity(eq(request), any());
+            given(repository.updateAddress(eq(id), isNull(), eq("some address"), any()))
+                .willReturn(1);
 
             // when
             underTest.update(id.toString(), request);
 
             // then
-            then(mapper).should().toEntity(request, customer);
+            then(repository).should().updateAddress(eq(id), isNull(), eq("some address"), any());
+            then(repository).shouldHaveNoMoreInteractions();
+            then(changeLog).should().append(new CustomerChangedEvent(id, UPDATED), null);
+            then(eventPublisher).should().publishEvent(new CustomerChangedEvent(id, UPDATED));
+        }
+
+        @Test
+        void update_updatesExpectedVersion_givenExpectedRevision() {
+            // given
+            final var id = UUID.randomUUID();
+            final var request = new UpdateCustomerRequest("some address");
+
+            given(repository.findRevisionById(id))
+                .willReturn(Optional.of(revisionRow(3, 0, null)));
+            given(repository.updateAddress(eq(id), eq(3L), any(), any()))
+                .willReturn(1);
+            final var revision = underTest.readRevision(id.toString());
+
+            // when
+            underTest.update(id.toString(), request, revision);
+
+            // then
+            then(changeLog).should().append(new CustomerChangedEvent(id, UPDATED), 4L);
+            then(eventPublisher).should().publishEvent(new CustomerChangedEvent(id, UPDATED));
+        }
+
+        @Test
+        void update_throws_givenOtherRevision() {
+            // given
+            final var id = UUID.randomUUID();
+            final var request = new UpdateCustomerRequest("some address");
+
+            given(repository.findRevisionById(id))
+                .willReturn(Optional.of(revisionRow(3, 0, null)));
+
+            // when
+            final var error = catchThrowable(
+                () -> underTest.update(id.toString(), request, "other"));
+
+            // then
+            then(repository).should(never()).updateAddress(any(), any(), any(), any());
+            and.then(error)
+                .asInstanceOf(type(PreconditionFailedException.class))
+                .extracting(PreconditionFailedException::getIdentifier)
+                .isEqualTo(id);
+        }
+
+        @Test
+        void update_throws_givenVersionChangedBeforeUpdate() {
+            // given
+            final var id = UUID.randomUUID();
+            final var request = new UpdateCustomerRequest("some address");
+
+            given(repository.findRevisionById(id))
+                .willReturn(Optional.of(revisionRow(3, 0, null)));
+            given(repository.updateAddress(eq(id), eq(3L), any(), any()))
+                .willReturn(0);
+            final var revision = underTest.readRevision(id.toString());
+
+            // when
+            final var error = catchThrowable(
+                () -> underTest.update(id.toString(), request, revision));
+
+            // then
+            then(changeLog).shouldHaveNoInteractions();
+            and.then(error).isInstanceOf(PreconditionFailedException.class);
         }
 
         @Test
@@ -191,14 +640,14 @@ class DefaultCustomerCrudServiceTest {
             // given
             final var id = UUID.randomUUID();
 
-            given(repository.findById(id))
-                .willReturn(Optional.empty());
+            given(repository.deleteRowById(id))
+                .willReturn(0);
 
             // when
             final var error = catchThrowable(() -> underTest.delete(id.toString()));
 
             // then
-            then(mapper).shouldHaveNoInteractions();
+            then(changeLog).shouldHaveNoInteractions();
             and.then(error)
                 .asInstanceOf(type(CustomerNotFoundException.class))
                 .extracting(CustomerNotFoundException::getIdentifier)
@@ -209,13 +658,146 @@ class DefaultCustomerCrudServiceTest {
         void delete_returnsWithoutThrowing_givenCustomerFound() {
             // given
             final var id = UUID.randomUUID();
-            final var customer = new Customer().setId(id);
 
-            given(repository.findById(id))
-                .willReturn(Optional.of(customer));
+            given(repository.deleteRowById(id))
+                .willReturn(1);
 
             // when/then
             thenNoException().isThrownBy(() -> underTest.delete(id.toString()));
+            then(repository).should(never()).findById(any());
+            then(changeLog).should().append(new CustomerChangedEvent(id, DELETED), null);
+            then(eventPublisher).should().publishEvent(new CustomerChangedEvent(id, DELETED));
+        }
+
+        @Test
+        void delete_deletesDevicesToo_givenCascade() {
+            // given
+            final var id = UUID.randomUUID();
+            final var deviceId = UUID.randomUUID();
+
+            given(repository.lockById(id))
+                .willReturn(Optional.of(id));
+            given(repository.findDeviceIdsById(id))
+                .willReturn(List.of(deviceId));
+
+            // when
+            underTest.delete(id.toString(), true);
+
+            // then
+            then(repository).should().deleteDevicesById(id);
+            then(repository).should().deleteRowById(id);
+            then(repository).should(never()).findById(any());
+
+            final var deviceEvent = new DeviceChangedEvent(deviceId, id, DELETED);
+            then(changeLog).should().appendDevices(List.of(deviceEvent), null);
+            then(changeLog).should().append(new CustomerChangedEvent(id, DELETED), null);
+            then(eventPublisher).should().publishEvent(deviceEvent);
+            then(eventPublisher).should().publishEvent(new CustomerChangedEvent(id, DELETED));
+        }
+
+        @Test
+        void delete_throws_givenCascadeAndCustomerNotFound() {
+            // given
+            final var id = UUID.randomUUID();
+
+            given(repository.lockById(id))
+                .willReturn(Optional.empty());
+
+            // when
+            final var error = catchThrowable(() -> underTest.delete(id.toString(), true));
+
+            // then
+            and.then(error).isInstanceOf(CustomerNotFoundException.class);
+            then(repository).should(never()).deleteDevicesById(any());
+            then(changeLog).shouldHaveNoInteractions();
+        }
+
+        @Test
+        void list_seeksAfterLastCustomer_givenNextCursor() {
+            // given
+            final var createdAt = LocalDateTime.of(2023, 1, 2, 3, 4, 5, 6);
+            final var customers = Stream.generate(() -> {
+                    final var customer = new Customer().setId(UUID.randomUUID());
+                    customer.setCreatedAt(createdAt);
+                    return customer;
+                })
+                .limit(3)
+                .toList();
+
+            given(repository.findFirstPage(PageRequest.of(0, 3)))
+                .willReturn(customers);
+            given(repository.findPageAfter(createdAt, customers.get(1).getId(),
+                PageRequest.of(0, 3)))
+                .willReturn(customers.subList(2, 3));
+            given(mapper.toSummaryDto(any()))
+                .willAnswer(invocation -> summaryOf(invocation.getArgument(0)));
+
+            // when
+            final var first = underTest.list(null, 2);
+            final var second = underTest.list(first.nextCursor(), 2);
+
+            // then
+            and.then(first.items())
+                .extracting(CustomerSummaryResponse::id)
+                .containsExactly(
+                    customers.get(0).getId().toString(),
+                    customers.get(1).getId().toString());
+            and.then(first.nextCursor()).isNotNull();
+            and.then(second.items())
+                .extracting(CustomerSummaryResponse::id)
+                .containsExactly(customers.get(2).getId().toString());
+            and.then(second.nextCursor()).isNull();
+        }
+
+        private List<Device> devices(int count) {
+            final var createdAt = LocalDateTime.of(2023, 1, 2, 3, 4, 5, 6);
+            return Stream.generate(() -> {
+                    final var device = new Device().setId(UUID.randomUUID());
+                    device.setCreatedAt(createdAt);
+                    return device;
+                })
+                .limit(count)
+                .toList();
+        }
+
+        private ReadDeviceResponse deviceSummaryOf(Device device) {
+            return new ReadDeviceResponse(device.getId().toString(), null, null, null);
+        }
+
+        private CustomerSummaryResponse summaryOf(Customer customer) {
+            return new CustomerSummaryResponse(customer.getId().toString(), null, null, null, null);
+        }
+
+        private RevisionRow revisionRow(long customerVersion, long deviceCount,
+            Long maxDeviceVersion) {
+
+            return new RevisionRow() {
+                @Override
+                public long getCustomerVersion() {
+                    return customerVersion;
+                }
+
+                @Override
+                public long getDeviceCount() {
+                    return deviceCount;
+                }
+
+                @Override
+                public Long getMaxDeviceVersion() {
+                    return maxDeviceVersion;
+                }
+
+                @Override
+                public LocalDateTime getLastDeviceModifiedAt() {
+                    return null;
+                }
+            };
+        }
+
+        @SuppressWarnings("unchecked")
+        private void givenCacheMiss(UUID id) {
+            given(responseCache.get(eq(id), any()))
+                .will(invocation -> invocation.getArgument(1, Supplier.class).get());
         }
     }
 
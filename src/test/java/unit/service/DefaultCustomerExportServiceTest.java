@@ -0,0 +1,140 @@
+package unit.service;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.BDDAssertions.and;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.lenient;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.jacopocav.customercare.component.CustomerMapper;
+import io.jacopocav.customercare.component.DeviceMapper;
+import io.jacopocav.customercare.dto.PageResponse;
+import io.jacopocav.customercare.dto.ReadCustomerResponse;
+import io.jacopocav.customercare.dto.ReadDeviceResponse;
+import io.jacopocav.customercare.model.Customer;
+import io.jacopocav.customercare.model.Device;
+import io.jacopocav.customercare.repository.CustomerDeviceRow;
+import io.jacopocav.customercare.repository.CustomerRepository;
+import io.jacopocav.customercare.service.DefaultCustomerExportService;
+import jakarta.persistence.EntityManager;
+
+@ExtendWith(MockitoExtension.class)
+@SuppressWarnings("AccessStaticViaInstance")
+class DefaultCustomerExportServiceTest {
+    @Mock CustomerRepository repository;
+    @Mock CustomerMapper mapper;
+    @Mock DeviceMapper deviceMapper;
+    @Mock EntityManager entityManager;
+
+    final ObjectMapper objectMapper = new ObjectMapper();
+
+    DefaultCustomerExportService underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new DefaultCustomerExportService(repository, mapper, deviceMapper,
+            entityManager, objectMapper);
+
+        lenient().when(deviceMapper.toDto(any()))
+            .thenAnswer(invocation -> {
+                final Device device = invocation.getArgument(0);
+                return new ReadDeviceResponse(device.getId().toString(), null, null,
+                    device.getCustomer().getId().toString());
+            });
+        lenient().when(mapper.toDto(any(), any()))
+            .thenAnswer(invocation -> {
+                final Customer customer = invocation.getArgument(0);
+                final PageResponse<ReadDeviceResponse> devices = invocation.getArgument(1);
+                return new ReadCustomerResponse(customer.getId().toString(), null, null, null,
+                    null, devices.items(), devices.nextCursor());
+            });
+    }
+
+    @Test
+    void export_writesOneLinePerCustomerWithItsDevices() throws Exception {
+        // given
+        final var first = customer();
+        final var second = customer();
+        final var third = customer();
+        final var firstDevice = device(first);
+        final var secondDevice = device(first);
+        final var thirdDevice = device(third);
+
+        final var closed = new AtomicBoolean();
+        given(repository.streamAllWithDevices())
+            .willReturn(Stream.of(
+                    new Row(first, firstDevice),
+                    new Row(first, secondDevice),
+                    new Row(second, null),
+                    new Row(third, thirdDevice))
+                .map(CustomerDeviceRow.class::cast)
+                .onClose(() -> closed.set(true)));
+
+        final var output = new ByteArrayOutputStream();
+
+        // when
+        underTest.export(output);
+
+        // then
+        final var lines = output.toString(UTF_8).split("\n", -1);
+        and.then(lines).hasSize(4);
+        and.then(lines[3]).isEmpty();
+
+        and.then(objectMapper.readValue(lines[0], ReadCustomerResponse.class).devices())
+            .extracting(ReadDeviceResponse::id)
+            .containsExactly(firstDevice.getId().toString(), secondDevice.getId().toString());
+        and.then(objectMapper.readValue(lines[1], ReadCustomerResponse.class))
+            .extracting(ReadCustomerResponse::id, ReadCustomerResponse::devices)
+            .containsExactly(second.getId().toString(), List.of());
+        and.then(objectMapper.readValue(lines[2], ReadCustomerResponse.class).devices())
+            .extracting(ReadDeviceResponse::id)
+            .containsExactly(thirdDevice.getId().toString());
+
+        for (final var entity : List.of(first, second, third, firstDevice, secondDevice,
+            thirdDevice)) {
+            then(entityManager).should().detach(entity);
+        }
+        and.then(closed).isTrue();
+    }
+
+    @Test
+    void export_writesNothing_givenNoCustomer() throws Exception {
+        // given
+        given(repository.streamAllWithDevices())
+            .willReturn(Stream.empty());
+
+        final var output = new ByteArrayOutputStream();
+
+        // when
+        underTest.export(output);
+
+        // then
+        and.then(output.toByteArray()).isEmpty();
+    }
+
+    static Customer customer() {
+        return new Customer().setId(UUID.randomUUID());
+    }
+
+    static Device device(Customer customer) {
+        return new Device().setId(UUID.randomUUID()).setCustomer(customer);
+    }
+
+    record Row(Customer getCustomer, Device getDevice) implements CustomerDeviceRow {
+    }
+}
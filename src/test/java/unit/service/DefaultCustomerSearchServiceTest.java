@@ -0,0 +1,97 @@
+package unit.service;
+
+import static org.assertj.core.api.BDDAssertions.and;
+import static org.assertj.core.api.BDDAssertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.jacopocav.customercare.cache.CustomerNameIndex;
+import io.jacopocav.customercare.component.CustomerMapper;
+import io.jacopocav.customercare.dto.CustomerSummaryResponse;
+import io.jacopocav.customercare.model.Customer;
+import io.jacopocav.customercare.repository.CustomerRepository;
+import io.jacopocav.customercare.service.DefaultCustomerSearchService;
+
+@ExtendWith(MockitoExtension.class)
+@SuppressWarnings("AccessStaticViaInstance")
+class DefaultCustomerSearchServiceTest {
+    @Mock CustomerNameIndex nameIndex;
+    @Mock CustomerRepository repository;
+    @Mock CustomerMapper mapper;
+
+    DefaultCustomerSearchService underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new DefaultCustomerSearchService(nameIndex, repository, mapper);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"' ', 10", "jo, 0", "jo, 101"})
+    void search_throws_givenIllegalArguments(String prefix, int size) {
+        // when
+        final var error = catchThrowable(() -> underTest.search(prefix, size));
+
+        // then
+        and.then(error).isInstanceOf(IllegalArgumentException.class);
+        then(nameIndex).shouldHaveNoInteractions();
+    }
+
+    @Test
+    void search_returnsCustomersInIndexOrder_skippingMissingOnes() {
+        // given
+        final var first = customer();
+        final var missing = UUID.randomUUID();
+        final var second = customer();
+        final var ids = List.of(first.getId(), missing, second.getId());
+
+        given(nameIndex.search("jo", 10))
+            .willReturn(ids);
+        given(repository.findAllById(ids))
+            .willReturn(List.of(second, first));
+        given(mapper.toSummaryDto(any()))
+            .willAnswer(invocation -> summary(invocation.getArgument(0)));
+
+        // when
+        final var actual = underTest.search("jo", 10);
+
+        // then
+        and.then(actual).containsExactly(summary(first), summary(second));
+    }
+
+    @Test
+    void search_returnsEmptyList_withoutQuerying_givenNoMatch() {
+        // given
+        given(nameIndex.search("zz", 10))
+            .willReturn(List.of());
+
+        // when
+        final var actual = underTest.search("zz", 10);
+
+        // then
+        and.then(actual).isEmpty();
+        then(repository).shouldHaveNoInteractions();
+    }
+
+    private static Customer customer() {
+        final var customer = new Customer();
+        customer.setId(UUID.randomUUID());
+        return customer;
+    }
+
+    private static CustomerSummaryResponse summary(Customer customer) {
+        return new CustomerSummaryResponse(customer.getId().toString(), null, null, null, null);
+    }
+}
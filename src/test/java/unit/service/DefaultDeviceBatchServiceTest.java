@@ -0,0 +1,162 @@
+package unit.service;
+
+import static io.jacopocav.customercare.event.ChangeType.CREATED;
+import static org.assertj.core.api.BDDAssertions.and;
+import static org.assertj.core.api.BDDAssertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.lenient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.jacopocav.customercare.cache.ChangeLog;
+import io.jacopocav.customercare.component.DeviceMapper;
+import io.jacopocav.customercare.dto.BatchItemError;
+import io.jacopocav.customercare.dto.CreateDeviceRequest;
+import io.jacopocav.customercare.error.CustomerNotFoundException;
+import io.jacopocav.customercare.event.DeviceChangedEvent;
+import io.jacopocav.customercare.model.Customer;
+import io.jacopocav.customercare.model.Device;
+import io.jacopocav.customercare.repository.DeviceCountRow;
+import io.jacopocav.customercare.repository.DeviceRepository;
+import io.jacopocav.customercare.service.DefaultDeviceBatchService;
+import jakarta.validation.Validation;
+
+@ExtendWith(MockitoExtension.class)
+@SuppressWarnings("AccessStaticViaInstance")
+class DefaultDeviceBatchServiceTest {
+    static final UUID FULL_CUSTOMER = UUID.randomUUID();
+    static final UUID EMPTY_CUSTOMER = UUID.randomUUID();
+    static final UUID MISSING_CUSTOMER = UUID.randomUUID();
+
+    @Mock DeviceMapper mapper;
+    @Mock DeviceRepository repository;
+    @Mock ChangeLog changeLog;
+    @Mock ApplicationEventPublisher eventPublisher;
+    @Mock TransactionTemplate transactionTemplate;
+
+    final List<Device> saved = new ArrayList<>();
+
+    DefaultDeviceBatchService underTest;
+
+    @BeforeEach
+    void setUp() {
+        final var validator = Validation.buildDefaultValidatorFactory().getValidator();
+        underTest = new DefaultDeviceBatchService(mapper, repository, changeLog,
+            eventPublisher, validator, transactionTemplate, 2, 10, 1, Duration.ofSeconds(10));
+
+        lenient().when(transactionTemplate.execute(any()))
+            .thenAnswer(invocation -> invocation
+                .getArgument(0, TransactionCallback.class).doInTransaction(null));
+        lenient().when(mapper.toNewEntity(any()))
+            .thenAnswer(invocation -> {
+                final CreateDeviceRequest request = invocation.getArgument(0);
+                final var customer = new Customer();
+                customer.setId(UUID.fromString(request.customerId()));
+                return new Device().setCustomer(customer);
+            });
+        lenient().when(repository.saveAll(anyList()))
+            .thenAnswer(invocation -> {
+                final List<Device> devices = invocation.getArgument(0);
+                devices.forEach(device -> device.setId(UUID.randomUUID()));
+                saved.addAll(devices);
+                return devices;
+            });
+    }
+
+    @Test
+    void createAll_enforcesDeviceLimitPerCustomer() {
+        // given
+        final var requests = List.of(
+            request(FULL_CUSTOMER),
+            request(EMPTY_CUSTOMER),
+            request(MISSING_CUSTOMER),
+            request(EMPTY_CUSTOMER),
+            request(EMPTY_CUSTOMER));
+
+        given(repository.lockCustomersByIds(
+            Set.of(FULL_CUSTOMER, EMPTY_CUSTOMER, MISSING_CUSTOMER)))
+            .willReturn(List.of(FULL_CUSTOMER, EMPTY_CUSTOMER));
+        given(repository.countByCustomerIds(anyCollection()))
+            .willReturn(List.of(new Count(FULL_CUSTOMER, 2)));
+
+        // when
+        final var actual = underTest.createAll(requests);
+
+        // then
+        then(repository).should().saveAll(anyList());
+        and.then(saved).hasSize(2);
+
+        and.then(actual.ids()).containsExactly(
+            null,
+            saved.get(0).getId().toString(),
+            null,
+            saved.get(1).getId().toString(),
+            null);
+        and.then(actual.errors())
+            .extracting(BatchItemError::index)
+            .containsExactly(0, 2, 4);
+        and.then(actual.errors())
+            .extracting(error -> error.error().summary())
+            .containsExactly("Device limit reached", "Customer not found", "Device limit reached");
+
+        for (final var device : saved) {
+            then(eventPublisher).should()
+                .publishEvent(new DeviceChangedEvent(device.getId(), EMPTY_CUSTOMER, CREATED));
+        }
+        then(changeLog).should().appendDevices(anyList(), any(Long.class));
+    }
+
+    @Test
+    void createAll_skipsQueries_givenNoValidRequest() {
+        // given
+        final var requests = List.of(new CreateDeviceRequest("not an id", "ACTIVE", "#aabbcc"));
+
+        // when
+        final var actual = underTest.createAll(requests);
+
+        // then
+        and.then(actual.ids()).containsExactly((String) null);
+        and.then(actual.errors())
+            .extracting(BatchItemError::index)
+            .containsExactly(0);
+        then(repository).shouldHaveNoInteractions();
+    }
+
+    @Test
+    void create_throwsSameExceptionAsSingleCreation() {
+        // given
+        given(repository.lockCustomersByIds(Set.of(MISSING_CUSTOMER)))
+            .willReturn(List.of());
+
+        // when
+        final var error = catchThrowable(() -> underTest.create(request(MISSING_CUSTOMER)));
+
+        // then
+        and.then(error).isInstanceOf(CustomerNotFoundException.class);
+        and.then(saved).isEmpty();
+    }
+
+    static CreateDeviceRequest request(UUID customerId) {
+        return new CreateDeviceRequest(customerId.toString(), "ACTIVE", "#aabbcc");
+    }
+
+    record Count(UUID getCustomerId, long getDevices) implements DeviceCountRow {
+    }
+}
@@ -4,14 +4,22 @@ import static org.assertj.core.api.BDDAssertions.and;
 import static org.assertj.core.api.BDDAssertions.catchThrowable;
 import static org.assertj.core.api.BDDAssertions.thenNoException;
 import static org.assertj.core.api.InstanceOfAssertFactories.type;
+import static io.jacopocav.customercare.event.ChangeType.CREATED;
+import static io.jacopocav.customercare.event.ChangeType.DELETED;
+import static io.jacopocav.customercare.event.ChangeType.UPDATED;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
 
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import org.apache.commons.lang3.RandomUtils;
@@ -27,15 +35,27 @@ import org.junit.jupiter.params.provider.ArgumentsSource;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
+import io.jacopocav.customercare.cache.ChangeLog;
+import io.jacopocav.customercare.cache.DeviceJsonCache;
+import io.jacopocav.customercare.cache.ExistenceFilter;
+import io.jacopocav.customercare.cache.StaleResponseStore;
 import io.jacopocav.customercare.component.DeviceMapper;
 import io.jacopocav.customercare.dto.CreateDeviceRequest;
 import io.jacopocav.customercare.dto.ReadDeviceResponse;
+import io.jacopocav.customercare.dto.Revisioned;
 import io.jacopocav.customercare.dto.UpdateDeviceRequest;
+import io.jacopocav.customercare.error.CustomerNotFoundException;
 import io.jacopocav.customercare.error.DeviceLimitReachedException;
 import io.jacopocav.customercare.error.DeviceNotFoundException;
+import io.jacopocav.customercare.error.PreconditionFailedException;
+import io.jacopocav.customercare.event.DeviceChangedEvent;
+import io.jacopocav.customercare.model.Customer;
 import io.jacopocav.customercare.model.Device;
+import io.jacopocav.customercare.model.Device.Status;
 import io.jacopocav.customercare.repository.DeviceRepository;
+import io.jacopocav.customercare.repository.OwnedVersionRow;
 import io.jacopocav.customercare.service.DefaultDeviceCrudService;
 
 @ExtendWith(MockitoExtension.class)
@@ -44,12 +64,25 @@ class DefaultDeviceCrudServiceTest {
     static final int DEVICE_LIMIT = 42;
     @Mock DeviceMapper mapper;
     @Mock DeviceRepository repository;
+    @Mock DeviceJsonCache jsonCache;
+    @Mock ExistenceFilter existenceFilter;
+    @Mock StaleResponseStore staleResponseStore;
+    @Mock ChangeLog changeLog;
+    @Mock ApplicationEventPublisher eventPublisher;
 
     DefaultDeviceCrudService underTest;
 
     @BeforeEach
     void setUp() {
-        underTest = new DefaultDeviceCrudService(mapper, repository, DEVICE_LIMIT);
+        underTest = new DefaultDeviceCrudService(mapper, repository, jsonCache, existenceFilter,
+            staleResponseStore, changeLog, eventPublisher, DEVICE_LIMIT);
+
+        lenient().when(existenceFilter.mightExist(any()))
+            .thenReturn(true);
+        lenient().when(staleResponseStore.read(any(), any()))
+            .thenAnswer(invocation -> invocation.getArgument(1, Supplier.class).get());
+        lenient().when(staleResponseStore.readRevision(any(), any()))
+            .thenAnswer(invocation -> invocation.getArgument(1, Supplier.class).get());
     }
 
     @Nested
@@ -74,6 +107,16 @@ class DefaultDeviceCrudServiceTest {
             and.then(error).isInstanceOf(IllegalArgumentException.class);
         }
 
+        @ParameterizedTest
+        @ArgumentsSource(IllegalIds.class)
+        void readJson_throws_givenIllegalId(String illegalId) {
+            // when
+            final var error = catchThrowable(() -> underTest.readJson(illegalId));
+
+            // then
+            and.then(error).isInstanceOf(IllegalArgumentException.class);
+        }
+
         @ParameterizedTest
         @ArgumentsSource(Update_IllegalArguments.class)
         void update_throws_givenIllegalArguments(String id, UpdateDeviceRequest request) {
@@ -107,12 +150,36 @@ class DefaultDeviceCrudServiceTest {
 
     @Nested
     class LegalArgumentsTest {
+        @Test
+        void create_throws_givenCustomerNotFound() {
+            // given
+            final var customerId = UUID.randomUUID();
+            final var request = new CreateDeviceRequest(customerId.toString(), "", "");
+
+            given(repository.lockCustomerById(customerId))
+                .willReturn(Optional.empty());
+
+            // when
+            final var error = catchThrowable(() -> underTest.create(request));
+
+            // then
+            then(repository).should(never()).countByCustomerId(any());
+            then(repository).should(never()).save(any());
+
+            and.then(error)
+                .asInstanceOf(type(CustomerNotFoundException.class))
+                .extracting(CustomerNotFoundException::getIdentifier)
+                .isEqualTo(customerId);
+        }
+
         @Test
         void create_throws_givenLimitReachedForGivenCustomer() {
             // given
             final var customerId = UUID.randomUUID();
             final var request = new CreateDeviceRequest(customerId.toString(), "", "");
 
+            given(repository.lockCustomerById(customerId))
+                .willReturn(Optional.of(customerId));
             given(repository.countByCustomerId(customerId))
                 .willReturn(DEVICE_LIMIT);
 
@@ -138,6 +205,8 @@ class DefaultDeviceCrudServiceTest {
             final var newDevice = new Device();
             final var request = new CreateDeviceRequest(customerId.toString(), "", "");
 
+            given(repository.lockCustomerById(customerId))
+                .willReturn(Optional.of(customerId));
             given(repository.countByCustomerId(customerId))
                 .willReturn(RandomUtils.nextInt(0, DEVICE_LIMIT));
             given(mapper.toNewEntity(request))
@@ -150,6 +219,10 @@ class DefaultDeviceCrudServiceTest {
 
             // then
             and.then(actual).isEqualTo(expected);
+            then(changeLog).should()
+                .append(new DeviceChangedEvent(expected, customerId, CREATED), 0L);
+            then(eventPublisher).should()
+                .publishEvent(new DeviceChangedEvent(expected, customerId, CREATED));
         }
 
         @Test
@@ -193,16 +266,84 @@ class DefaultDeviceCrudServiceTest {
         }
 
         @Test
-        void update_throws_givenDeviceNotFound() {
+        void readJson_throws_givenDeviceNotFound() {
             // given
             final var id = UUID.randomUUID();
-            final var request = new UpdateDeviceRequest("some status", "some color");
+
+            given(repository.findVersionById(id))
+                .willReturn(Optional.empty());
 
             // when
-            final var error = catchThrowable(() -> underTest.update(id.toString(), request));
+            final var error = catchThrowable(() -> underTest.readJson(id.toString()));
 
             // then
+            then(jsonCache).shouldHaveNoInteractions();
+            and.then(error)
+                .asInstanceOf(type(DeviceNotFoundException.class))
+                .extracting(DeviceNotFoundException::getIdentifier)
+                .isEqualTo(id);
+        }
+
+        @Test
+        void readJson_returnsCachedJson_givenVersionCached() {
+            // given
+            final var id = UUID.randomUUID();
+            final var expected = new byte[] {1, 2, 3};
+
+            given(repository.findVersionById(id))
+                .willReturn(Optional.of(7L));
+            given(jsonCache.get(id, 7L))
+                .willReturn(expected);
+
+            // when
+            final Revisioned<byte[]> actual = underTest.readJson(id.toString());
+
+            // then
+            and.then(actual.content()).isEqualTo(expected);
+            and.then(actual.revision()).isEqualTo(underTest.readRevision(id.toString()));
+            then(repository).should(never()).findById(any());
             then(mapper).shouldHaveNoInteractions();
+        }
+
+        @Test
+        void readJson_cachesJsonUnderLoadedVersion_givenVersionNotCached() {
+            // given
+            final var id = UUID.randomUUID();
+            final var device = new Device().setId(id);
+            device.setVersion(8L);
+            final var dto = new ReadDeviceResponse(id.toString(), "", "", "");
+            final var expected = new byte[] {1, 2, 3};
+
+            given(repository.findVersionById(id))
+                .willReturn(Optional.of(7L))
+                .willReturn(Optional.of(8L));
+            given(repository.findById(id))
+                .willReturn(Optional.of(device));
+            given(mapper.toDto(device))
+                .willReturn(dto);
+            given(jsonCache.put(id, 8L, dto))
+                .willReturn(expected);
+
+            // when
+            final Revisioned<byte[]> actual = underTest.readJson(id.toString());
+
+            // then
+            and.then(actual.content()).isEqualTo(expected);
+            and.then(actual.revision()).isEqualTo(underTest.readRevision(id.toString()));
+        }
+
+        @Test
+        void readRevision_throws_givenDeviceNotFound() {
+            // given
+            final var id = UUID.randomUUID();
+
+            given(repository.findVersionById(id))
+                .willReturn(Optional.empty());
+
+            // when
+            final var error = catchThrowable(() -> underTest.readRevision(id.toString()));
+
+            // then
             and.then(error)
                 .asInstanceOf(type(DeviceNotFoundException.class))
                 .extracting(DeviceNotFoundException::getIdentifier)
@@ -210,21 +351,136 @@ class DefaultDeviceCrudServiceTest {
         }
 
         @Test
-        void update_mapsRequestToDevice_givenDeviceFound() {
+        void readRevision_changes_givenVersionChanged() {
+            // given
+            final var id = UUID.randomUUID();
+
+            given(repository.findVersionById(id))
+                .willReturn(Optional.of(1L))
+                .willReturn(Optional.of(2L));
+
+            // when
+            final String before = underTest.readRevision(id.toString());
+            final String after = underTest.readRevision(id.toString());
+
+            // then
+            and.then(after).isNotEqualTo(before);
+        }
+
+        @Test
+        void update_throws_givenDeviceNotFound() {
             // given
             final var id = UUID.randomUUID();
             final var request = new UpdateDeviceRequest("some status", "some color");
 
-            final var customer = new Device().setId(id);
+            given(repository.update(eq(id), isNull(), any(), any(), any()))
+                .willReturn(0);
 
-            given(repository.findById(id))
-                .willReturn(Optional.of(customer));
+            // when
+            final var error = catchThrowable(() -> underTest.update(id.toString(), request));
+
+            // then
+            then(changeLog).shouldHaveNoInteractions();
+            and.then(error)
+                .asInstanceOf(type(DeviceNotFoundException.class))
+                .extracting(DeviceNotFoundException::getIdentifier)
+                .isEqualTo(id);
+        }
+
+        @Test
+        void update_updatesDeviceWithoutLoadingIt() {
+            // given
+            final var id = UUID.randomUUID();
+            final var request = new UpdateDeviceRequest("lost", "some color");
+            final var customerId = UUID.randomUUID();
+
+            willAnswer(invocation -> invocation.getArgument(1, Device.class)
+                .setStatus(Status.LOST)
+                .setColor("some color"))
+                .given(mapper).toEntity(eq(request), any());
+            given(repository.update(eq(id), isNull(), eq(Status.LOST), eq("some color"), any()))
+                .willReturn(1);
+            given(repository.findOwnedVersionById(id))
+                .willReturn(Optional.of(ownedVersionRow(customerId, 4)));
 
             // when
             underTest.update(id.toString(), request);
 
             // then
-            then(mapper).should().toEntity(request, customer);
+            then(repository).should(never()).findById(any());
+            then(changeLog).should()
+                .append(new DeviceChangedEvent(id, customerId, UPDATED), 4L);
+            then(eventPublisher).should()
+                .publishEvent(new DeviceChangedEvent(id, customerId, UPDATED));
+        }
+
+        @Test
+        void update_updatesExpectedVersion_givenExpectedRevision() {
+            // given
+            final var id = UUID.randomUUID();
+            final var request = new UpdateDeviceRequest("lost", "some color");
+            final var customerId = UUID.randomUUID();
+
+            given(repository.findVersionById(id))
+                .willReturn(Optional.of(3L));
+            given(repository.findOwnedVersionById(id))
+                .willReturn(Optional.of(ownedVersionRow(customerId, 3)));
+            given(repository.update(eq(id), eq(3L), any(), any(), any()))
+                .willReturn(1);
+            final var revision = underTest.readRevision(id.toString());
+
+            // when
+            underTest.update(id.toString(), request, revision);
+
+            // then
+            then(changeLog).should()
+                .append(new DeviceChangedEvent(id, customerId, UPDATED), 4L);
+            then(eventPublisher).should()
+                .publishEvent(new DeviceChangedEvent(id, customerId, UPDATED));
+        }
+
+        @Test
+        void update_throws_givenOtherRevision() {
+            // given
+            final var id = UUID.randomUUID();
+            final var request = new UpdateDeviceRequest("lost", "some color");
+
+            given(repository.findOwnedVersionById(id))
+                .willReturn(Optional.of(ownedVersionRow(UUID.randomUUID(), 3)));
+
+            // when
+            final var error = catchThrowable(
+                () -> underTest.update(id.toString(), request, "other"));
+
+            // then
+            then(repository).should(never()).update(any(), any(), any(), any(), any());
+            and.then(error)
+                .asInstanceOf(type(PreconditionFailedException.class))
+                .extracting(PreconditionFailedException::getIdentifier)
+                .isEqualTo(id);
+        }
+
+        @Test
+        void update_throws_givenVersionChangedBeforeUpdate() {
+            // given
+            final var id = UUID.randomUUID();
+            final var request = new UpdateDeviceRequest("lost", "some color");
+
+            given(repository.findVersionById(id))
+                .willReturn(Optional.of(3L));
+            given(repository.findOwnedVersionById(id))
+                .willReturn(Optional.of(ownedVersionRow(UUID.randomUUID(), 3)));
+            given(repository.update(eq(id), eq(3L), any(), any(), any()))
+                .willReturn(0);
+            final var revision = underTest.readRevision(id.toString());
+
+            // when
+            final var error = catchThrowable(
+                () -> underTest.update(id.toString(), request, revision));
+
+            // then
+            then(changeLog).shouldHaveNoInteractions();
+            and.then(error).isInstanceOf(PreconditionFailedException.class);
         }
 
         @Test
@@ -232,31 +488,57 @@ class DefaultDeviceCrudServiceTest {
             // given
             final var id = UUID.randomUUID();
 
-            given(repository.findById(id))
+            given(repository.findCustomerIdById(id))
                 .willReturn(Optional.empty());
 
             // when
             final var error = catchThrowable(() -> underTest.delete(id.toString()));
 
             // then
-            then(mapper).shouldHaveNoInteractions();
+            then(repository).should(never()).deleteRowById(any());
+            then(changeLog).shouldHaveNoInteractions();
             and.then(error)
                 .asInstanceOf(type(DeviceNotFoundException.class))
                 .extracting(DeviceNotFoundException::getIdentifier)
                 .isEqualTo(id);
         }
 
+        @Test
+        void delete_throws_givenDeviceDeletedConcurrently() {
+            // given
+            final var id = UUID.randomUUID();
+
+            given(repository.findCustomerIdById(id))
+                .willReturn(Optional.of(UUID.randomUUID()));
+            given(repository.deleteRowById(id))
+                .willReturn(0);
+
+            // when
+            final var error = catchThrowable(() -> underTest.delete(id.toString()));
+
+            // then
+            then(changeLog).shouldHaveNoInteractions();
+            and.then(error).isInstanceOf(DeviceNotFoundException.class);
+        }
+
         @Test
         void delete_returnsWithoutThrowing_givenDeviceFound() {
             // given
             final var id = UUID.randomUUID();
-            final var customer = new Device().setId(id);
+            final var customerId = UUID.randomUUID();
 
-            given(repository.findById(id))
-                .willReturn(Optional.of(customer));
+            given(repository.findCustomerIdById(id))
+                .willReturn(Optional.of(customerId));
+            given(repository.deleteRowById(id))
+                .willReturn(1);
 
             // when/then
             thenNoException().isThrownBy(() -> underTest.delete(id.toString()));
+            then(repository).should(never()).findById(any());
+            then(changeLog).should()
+                .append(new DeviceChangedEvent(id, customerId, DELETED), null);
+            then(eventPublisher).should()
+                .publishEvent(new DeviceChangedEvent(id, customerId, DELETED));
         }
 
         @ParameterizedTest
@@ -274,6 +556,56 @@ class DefaultDeviceCrudServiceTest {
             // then
             and.then(actual).isEqualTo(expected);
         }
+
+        @Test
+        void exists_returnsFalse_givenIdNotInExistenceFilter() {
+            // given
+            final var id = UUID.randomUUID();
+
+            given(existenceFilter.mightExist(id))
+                .willReturn(false);
+
+            // when
+            final var actual = underTest.exists(id.toString());
+
+            // then
+            and.then(actual).isFalse();
+            then(repository).shouldHaveNoInteractions();
+        }
+
+        @Test
+        void readJson_throws_givenIdNotInExistenceFilter() {
+            // given
+            final var id = UUID.randomUUID();
+
+            given(existenceFilter.mightExist(id))
+                .willReturn(false);
+
+            // when
+            final var error = catchThrowable(() -> underTest.readJson(id.toString()));
+
+            // then
+            then(repository).shouldHaveNoInteractions();
+            then(jsonCache).shouldHaveNoInteractions();
+            and.then(error)
+                .asInstanceOf(type(DeviceNotFoundException.class))
+                .extracting(DeviceNotFoundException::getIdentifier)
+                .isEqualTo(id);
+        }
+
+        private OwnedVersionRow ownedVersionRow(UUID customerId, long version) {
+            return new OwnedVersionRow() {
+                @Override
+                public UUID getCustomerId() {
+                    return customerId;
+                }
+
+                @Override
+                public long getVersion() {
+                    return version;
+                }
+            };
+        }
     }
 
     static class IllegalIds implements ArgumentsProvider {